@@ -26,10 +26,30 @@ public enum SaturationStatColumns implements StatisticsColumn {
      * number of discarded tautology
      */
     DISCARDED_TAUTOLOGY,
+    /**
+     * number of discarded variants of TGDs already added
+     */
+    DISCARDED_VARIANT,
     /**
      * number of loop stopped because a TGD is subsumed
      */
     STOP_BECAUSE_SUBSUMED,
+    /**
+     * number of batches of deferred backward subsumption
+     */
+    BACKWARD_BATCH_NB,
+    /**
+     * number of new TGDs checked for backward subsumption in the batches
+     */
+    BACKWARD_BATCH_CHECKED,
+    /**
+     * number of new TGDs of the batches that subsumed at least a TGD
+     */
+    BACKWARD_BATCH_SUBSUMING,
+    /**
+     * number of new TGDs of the batches not checked, since they were subsumed in their batch
+     */
+    BACKWARD_BATCH_SKIPPED,
     /**
      * number of derived non-full TGDs 
      */
@@ -70,6 +90,42 @@ public enum SaturationStatColumns implements StatisticsColumn {
      * number of hypperesolution failure
      */
     HYPER_FAILURE,
+    /**
+     * sum of the lengths of the candidate prefixes pruned during the hypperesolution
+     */
+    HYPER_PRUNE_DEPTH,
+    /**
+     * number of generations processed by the generation based saturation
+     */
+    GENERATION_NB,
+    /**
+     * number of new TGDs passed with their partners to the evolve stage of the pipeline
+     */
+    PIPELINE_DISPATCHED,
+    /**
+     * number of evolve stage results merged by the subsumption stage of the pipeline
+     */
+    PIPELINE_MERGED,
+    /**
+     * number of times the new TGDs were not dispatched, since the evolve queue was full
+     */
+    PIPELINE_DISPATCH_STALL,
+    /**
+     * number of times an evolve stage waited, since the result queue was full
+     */
+    PIPELINE_EVOLVE_STALL,
+    /**
+     * number of created TGDs found in the intern tables
+     */
+    INTERN_HIT,
+    /**
+     * number of created TGDs added to the intern tables
+     */
+    INTERN_MISS,
+    /**
+     * number of TGDs evicted from the intern tables
+     */
+    INTERN_EVICTION,
     /**
      * time (ms) spent for the forward subsumption
      */
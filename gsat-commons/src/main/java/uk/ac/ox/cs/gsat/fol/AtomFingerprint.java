@@ -0,0 +1,119 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Term fingerprints of atoms, as proposed in Fingerprint Indexing for Paramodulation
+ * and Rewriting - Stephan Schulz. The fingerprint of an atom is the vector of
+ * the features of its terms at some sampled positions: the first arguments of
+ * the atom and the first argument of each of them. A feature is either a
+ * symbol, a variable, a position below a variable or an absent position.
+ *
+ * The fingerprints are written in flat int arrays, so that they can be
+ * compared without following any reference. The symbols are written with
+ * their ids in a {@link SymbolTable}, so only the fingerprints computed with
+ * the same table should be compared.
+ */
+public class AtomFingerprint {
+
+    /**
+     * number of sampled positions
+     */
+    public static final int SIZE = 8;
+
+    /**
+     * size of an exact fingerprint, which starts with the predicate
+     */
+    public static final int EXACT_SIZE = SIZE + 1;
+
+    // number of sampled arguments of the atom
+    private static final int ARGUMENT_NB = SIZE / 2;
+
+    private static final int ABSENT = 0, BELOW_VARIABLE = 1, VARIABLE = 2, SYMBOL_OFFSET = 3;
+
+    private AtomFingerprint() {
+    }
+
+    /**
+     * Writes the fingerprint of the atom at the offset of the target, such
+     * that the fingerprints of two unifiable atoms are compatible.
+     */
+    public static void compute(Atom atom, int[] target, int offset, SymbolTable symbols) {
+        Term[] terms = atom.getTerms();
+        for (int i = 0; i < ARGUMENT_NB; i++) {
+            Term term = (i < terms.length) ? terms[i] : null;
+            target[offset + i] = getFeature(term, false, symbols);
+            target[offset + ARGUMENT_NB + i] = getFirstArgumentFeature(term, false, symbols);
+        }
+    }
+
+    /**
+     * Writes the exact fingerprint of the atom at the offset of the target,
+     * whose features distinguish the variables, such that the exact
+     * fingerprints of two equal atoms are equal.
+     */
+    public static void computeExact(Atom atom, int[] target, int offset, SymbolTable symbols) {
+        target[offset] = symbols.getPredicateId(atom.getPredicate());
+        Term[] terms = atom.getTerms();
+        for (int i = 0; i < ARGUMENT_NB; i++) {
+            Term term = (i < terms.length) ? terms[i] : null;
+            target[offset + 1 + i] = getFeature(term, true, symbols);
+            target[offset + 1 + ARGUMENT_NB + i] = getFirstArgumentFeature(term, true, symbols);
+        }
+    }
+
+    /**
+     * Returns false if the atoms of the fingerprints are not unifiable
+     */
+    public static boolean isCompatible(int[] a, int aOffset, int[] b, int bOffset) {
+        boolean compatible = true;
+        for (int i = 0; i < SIZE; i++) {
+            int x = a[aOffset + i];
+            int y = b[bOffset + i];
+            // a position below a variable may be anything after the unification,
+            // a variable may be unified with any existing term
+            compatible &= (x == y) | (x == BELOW_VARIABLE) | (y == BELOW_VARIABLE)
+                    | ((x != ABSENT) & (y != ABSENT) & ((x == VARIABLE) | (y == VARIABLE)));
+        }
+        return compatible;
+    }
+
+    /**
+     * Returns true if the exact fingerprints are equal
+     */
+    public static boolean isEqual(int[] a, int aOffset, int[] b, int bOffset) {
+        int difference = 0;
+        for (int i = 0; i < EXACT_SIZE; i++)
+            difference |= a[aOffset + i] ^ b[bOffset + i];
+        return difference == 0;
+    }
+
+    private static int getFeature(Term term, boolean exact, SymbolTable symbols) {
+        if (term == null)
+            return ABSENT;
+        if (term.isVariable())
+            return (exact) ? SYMBOL_OFFSET + symbols.getTermCode(term) : VARIABLE;
+        return SYMBOL_OFFSET + getSymbolCode(term, symbols);
+    }
+
+    private static int getFirstArgumentFeature(Term term, boolean exact, SymbolTable symbols) {
+        if (term == null)
+            return ABSENT;
+        if (term.isVariable())
+            return (exact) ? ABSENT : BELOW_VARIABLE;
+        if (term instanceof FunctionTerm && ((FunctionTerm) term).getTerms().length > 0)
+            return getFeature(((FunctionTerm) term).getTerms()[0], exact, symbols);
+        return ABSENT;
+    }
+
+    // the functions and the constants have distinct codes, since their kinds differ
+    private static int getSymbolCode(Term term, SymbolTable symbols) {
+        if (term instanceof FunctionTerm) {
+            int functionId = symbols.getFunctionId(((FunctionTerm) term).getFunction());
+            return (functionId << 2) | 3;
+        }
+        return symbols.getTermCode(term);
+    }
+}
@@ -0,0 +1,246 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Canonical form of a TGD up to variable renaming: two TGDs have equal
+ * canonical forms iff one is obtained from the other by renaming its
+ * variables.
+ *
+ * The variables are labelled by individualization and refinement, as in the
+ * canonical labelling of graphs: the colours of the variables are refined
+ * using the atoms and the positions in which they occur, together with the
+ * colours of their co-occurring variables, until the partition of the
+ * variables is stable. The variables of a cell with several variables are
+ * then individualized one after the other, and the smallest encoding among
+ * the labellings obtained is kept. The search is bounded, so that, for the
+ * rare TGDs with many symmetric variables, two variants may get distinct forms.
+ * Their forms are never equal if they are not variants.
+ */
+public final class CanonicalForm {
+
+    // maximal number of labellings compared by the search
+    private static final int MAX_LEAVES = 64;
+    // marks the start of a function term in the encoding of the atoms
+    private static final int FUNCTION_TERM = Integer.MIN_VALUE;
+    private static final long INDIVIDUALIZED = 0x2545F4914F6CDD1DL;
+
+    private final int[] codes;
+    private final long hash;
+
+    private CanonicalForm(int[] codes) {
+        this.codes = codes;
+        long h = codes.length;
+        for (int code : codes)
+            h = mix(h * 31 + code);
+        this.hash = h;
+    }
+
+    /**
+     * Returns the canonical form of the TGD, whose symbols are encoded with
+     * the symbol table of the current context, so the forms computed in
+     * different contexts should not be compared
+     */
+    public static CanonicalForm of(TGD tgd) {
+        return new Labelling(tgd, TGDContext.current().getSymbolTable()).computeForm();
+    }
+
+    /**
+     * Returns the 64-bit hash of this form, which does not depend on the
+     * naming of the variables of the TGD
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof CanonicalForm))
+            return false;
+        CanonicalForm other = (CanonicalForm) obj;
+        return hash == other.hash && Arrays.equals(codes, other.codes);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Search of the labelling of the variables of a TGD, whose atoms are
+     * encoded as int arrays, in which the variables are negative
+     */
+    private static class Labelling {
+        private final int[][] body;
+        private final int[][] head;
+        private final int variableNb;
+        private int[] best = null;
+        private int leaves = 0;
+
+        Labelling(TGD tgd, SymbolTable symbols) {
+            Map<Variable, Integer> variables = new HashMap<>();
+            body = encode(tgd.getBodyAtoms(), variables, symbols);
+            head = encode(tgd.getHeadAtoms(), variables, symbols);
+            variableNb = variables.size();
+        }
+
+        CanonicalForm computeForm() {
+            search(refine(new long[variableNb]));
+            return new CanonicalForm(best);
+        }
+
+        private void search(long[] colours) {
+            if (leaves >= MAX_LEAVES)
+                return;
+
+            // the cell to split is the non singleton cell of the smallest colour
+            long[] sorted = colours.clone();
+            Arrays.sort(sorted);
+            boolean found = false;
+            long cell = 0;
+            for (int i = 1; i < sorted.length && !found; i++)
+                if (sorted[i] == sorted[i - 1]) {
+                    cell = sorted[i];
+                    found = true;
+                }
+
+            if (!found) {
+                leaves++;
+                int[] codes = label(colours);
+                if (best == null || Arrays.compare(codes, best) < 0)
+                    best = codes;
+                return;
+            }
+
+            for (int v = 0; v < variableNb; v++) {
+                if (colours[v] != cell)
+                    continue;
+                long[] individualized = colours.clone();
+                individualized[v] = mix(cell ^ INDIVIDUALIZED);
+                search(refine(individualized));
+            }
+        }
+
+        // refines the colours until the number of cells does not increase
+        private long[] refine(long[] colours) {
+            int cellNb = countCells(colours);
+            while (true) {
+                long[] refined = colours.clone();
+                refineAtoms(body, 1, colours, refined);
+                refineAtoms(head, 2, colours, refined);
+                for (int v = 0; v < variableNb; v++)
+                    refined[v] = mix(refined[v]);
+
+                int refinedCellNb = countCells(refined);
+                if (refinedCellNb <= cellNb)
+                    return colours;
+                colours = refined;
+                cellNb = refinedCellNb;
+            }
+        }
+
+        // adds to the refined colour of each variable the hashes of its occurrences
+        private void refineAtoms(int[][] atoms, int side, long[] colours, long[] refined) {
+            for (int[] atom : atoms) {
+                long atomHash = side;
+                for (int code : atom)
+                    atomHash = mix(atomHash * 31 + ((code < 0 && code != FUNCTION_TERM) ? colours[-code - 1] : code));
+                for (int position = 0; position < atom.length; position++)
+                    if (atom[position] < 0 && atom[position] != FUNCTION_TERM)
+                        refined[-atom[position] - 1] += mix(atomHash + position);
+            }
+        }
+
+        private static int countCells(long[] colours) {
+            if (colours.length == 0)
+                return 0;
+            long[] sorted = colours.clone();
+            Arrays.sort(sorted);
+            int cellNb = 1;
+            for (int i = 1; i < sorted.length; i++)
+                if (sorted[i] != sorted[i - 1])
+                    cellNb++;
+            return cellNb;
+        }
+
+        // encodes the TGD, whose variables are labelled by the rank of their colours
+        private int[] label(long[] colours) {
+            long[] sorted = colours.clone();
+            Arrays.sort(sorted);
+            int[] labels = new int[variableNb];
+            for (int v = 0; v < variableNb; v++)
+                labels[v] = Arrays.binarySearch(sorted, colours[v]);
+
+            List<Integer> codes = new ArrayList<>();
+            appendAtoms(body, labels, codes);
+            appendAtoms(head, labels, codes);
+            return codes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private static void appendAtoms(int[][] atoms, int[] labels, List<Integer> codes) {
+            int[][] labelled = new int[atoms.length][];
+            for (int i = 0; i < atoms.length; i++) {
+                labelled[i] = atoms[i].clone();
+                for (int position = 0; position < labelled[i].length; position++) {
+                    int code = labelled[i][position];
+                    if (code < 0 && code != FUNCTION_TERM)
+                        labelled[i][position] = -labels[-code - 1] - 1;
+                }
+            }
+            Arrays.sort(labelled, Arrays::compare);
+
+            codes.add(atoms.length);
+            for (int[] atom : labelled) {
+                codes.add(atom.length);
+                for (int code : atom)
+                    codes.add(code);
+            }
+        }
+
+        private static int[][] encode(Atom[] atoms, Map<Variable, Integer> variables, SymbolTable symbols) {
+            int[][] encoded = new int[atoms.length][];
+            List<Integer> codes = new ArrayList<>();
+            for (int i = 0; i < atoms.length; i++) {
+                codes.clear();
+                codes.add(symbols.getPredicateId(atoms[i].getPredicate()));
+                for (Term term : atoms[i].getTerms())
+                    encode(term, variables, codes, symbols);
+                encoded[i] = codes.stream().mapToInt(Integer::intValue).toArray();
+            }
+            return encoded;
+        }
+
+        private static void encode(Term term, Map<Variable, Integer> variables, List<Integer> codes,
+                SymbolTable symbols) {
+            if (term.isVariable()) {
+                Integer index = variables.computeIfAbsent((Variable) term, v -> variables.size());
+                codes.add(-index - 1);
+            } else if (term instanceof FunctionTerm) {
+                FunctionTerm functionTerm = (FunctionTerm) term;
+                codes.add(FUNCTION_TERM);
+                codes.add(symbols.getFunctionId(functionTerm.getFunction()));
+                for (Term subterm : functionTerm.getTerms())
+                    encode(subterm, variables, codes, symbols);
+            } else {
+                codes.add(symbols.getTermCode(term));
+            }
+        }
+    }
+}
@@ -53,10 +53,18 @@ public class GTGD extends TGD {
     }
 
     public static GTGD create(Set<Atom> body, Set<Atom> head) {
-        return Cache.gtgd.retrieve(new GTGD(body, head));
+        return create(TGDContext.current(), body, head);
+    }
+
+    public static GTGD create(TGDContext context, Set<Atom> body, Set<Atom> head) {
+        return context.internGTGD(new GTGD(body, head));
     }
 
     public static GTGD create(Atom[] body, Atom[] head) {
-        return Cache.gtgd.retrieve(new GTGD(body, head));
+        return create(TGDContext.current(), body, head);
+    }
+
+    public static GTGD create(TGDContext context, Atom[] body, Atom[] head) {
+        return context.internGTGD(new GTGD(body, head));
     }
 }
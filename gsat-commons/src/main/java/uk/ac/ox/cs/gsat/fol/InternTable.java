@@ -0,0 +1,155 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Table interning the TGDs of a class in a {@link TGDContext}. Two canonical
+ * TGDs of the same table are equal if and only if they are the same object.
+ *
+ * Depending on its type, the table either references weakly its TGDs, or keeps
+ * at most a given number of TGDs and evicts the least recently used ones. An
+ * evicted TGD is not canonical anymore, so it is compared structurally.
+ *
+ * The access to the table is synchronized since the TGDs can be created by
+ * several threads.
+ */
+class InternTable<T extends TGD> {
+
+    private final TGDContext.Tables owner;
+    private final InternTableType type;
+
+    // WEAK type: chains of weak entries indexed by the TGD hashes
+    private final Map<Integer, WeakEntry<T>> weakEntries;
+    private final ReferenceQueue<T> queue;
+    // LRU type: TGDs in their access order
+    private final LinkedHashMap<T, T> lruEntries;
+
+    private long hitCount = 0, missCount = 0, evictionCount = 0;
+
+    InternTable(TGDContext.Tables owner, InternTableType type, int maxSize) {
+        this.owner = owner;
+        this.type = type;
+
+        switch (type) {
+        case WEAK:
+            this.weakEntries = new HashMap<>();
+            this.queue = new ReferenceQueue<>();
+            this.lruEntries = null;
+            break;
+        case LRU:
+            if (maxSize <= 0)
+                throw new IllegalArgumentException("The size of a LRU intern table should be positive");
+            this.weakEntries = null;
+            this.queue = null;
+            this.lruEntries = new LinkedHashMap<T, T>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<T, T> eldest) {
+                    if (size() <= maxSize)
+                        return false;
+
+                    eldest.getValue().evict();
+                    evictionCount++;
+                    return true;
+                }
+            };
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Returns the canonical TGD equal to the input one, the input TGD becomes
+     * canonical if there is none.
+     */
+    synchronized T retrieve(T newTGD) {
+        T result = (type == InternTableType.WEAK) ? retrieveWeak(newTGD) : retrieveLRU(newTGD);
+
+        if (result == newTGD) {
+            missCount++;
+            newTGD.intern(owner);
+        } else {
+            hitCount++;
+        }
+
+        return result;
+    }
+
+    private T retrieveWeak(T newTGD) {
+        purge();
+
+        int hash = newTGD.hashCode();
+        WeakEntry<T> first = weakEntries.get(hash);
+        for (WeakEntry<T> entry = first; entry != null; entry = entry.next) {
+            T tgd = entry.get();
+            if (tgd != null && tgd.equals(newTGD))
+                return tgd;
+        }
+
+        weakEntries.put(hash, new WeakEntry<>(newTGD, hash, first, queue));
+        return newTGD;
+    }
+
+    private T retrieveLRU(T newTGD) {
+        T tgd = lruEntries.get(newTGD);
+        if (tgd != null)
+            return tgd;
+
+        lruEntries.put(newTGD, newTGD);
+        return newTGD;
+    }
+
+    /**
+     * Removes the entries of the collected TGDs
+     */
+    @SuppressWarnings("unchecked")
+    private void purge() {
+        for (Reference<? extends T> reference; (reference = queue.poll()) != null;) {
+            WeakEntry<T> collected = (WeakEntry<T>) reference;
+            WeakEntry<T> previous = null;
+            for (WeakEntry<T> entry = weakEntries.get(collected.hash); entry != null; entry = entry.next) {
+                if (entry == collected) {
+                    if (previous != null)
+                        previous.next = entry.next;
+                    else if (entry.next != null)
+                        weakEntries.put(entry.hash, entry.next);
+                    else
+                        weakEntries.remove(entry.hash);
+                    evictionCount++;
+                    break;
+                }
+                previous = entry;
+            }
+        }
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static class WeakEntry<T> extends WeakReference<T> {
+        private final int hash;
+        private WeakEntry<T> next;
+
+        private WeakEntry(T tgd, int hash, WeakEntry<T> next, ReferenceQueue<T> queue) {
+            super(tgd, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
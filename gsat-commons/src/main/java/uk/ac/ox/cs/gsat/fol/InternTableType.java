@@ -0,0 +1,17 @@
+package uk.ac.ox.cs.gsat.fol;
+
+/**
+ * Types of the tables interning the TGDs of a {@link TGDContext}
+ */
+public enum InternTableType {
+    /**
+     * the interned TGDs are weakly referenced, so they are evicted once they
+     * are not used anymore
+     */
+    WEAK,
+    /**
+     * the interned TGDs are strongly referenced up to a maximal number of
+     * entries, beyond which the least recently used TGDs are evicted
+     */
+    LRU
+}
@@ -137,7 +137,8 @@ public class Logic {
 
 	public static Map<Term, Term> getMGU(Atom s, Atom t) {
 
-		return getMGU(s, t, new HashMap<Term, Term>());
+		// the union-find unifier does not allocate anything when the unification fails
+		return Unifier.getMGU(s, t);
 
 	}
 
@@ -249,23 +250,8 @@ public class Logic {
 
     public static Map<Term, Term> getVariableSubstitution(List<Atom> atoms1, List<Atom> atoms2) {
 
-        Map<Term, Term> sigma = new HashMap<>();
-
-        if (atoms1.size() != atoms2.size())
-            return null;
-
         // assume they are all in the same order
-        for (int i = 0; i < atoms1.size(); i++) {
-            Atom atom1 = atoms1.get(i);
-            Atom atom2 = atoms2.get(i);
-
-            sigma = Logic.getMGU(atom1, atom2, sigma);
-
-            if (sigma == null)
-                return null;
-        }
-
-        return sigma;
+        return Unifier.getMGU(atoms1, atoms2);
     }
 
     public static GTGD applyMGU(GTGD tgd, Map<Term, Term> mgu) {
@@ -1,9 +1,7 @@
 package uk.ac.ox.cs.gsat.fol;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -13,9 +11,6 @@ import uk.ac.ox.cs.pdq.fol.Predicate;
 import uk.ac.ox.cs.pdq.fol.Term;
 
 public class OrderedSkGTGD extends SkGTGD {
-    private static final Map<Predicate, Integer> PREDICATE_INDEXES = new HashMap<>();
-    private static final Map<Function, Integer> FUNCTION_INDEXES = new HashMap<>();
-
     private Atom[] maxAtoms;
     private Boolean areMaxAtomsInBody;
 
@@ -23,8 +18,20 @@ public class OrderedSkGTGD extends SkGTGD {
         super(body, head);
     }
 
+    private OrderedSkGTGD(Atom[] body, Atom[] head) {
+        super(body, head);
+    }
+
     public static OrderedSkGTGD create(Set<Atom> body, Set<Atom> head) {
-        return Cache.ordskgtgd.retrieve(new OrderedSkGTGD(body, head));
+        return create(TGDContext.current(), body, head);
+    }
+
+    public static OrderedSkGTGD create(TGDContext context, Set<Atom> body, Set<Atom> head) {
+        return context.internOrderedSkGTGD(new OrderedSkGTGD(body, head));
+    }
+
+    public static OrderedSkGTGD create(TGDContext context, Atom[] body, Atom[] head) {
+        return context.internOrderedSkGTGD(new OrderedSkGTGD(body, head));
     }
 
     public Atom[] getMaxOrSelectedAtoms() {
@@ -163,17 +170,11 @@ public class OrderedSkGTGD extends SkGTGD {
     }
 
     private int getPredicateIndex(Predicate p) {
-        if (!PREDICATE_INDEXES.containsKey(p)) {
-            PREDICATE_INDEXES.put(p, PREDICATE_INDEXES.size());
-        }
-        return PREDICATE_INDEXES.get(p);
+        return getContext().getPredicateIndex(p);
     }
 
-    private int getFunctionIndex(Function p) {
-        if (!FUNCTION_INDEXES.containsKey(p)) {
-            FUNCTION_INDEXES.put(p, FUNCTION_INDEXES.size());
-        }
-        return FUNCTION_INDEXES.get(p);
+    private int getFunctionIndex(Function f) {
+        return getContext().getFunctionIndex(f);
     }
 
 }
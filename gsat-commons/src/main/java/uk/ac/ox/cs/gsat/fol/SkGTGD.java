@@ -19,6 +19,10 @@ public class SkGTGD extends GTGD {
     protected final Atom[] functionalBodyAtoms;
 
 	protected SkGTGD(Set<Atom> body, Set<Atom> head) {
+        this(body.toArray(new Atom[body.size()]), head.toArray(new Atom[head.size()]));
+    }
+
+	protected SkGTGD(Atom[] body, Atom[] head) {
         super(body, head);
 
         this.functionalBodyAtoms = getFunctionalAtoms(this.getBodyAtoms());
@@ -28,7 +32,15 @@ public class SkGTGD extends GTGD {
     }
 
     public static SkGTGD create(Set<Atom> body, Set<Atom> head) {
-        return Cache.skgtgd.retrieve(new SkGTGD(body, head));
+        return create(TGDContext.current(), body, head);
+    }
+
+    public static SkGTGD create(TGDContext context, Set<Atom> body, Set<Atom> head) {
+        return context.internSkGTGD(new SkGTGD(body, head));
+    }
+
+    public static SkGTGD create(TGDContext context, Atom[] body, Atom[] head) {
+        return context.internSkGTGD(new SkGTGD(body, head));
     }
     
 	public boolean isNonFull() {
@@ -0,0 +1,115 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Dictionary mapping the predicates, the Skolem functions and the terms to
+ * dense integer ids, which the indexes compare instead of the symbols.
+ *
+ * The code of a term is made of its id and of its kind, stored in the two
+ * lowest bits: a variable, an untyped constant, another constant or a function
+ * term. A table is owned by a {@link TGDContext}, which drops it when it is
+ * released, and is thread-safe.
+ */
+public class SymbolTable {
+
+    private static final int KIND_BITS = 2;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+    private static final int VARIABLE = 0, UNTYPED_CONSTANT = 1, CONSTANT = 2, FUNCTION_TERM = 3;
+
+    private final Dictionary<Predicate> predicates = new Dictionary<>();
+    private final Dictionary<Function> functions = new Dictionary<>();
+    private final Dictionary<Term> terms = new Dictionary<>();
+
+    SymbolTable() {
+    }
+
+    public int getPredicateId(Predicate predicate) {
+        return predicates.getId(predicate);
+    }
+
+    public Predicate getPredicate(int id) {
+        return predicates.getSymbol(id);
+    }
+
+    public int getFunctionId(Function function) {
+        return functions.getId(function);
+    }
+
+    public Function getFunction(int id) {
+        return functions.getSymbol(id);
+    }
+
+    /**
+     * Returns the code of a term, made of its id and its kind
+     */
+    public int getTermCode(Term term) {
+        int kind;
+        if (term.isVariable())
+            kind = VARIABLE;
+        else if (term.isUntypedConstant())
+            kind = UNTYPED_CONSTANT;
+        else if (term instanceof FunctionTerm)
+            kind = FUNCTION_TERM;
+        else
+            kind = CONSTANT;
+
+        return (terms.getId(term) << KIND_BITS) | kind;
+    }
+
+    public Term getTerm(int code) {
+        return terms.getSymbol(code >>> KIND_BITS);
+    }
+
+    public static boolean isVariable(int code) {
+        return (code & KIND_MASK) == VARIABLE;
+    }
+
+    public static boolean isUntypedConstant(int code) {
+        return (code & KIND_MASK) == UNTYPED_CONSTANT;
+    }
+
+    public static boolean isFunctionTerm(int code) {
+        return (code & KIND_MASK) == FUNCTION_TERM;
+    }
+
+    /**
+     * Bidirectional mapping between symbols and dense ids. The lookups of
+     * existing ids are lock-free, only the creation of a new id is synchronized.
+     */
+    private static class Dictionary<K> {
+        private final ConcurrentHashMap<K, Integer> ids = new ConcurrentHashMap<>();
+        private volatile Object[] symbols = new Object[64];
+        private int size = 0;
+
+        int getId(K symbol) {
+            Integer id = ids.get(symbol);
+            if (id != null)
+                return id;
+
+            synchronized (this) {
+                id = ids.get(symbol);
+                if (id != null)
+                    return id;
+
+                if (size == symbols.length)
+                    symbols = Arrays.copyOf(symbols, size * 2);
+                symbols[size] = symbol;
+                // the id is published after the symbol is stored
+                ids.put(symbol, size);
+                return size++;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        K getSymbol(int id) {
+            return (K) symbols[id];
+        }
+    }
+}
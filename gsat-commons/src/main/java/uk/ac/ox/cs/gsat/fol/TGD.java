@@ -1,9 +1,10 @@
 package uk.ac.ox.cs.gsat.fol;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import uk.ac.ox.cs.pdq.fol.Atom;
 import uk.ac.ox.cs.pdq.fol.FunctionTerm;
@@ -27,9 +28,30 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 	 */
 	public final static Atom Bottom = Atom.create(Predicate.create(LogicalSymbols.BOTTOM.toString(), 0));
 
+	private static final AtomicInteger VISIT_EPOCHS = new AtomicInteger();
+
 	private final Set<Atom> bodySet;
 	private final Set<Atom> headSet;
-	private int[] bodyHashes = null, headHashes = null;
+	// Bloom signatures of the body and head atoms, see getBodySignature
+	private final long bodySignature, headSignature;
+	// hashes of the body and head atoms sorted in ascending order, which rule out most
+	// inclusions by a merge, before the atoms are looked up in the sets
+	private final int[] bodyAtomHashes, headAtomHashes;
+	// the hash code is computed once from the hashes of the atoms, since the TGDs are
+	// mostly stored in hash based collections
+	private final int hash;
+	// the hashes may be set by a filter used by several threads
+	private volatile int[] bodyHashes = null, headHashes = null;
+	// the tables in which this TGD has been interned, set while holding the lock of its intern table
+	private TGDContext.Tables tables = null;
+	// true, if this TGD is the canonical TGD of its intern table i.e. it is interned and not evicted
+	private volatile boolean canonical = false;
+	// epoch of the last visit of this TGD, see markVisited
+	private int visitEpoch = 0;
+	// forms derived from this TGD, computed once on demand, since the TGDs are evolved many times
+	private volatile RenamedCopy renamedCopy = null;
+	private volatile Set<Variable> existentialSet = null;
+	private volatile int[] headPredicateHashes = null;
 
 	protected TGD(Atom[] body, Atom[] head) {
 
@@ -37,6 +59,12 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 
 		bodySet = Set.of(body);
 		headSet = Set.of(head);
+		bodySignature = computeSignature(body);
+		headSignature = computeSignature(head);
+		bodyAtomHashes = computeAtomHashes(body);
+		headAtomHashes = computeAtomHashes(head);
+		// the hash does not depend on the order of the atoms
+		hash = 31 * bodySet.hashCode() + headSet.hashCode();
 
 	}
 
@@ -46,13 +74,58 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 	}
 
     public static TGD create(Collection<Atom> body, Collection<Atom> head) {
-        return Cache.tgd.retrieve(new TGD(body, head));
+        return create(TGDContext.current(), body, head);
     }
 
     public static TGD create(Atom[] body, Atom[] head) {
-        return Cache.tgd.retrieve(new TGD(body, head));
+        return TGDContext.current().intern(new TGD(body, head));
+    }
+
+    public static TGD create(TGDContext context, Collection<Atom> body, Collection<Atom> head) {
+        return context.intern(new TGD(body, head));
+    }
+
+    public static TGD create(TGDContext context, Atom[] body, Atom[] head) {
+        return context.intern(new TGD(body, head));
     }
 
+	/**
+	 * Returns the context in which this TGD has been interned, or the current
+	 * one if it has not been interned.
+	 */
+	public TGDContext getContext() {
+		TGDContext.Tables t = tables;
+		return (t != null) ? t.context : TGDContext.current();
+	}
+
+	void intern(TGDContext.Tables tables) {
+		this.tables = tables;
+		this.canonical = true;
+	}
+
+	void evict() {
+		this.canonical = false;
+	}
+
+	/**
+	 * Returns a new epoch for marking the TGDs visited by a traversal
+	 */
+	public static int newVisitEpoch() {
+		return VISIT_EPOCHS.incrementAndGet();
+	}
+
+	/**
+	 * Marks this TGD as visited in the epoch and returns true if it was not
+	 * already visited in this epoch. A TGD should not be visited by several
+	 * threads at the same time.
+	 */
+	public boolean markVisited(int epoch) {
+		if (visitEpoch == epoch)
+			return false;
+		visitEpoch = epoch;
+		return true;
+	}
+
 	public Set<Atom> getBodySet() {
 		return bodySet;
 	}
@@ -61,6 +134,89 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 		return headSet;
 	}
 
+	/**
+	 * Returns the Bloom signature of the body atoms, in which each atom sets a
+	 * bit chosen by its hash. If the body of a TGD is contained in the one of
+	 * another, the bits of its signature are set in the signature of the other.
+	 */
+	public long getBodySignature() {
+		return bodySignature;
+	}
+
+	/**
+	 * Returns the Bloom signature of the head atoms, see getBodySignature
+	 */
+	public long getHeadSignature() {
+		return headSignature;
+	}
+
+	/**
+	 * Returns true if the body atoms of this TGD contain the ones of the other
+	 * TGD, the sets are only compared when the hashes of the atoms are contained
+	 */
+	public boolean bodyContainsAll(TGD other) {
+		return containsAll(bodyAtomHashes, other.bodyAtomHashes) && bodySet.containsAll(other.bodySet);
+	}
+
+	/**
+	 * Returns true if the head atoms of this TGD contain the ones of the other
+	 * TGD, see bodyContainsAll
+	 */
+	public boolean headContainsAll(TGD other) {
+		return containsAll(headAtomHashes, other.headAtomHashes) && headSet.containsAll(other.headSet);
+	}
+
+	/**
+	 * Returns true if the body atoms of this TGD contain its head atoms
+	 */
+	public boolean isBodyContainingHead() {
+		return containsAll(bodyAtomHashes, headAtomHashes) && bodySet.containsAll(headSet);
+	}
+
+	/**
+	 * Returns true if the sorted hashes contain the other sorted hashes, by
+	 * merging them. The atoms of sets containing the other ones have their
+	 * hashes contained in the other hashes, but the converse may not hold.
+	 */
+	public static boolean containsAll(int[] hashes, int[] otherHashes) {
+		if (hashes.length < otherHashes.length)
+			return false;
+
+		int i = 0;
+		for (int hash : otherHashes) {
+			while (i < hashes.length && hashes[i] < hash)
+				i++;
+			if (i == hashes.length || hashes[i] != hash)
+				return false;
+			i++;
+		}
+		return true;
+	}
+
+	private static int[] computeAtomHashes(Atom[] atoms) {
+		int[] hashes = new int[atoms.length];
+		for (int i = 0; i < atoms.length; i++)
+			hashes[i] = atoms[i].hashCode();
+		Arrays.sort(hashes);
+		return hashes;
+	}
+
+	/**
+	 * Returns false if the atoms of the first signature cannot be contained in
+	 * the ones of the second signature
+	 */
+	public static boolean mayBeContained(long signature, long otherSignature) {
+		return (signature & ~otherSignature) == 0;
+	}
+
+	private static long computeSignature(Atom[] atoms) {
+		long signature = 0;
+		for (Atom atom : atoms)
+			// the 6 highest bits of the scrambled hash select the bit
+			signature |= 1L << ((atom.hashCode() * 0x9E3779B9) >>> 26);
+		return signature;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 
@@ -69,19 +225,21 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 
         TGD other = (TGD) obj;
 
-        // the optimization below uses the fact that, with the class manager in Cache
-        // we know that two object of the same class are not equal when they are different objects
-        return (!other.getClass().equals(this.getClass()) || this == other)
-            && other.getBodySet().equals(this.getBodySet())
-            && other.getHeadSet().equals(this.getHeadSet());
+        // the optimization below uses the fact that, with the intern tables of a TGDContext
+        // we know that two canonical objects of the same class interned in the same tables are not equal when they are different objects
+        return (!other.getClass().equals(this.getClass()) || this == other || !canonical || !other.canonical || tables != other.tables)
+            && other.hash == hash
+            && other.bodySignature == bodySignature && other.headSignature == headSignature
+            && Arrays.equals(other.bodyAtomHashes, bodyAtomHashes) && Arrays.equals(other.headAtomHashes, headAtomHashes)
+            && other.bodySet.equals(bodySet) && other.headSet.equals(headSet);
 	}
 
     @Override
     public int hashCode() {
         // we need to define a hashCode that is coherent across the subclass of TGD
-        // in other words, even with class managers in Cache, two TGDs may be different objects and be equals
+        // in other words, even with the intern tables of a TGDContext, two TGDs may be different objects and be equals
         // if they have different classes e.g. TGD and GTGD
-        return Objects.hash(this.getBodySet(), this.getHeadSet());
+        return hash;
     }
 
 	public Collection<String> getAllTermSymbols() {
@@ -109,6 +267,49 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 		return getTopLevelQuantifiedVariables();
 	}
 
+	/**
+	 * Returns the existential variables of this TGD, as an unmodifiable set
+	 */
+	public Set<Variable> getExistentialSet() {
+		Set<Variable> existentials = existentialSet;
+		if (existentials == null) {
+			existentials = Set.of(getExistential());
+			existentialSet = existentials;
+		}
+		return existentials;
+	}
+
+	/**
+	 * Returns the distinct hashes of the predicates of the head atoms, sorted
+	 * in ascending order, which should not be modified
+	 */
+	public int[] getHeadPredicateHashes() {
+		int[] hashes = headPredicateHashes;
+		if (hashes == null) {
+			hashes = Arrays.stream(getHeadAtoms()).mapToInt(atom -> atom.getPredicate().hashCode()).sorted()
+					.distinct().toArray();
+			headPredicateHashes = hashes;
+		}
+		return hashes;
+	}
+
+	/**
+	 * Returns the copy of this TGD whose variables are renamed with the prefix,
+	 * if it has been stored by setRenamedCopy, and null otherwise
+	 */
+	public TGD getRenamedCopy(String prefix) {
+		RenamedCopy copy = renamedCopy;
+		return (copy != null && copy.prefix.equals(prefix)) ? copy.tgd : null;
+	}
+
+	/**
+	 * Stores the copy of this TGD whose variables are renamed with the prefix,
+	 * replacing the one stored for another prefix
+	 */
+	public void setRenamedCopy(String prefix, TGD tgd) {
+		renamedCopy = new RenamedCopy(prefix, tgd);
+	}
+
 	public void setBodyHashes(int[] newHashes) {
 		bodyHashes = newHashes;
 	}
@@ -132,4 +333,13 @@ public class TGD extends uk.ac.ox.cs.pdq.fol.TGD {
 		return Math.max(bwidth, hwidth);
 	}
 
+	private static class RenamedCopy {
+		private final String prefix;
+		private final TGD tgd;
+
+		RenamedCopy(String prefix, TGD tgd) {
+			this.prefix = prefix;
+			this.tgd = tgd;
+		}
+	}
 }
@@ -0,0 +1,186 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+
+/**
+ * Context owning the interning tables of the different kind of {@link TGD},
+ * the {@link SymbolTable} of the indexes and the symbol indexes used by
+ * {@link OrderedSkGTGD}.
+ *
+ * A context is created for each saturation run, so that its tables can be
+ * released as a unit at the end of the run. The TGDs created without an
+ * explicit context are interned in the context bound to the current thread,
+ * or in the global context when no context is bound.
+ *
+ * By default, the tables reference weakly the TGDs, see {@link InternTableType}.
+ */
+public class TGDContext {
+
+    private static final TGDContext GLOBAL = new TGDContext();
+    private static final ThreadLocal<TGDContext> CURRENT = new ThreadLocal<>();
+
+    private final InternTableType tableType;
+    private final int tableSize;
+    // the tables are replaced when the context is released
+    private volatile Tables tables;
+
+    private final Map<Predicate, Integer> predicateIndexes = new HashMap<>();
+    private final Map<Function, Integer> functionIndexes = new HashMap<>();
+
+    public TGDContext() {
+        this(InternTableType.WEAK, 0);
+    }
+
+    /**
+     * @param tableType type of the intern tables
+     * @param tableSize maximal number of TGDs per table, only used by the
+     *                  {@link InternTableType#LRU} tables
+     */
+    public TGDContext(InternTableType tableType, int tableSize) {
+        this.tableType = tableType;
+        this.tableSize = tableSize;
+        this.tables = new Tables(this);
+    }
+
+    /**
+     * Returns the context shared by the TGDs created outside of any bound context
+     */
+    public static TGDContext getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the context bound to the current thread or the global one
+     */
+    public static TGDContext current() {
+        TGDContext context = CURRENT.get();
+        return (context != null) ? context : GLOBAL;
+    }
+
+    /**
+     * Binds this context to the current thread until the returned binding is
+     * closed, the previously bound context is then restored.
+     */
+    public Binding bind() {
+        TGDContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Binding(previous);
+    }
+
+    /**
+     * Clears the interning tables, the symbol table and the symbol indexes of
+     * this context. The TGDs created before remain valid, but are not shared
+     * anymore with the ones created after.
+     */
+    public void release() {
+        tables = new Tables(this);
+        synchronized (this) {
+            predicateIndexes.clear();
+            functionIndexes.clear();
+        }
+    }
+
+    /**
+     * Returns the number of retrieved TGDs that were already interned since
+     * the last release
+     */
+    public long getHitCount() {
+        Tables t = tables;
+        return t.tgd.getHitCount() + t.gtgd.getHitCount() + t.skgtgd.getHitCount() + t.ordskgtgd.getHitCount();
+    }
+
+    /**
+     * Returns the number of retrieved TGDs that were not interned since the last
+     * release
+     */
+    public long getMissCount() {
+        Tables t = tables;
+        return t.tgd.getMissCount() + t.gtgd.getMissCount() + t.skgtgd.getMissCount() + t.ordskgtgd.getMissCount();
+    }
+
+    /**
+     * Returns the number of TGDs evicted from the tables since the last release
+     */
+    public long getEvictionCount() {
+        Tables t = tables;
+        return t.tgd.getEvictionCount() + t.gtgd.getEvictionCount() + t.skgtgd.getEvictionCount()
+                + t.ordskgtgd.getEvictionCount();
+    }
+
+    TGD intern(TGD newTGD) {
+        return tables.tgd.retrieve(newTGD);
+    }
+
+    GTGD internGTGD(GTGD newTGD) {
+        return tables.gtgd.retrieve(newTGD);
+    }
+
+    SkGTGD internSkGTGD(SkGTGD newTGD) {
+        return tables.skgtgd.retrieve(newTGD);
+    }
+
+    OrderedSkGTGD internOrderedSkGTGD(OrderedSkGTGD newTGD) {
+        return tables.ordskgtgd.retrieve(newTGD);
+    }
+
+    /**
+     * Returns the symbol table of this context since the last release
+     */
+    public SymbolTable getSymbolTable() {
+        return tables.symbols;
+    }
+
+    synchronized int getPredicateIndex(Predicate p) {
+        return predicateIndexes.computeIfAbsent(p, k -> predicateIndexes.size());
+    }
+
+    synchronized int getFunctionIndex(Function f) {
+        return functionIndexes.computeIfAbsent(f, k -> functionIndexes.size());
+    }
+
+    /**
+     * Interning tables of a context, two different canonical TGDs of the same
+     * class interned in the same tables are not equal.
+     */
+    static class Tables {
+
+        final TGDContext context;
+        private final InternTable<TGD> tgd;
+        private final InternTable<GTGD> gtgd;
+        private final InternTable<SkGTGD> skgtgd;
+        private final InternTable<OrderedSkGTGD> ordskgtgd;
+        private final SymbolTable symbols = new SymbolTable();
+
+        private Tables(TGDContext context) {
+            this.context = context;
+            this.tgd = new InternTable<>(this, context.tableType, context.tableSize);
+            this.gtgd = new InternTable<>(this, context.tableType, context.tableSize);
+            this.skgtgd = new InternTable<>(this, context.tableType, context.tableSize);
+            this.ordskgtgd = new InternTable<>(this, context.tableType, context.tableSize);
+        }
+    }
+
+    /**
+     * Binding of a context to the current thread
+     */
+    public static class Binding implements AutoCloseable {
+
+        private final TGDContext previous;
+
+        private Binding(TGDContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null)
+                CURRENT.set(previous);
+            else
+                CURRENT.remove();
+        }
+    }
+}
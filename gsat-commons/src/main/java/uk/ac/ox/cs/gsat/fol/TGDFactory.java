@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import uk.ac.ox.cs.gsat.Log;
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -23,13 +24,20 @@ import uk.ac.ox.cs.pdq.fol.Variable;
  */
 public class TGDFactory<Q extends TGD> {
     private static final String SKOLEM_PREFIX = "f";
-    private static int skolemIndex = 0;
+    // counters of the fresh symbols, owned by each factory, so that
+    // the saturations using distinct factories do not share them
+    private final AtomicInteger skolemIndex = new AtomicInteger();
 
     private static final String SHNF_SYMBOL = "_S";
-    private static int SHNFIndex = 0;
+    private final AtomicInteger SHNFIndex = new AtomicInteger();
+    // numbering of the fresh symbols of an input TGD, bound to the current thread
+    private final ThreadLocal<InputSymbols> inputSymbols = new ThreadLocal<>();
 
     private Constructor<Q> constructor;
     private boolean useSortedVNF;
+    private final AtomComparator atomComparator = new AtomComparator();
+    // the context in which the TGDs are interned, null stands for the current one
+    private volatile TGDContext context = null;
 
     private TGDFactory(Constructor<Q> constructor, boolean useSortedVNF) {
         this.constructor = constructor;
@@ -53,7 +61,30 @@ public class TGDFactory<Q extends TGD> {
     }
 
     public Q create(Set<Atom> body, Set<Atom> head) {
-        return this.constructor.create(body, head);
+        return this.constructor.create(getContext(), body, head);
+    }
+
+    /**
+     * Creates a TGD from arrays of distinct atoms, which are not copied
+     */
+    public Q create(Atom[] body, Atom[] head) {
+        return this.constructor.create(getContext(), body, head);
+    }
+
+    /**
+     * Returns the context in which the created TGDs are interned
+     */
+    public TGDContext getContext() {
+        TGDContext c = context;
+        return (c != null) ? c : TGDContext.current();
+    }
+
+    /**
+     * Sets the context in which the created TGDs are interned, null to use the
+     * context bound to the creating thread
+     */
+    public void setContext(TGDContext context) {
+        this.context = context;
     }
 
     /**
@@ -85,23 +116,21 @@ public class TGDFactory<Q extends TGD> {
      */
     public Q computeVNFWithoutSorting(Q tgd, String eVariable, String uVariable) {
 
-        Variable[] uVariables = tgd.getUniversal();
-        Variable[] eVariables = tgd.getExistential();
+        VariableTable uTable = VariableTable.of(uVariable);
+        VariableTable eTable = VariableTable.of(eVariable);
 
-        Map<Term, Term> substitution = new HashMap<>();
+        VariableRenaming renaming = new VariableRenaming();
         int counter = 1;
-        for (Variable v : uVariables)
-            substitution.put(v, Variable.create(uVariable + counter++));
+        for (Variable v : tgd.getUniversal())
+            renaming.put(v, uTable.get(counter++));
 
         counter = 1;
-        for (Variable v : eVariables)
-            substitution.put(v, Variable.create(eVariable + counter++));
+        for (Variable v : tgd.getExistential())
+            renaming.put(v, eTable.get(counter++));
 
-        Log.GLOBAL.fine("VNF substitution:\n" + substitution);
-
-        Q applySubstitution = (Q) Logic.applySubstitution(tgd, substitution);
-        Log.GLOBAL.fine("VNF: " + tgd + "===>>>" + applySubstitution);
-        return applySubstitution;
+        Q vnf = create(renaming.apply(tgd.getBodyAtoms()), renaming.apply(tgd.getHeadAtoms()));
+        Log.GLOBAL.fine("VNF: " + tgd + "===>>>" + vnf);
+        return vnf;
 
     }
 
@@ -118,56 +147,45 @@ public class TGDFactory<Q extends TGD> {
      */
     Q computeVNFAfterSortingByPredicates(Q tgd, String eVariable, String uVariable) {
 
-        Set<Variable> eVariables = Set.of(tgd.getExistential());
+        Set<Variable> eVariables = tgd.getExistentialSet();
+        VariableTable uTable = VariableTable.of(uVariable);
+        VariableTable eTable = VariableTable.of(eVariable);
 
-        Map<Term, Term> substitution = new HashMap<>();
-        boolean isIdentitySub = true;
+        // the atoms are sorted and renamed in copies of the arrays of the TGD
+        VariableRenaming renaming = new VariableRenaming();
         int ecounter = 1;
         int ucounter = 1;
-        List<Atom> headAtoms = Arrays.asList(tgd.getHeadAtoms());
-        headAtoms.sort(new AtomComparator());
+        Atom[] headAtoms = tgd.getHeadAtoms().clone();
+        Arrays.sort(headAtoms, atomComparator);
         for (Atom a : headAtoms) {
             for (Variable v : a.getVariables()) {
-                if (substitution.containsKey(v))
+                if (renaming.contains(v))
                     continue;
 
-                Variable newV;
-                if (eVariables.contains(v)) {
-                    newV = Variable.create(eVariable + ecounter++);
-                } else {
-                    newV = Variable.create(uVariable + ucounter++);
-                }
-
-                substitution.put(v, newV);
-
-                if (!v.equals(newV))
-                    isIdentitySub = false;
+                if (eVariables.contains(v))
+                    renaming.put(v, eTable.get(ecounter++));
+                else
+                    renaming.put(v, uTable.get(ucounter++));
             }
         }
 
-        List<Atom> bodyAtoms = Arrays.asList(tgd.getBodyAtoms());
-        bodyAtoms.sort(new AtomComparator());
+        Atom[] bodyAtoms = tgd.getBodyAtoms().clone();
+        Arrays.sort(bodyAtoms, atomComparator);
         for (Atom a : bodyAtoms) {
             for (Variable v : a.getVariables()) {
-                if (substitution.containsKey(v))
-                    continue;
-
-                Variable newV = Variable.create(uVariable + ucounter++);
-                substitution.put(v, newV);
-
-                if (!v.equals(newV))
-                    isIdentitySub = false;
+                if (!renaming.contains(v))
+                    renaming.put(v, uTable.get(ucounter++));
             }
         }
 
-        Log.GLOBAL.fine("VNF substitution:\n" + substitution);
-
-        if (isIdentitySub)
+        if (renaming.isIdentity())
             return tgd;
 
-        Q applySubstitution = (Q) Logic.applySubstitution(tgd, substitution);
-        Log.GLOBAL.fine("VNF: " + tgd + "===>>>" + applySubstitution);
-        return applySubstitution;
+        renaming.applyInPlace(bodyAtoms);
+        renaming.applyInPlace(headAtoms);
+        Q vnf = create(bodyAtoms, headAtoms);
+        Log.GLOBAL.fine("VNF: " + tgd + "===>>>" + vnf);
+        return vnf;
 
     }
 
@@ -197,7 +215,7 @@ public class TGDFactory<Q extends TGD> {
         for (Atom a : tgd.getHeadAtoms())
             if (a.equals(TGD.Bottom))
                 // remove all head atoms since ⊥ & S ≡ ⊥ for any conjunction S
-                return Set.of(constructor.create(bodyAtoms, Set.of(TGD.Bottom)));
+                return Set.of(create(bodyAtoms, Set.of(TGD.Bottom)));
             else if (Logic.containsAny(a, eVariables))
                 eHead.add(a);
             else if (!bodyAtoms.contains(a))
@@ -210,9 +228,9 @@ public class TGDFactory<Q extends TGD> {
 
         Collection<Q> result = new HashSet<>();
         if (!eHead.isEmpty())
-            result.add(constructor.create(bodyAtoms, eHead));
+            result.add(create(bodyAtoms, eHead));
         if (!fHead.isEmpty())
-            result.add(constructor.create(bodyAtoms, fHead));
+            result.add(create(bodyAtoms, fHead));
         return result;
     }
 
@@ -223,7 +241,7 @@ public class TGDFactory<Q extends TGD> {
      */
     public Q computeSkolemized(Q tgd) {
 
-        Set<Variable> eVariables = Set.of(tgd.getExistential());
+        Set<Variable> eVariables = tgd.getExistentialSet();
 
         Variable[] universalVariables = tgd.getUniversal();
         int skolemArity = universalVariables.length;
@@ -234,7 +252,7 @@ public class TGDFactory<Q extends TGD> {
 
         Map<Term, Term> substitution = new HashMap<>();
         for (Variable eVariable : eVariables) {
-            String functionName = SKOLEM_PREFIX + skolemIndex++;
+            String functionName = newSkolemName();
             Function function = new Function(functionName, skolemArity);
             Term skolemTerm = FunctionTerm.create(function, fVariables);
             substitution.put(eVariable, skolemTerm);
@@ -258,7 +276,7 @@ public class TGDFactory<Q extends TGD> {
         Q skolemizedTGD = computeSkolemized(tgd);
         // for all the head atom we add to the result a single head TGD
         for (Atom headAtom : skolemizedTGD.getHeadAtoms())
-            result.add(constructor.create(skolemizedTGD.getBodySet(), Set.of(headAtom)));
+            result.add(create(skolemizedTGD.getBodySet(), Set.of(headAtom)));
 
         return result;
     }
@@ -281,17 +299,17 @@ public class TGDFactory<Q extends TGD> {
                 hvariables.add(v);
 
         // we create a head atom capturing all the variable of the head
-        Predicate hPredicate = Predicate.create(SHNF_SYMBOL + (SHNFIndex++), hvariables.size());
+        Predicate hPredicate = Predicate.create(newSHNFName(), hvariables.size());
         Variable[] hatomVariables = new ArrayList<Variable>(hvariables).toArray(new Variable[hvariables.size()]);
         Atom hAtom = Atom.create(hPredicate, hatomVariables);
         Set<Atom> hAtomSet = Set.of(hAtom);
 
         // we add to the result the original TGD where the head is replaced by hAtom
-        result.add(constructor.create(tgd.getBodySet(), hAtomSet));
+        result.add(create(tgd.getBodySet(), hAtomSet));
 
         // for all the head atom we add to the result a single head TGD
         for (Atom headAtom : tgd.getHeadAtoms())
-            result.add(constructor.create(hAtomSet, Set.of(headAtom)));
+            result.add(create(hAtomSet, Set.of(headAtom)));
 
         return result;
     }
@@ -323,54 +341,136 @@ public class TGDFactory<Q extends TGD> {
             return computeSingleHeadedSkolemized(tgd);
 
         // we create a head atom capturing all the frontier variables
-        Predicate fPredicate = Predicate.create(SHNF_SYMBOL + (SHNFIndex++), frontier.size());
+        Predicate fPredicate = Predicate.create(newSHNFName(), frontier.size());
         Variable[] fatomVariables = new ArrayList<Variable>(frontier).toArray(new Variable[frontier.size()]);
         Atom fAtom = Atom.create(fPredicate, fatomVariables);
         Set<Atom> fAtomSet = Set.of(fAtom);
 
         // we add to the result the original TGD where the head is replaced by fAtom
-        result.add(constructor.create(tgd.getBodySet(), fAtomSet));
+        result.add(create(tgd.getBodySet(), fAtomSet));
 
         // for all the head atom we add to the result a single head skolemized TGD
-        result.addAll(computeSingleHeadedSkolemized(constructor.create(fAtomSet, tgd.getHeadSet())));
+        result.addAll(computeSingleHeadedSkolemized(create(fAtomSet, tgd.getHeadSet())));
 
         return result;
 
     }
 
+    /**
+     * Numbers the fresh symbols created by the current thread after the
+     * position of the input TGD, until the returned binding is closed. Hence,
+     * the symbols of the transformed input TGDs do not depend on the order in
+     * which the inputs are transformed, nor on the thread transforming them.
+     */
+    public InputSymbols.Binding bindInputPosition(int position) {
+        InputSymbols previous = inputSymbols.get();
+        inputSymbols.set(new InputSymbols(position));
+        return new InputSymbols.Binding(inputSymbols, previous);
+    }
+
+    private String newSkolemName() {
+        InputSymbols symbols = inputSymbols.get();
+        if (symbols != null)
+            return SKOLEM_PREFIX + symbols.position + "_" + symbols.skolemCount++;
+        return SKOLEM_PREFIX + skolemIndex.getAndIncrement();
+    }
+
+    private String newSHNFName() {
+        InputSymbols symbols = inputSymbols.get();
+        if (symbols != null)
+            return SHNF_SYMBOL + symbols.position + "_" + symbols.SHNFCount++;
+        return SHNF_SYMBOL + SHNFIndex.getAndIncrement();
+    }
+
+    /**
+     * Counters of the fresh symbols created for the input TGD at a position
+     */
+    public static class InputSymbols {
+        private final int position;
+        private int skolemCount = 0;
+        private int SHNFCount = 0;
+
+        private InputSymbols(int position) {
+            this.position = position;
+        }
+
+        /**
+         * Binding of the counters to the current thread
+         */
+        public static class Binding implements AutoCloseable {
+            private final ThreadLocal<InputSymbols> inputSymbols;
+            private final InputSymbols previous;
+
+            private Binding(ThreadLocal<InputSymbols> inputSymbols, InputSymbols previous) {
+                this.inputSymbols = inputSymbols;
+                this.previous = previous;
+            }
+
+            @Override
+            public void close() {
+                if (previous != null)
+                    inputSymbols.set(previous);
+                else
+                    inputSymbols.remove();
+            }
+        }
+    }
+
     private static interface Constructor<T extends TGD> {
-        T create(Set<Atom> bodyAtoms, Set<Atom> headAtoms);
+        T create(TGDContext context, Set<Atom> bodyAtoms, Set<Atom> headAtoms);
+
+        T create(TGDContext context, Atom[] bodyAtoms, Atom[] headAtoms);
     }
 
     private static class TGDConstructor implements Constructor<TGD> {
 
         @Override
-        public TGD create(Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
-            return TGD.create(bodyAtoms, headAtoms);
+        public TGD create(TGDContext context, Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
+            return TGD.create(context, bodyAtoms, headAtoms);
+        }
+
+        @Override
+        public TGD create(TGDContext context, Atom[] bodyAtoms, Atom[] headAtoms) {
+            return TGD.create(context, bodyAtoms, headAtoms);
         }
     }
 
     private static class GTGDConstructor implements Constructor<GTGD> {
 
         @Override
-        public GTGD create(Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
-            return GTGD.create(bodyAtoms, headAtoms);
+        public GTGD create(TGDContext context, Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
+            return GTGD.create(context, bodyAtoms, headAtoms);
+        }
+
+        @Override
+        public GTGD create(TGDContext context, Atom[] bodyAtoms, Atom[] headAtoms) {
+            return GTGD.create(context, bodyAtoms, headAtoms);
         }
     }
 
     private static class SkGTGDConstructor implements Constructor<SkGTGD> {
 
         @Override
-        public SkGTGD create(Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
-            return SkGTGD.create(bodyAtoms, headAtoms);
+        public SkGTGD create(TGDContext context, Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
+            return SkGTGD.create(context, bodyAtoms, headAtoms);
+        }
+
+        @Override
+        public SkGTGD create(TGDContext context, Atom[] bodyAtoms, Atom[] headAtoms) {
+            return SkGTGD.create(context, bodyAtoms, headAtoms);
         }
     }
 
     private static class OrderedSkGTGDConstructor implements Constructor<OrderedSkGTGD> {
 
         @Override
-        public OrderedSkGTGD create(Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
-            return OrderedSkGTGD.create(bodyAtoms, headAtoms);
+        public OrderedSkGTGD create(TGDContext context, Set<Atom> bodyAtoms, Set<Atom> headAtoms) {
+            return OrderedSkGTGD.create(context, bodyAtoms, headAtoms);
+        }
+
+        @Override
+        public OrderedSkGTGD create(TGDContext context, Atom[] bodyAtoms, Atom[] headAtoms) {
+            return OrderedSkGTGD.create(context, bodyAtoms, headAtoms);
         }
     }
 }
@@ -0,0 +1,317 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Union-find based computation of the most general unifier. The terms
+ * occurring in the unified atoms are indexed in reusable buffers, which are
+ * owned by the current thread, so that a failed unification does not allocate
+ * anything. Only a successful unification creates its substitution.
+ *
+ * The computed unifiers are the same as {@link Logic#getMGU(Atom, Atom)}: when
+ * two variables are unified, the representative of the second one represents
+ * the merged class, and the classes containing a function term are represented
+ * by this function term.
+ *
+ * An instance can also unify atoms incrementally: the modifications are
+ * recorded in a trail, so that the unifier can be rolled back to a previous
+ * mark, for instance after a failed unification.
+ */
+public class Unifier {
+
+    private static final ThreadLocal<Unifier> LOCAL = ThreadLocal.withInitial(Unifier::new);
+
+    // the indexed terms and their parents in the union-find forest
+    private Term[] terms = new Term[16];
+    private int[] parents = new int[16];
+    private int size = 0;
+    // modifications since the last reset as pairs of an index and its previous
+    // parent, the index is -1 for a newly indexed term
+    private int[] trail = new int[32];
+    private int trailSize = 0;
+
+    private Unifier() {
+    }
+
+    /**
+     * Returns a new unifier, for an incremental unification
+     */
+    public static Unifier create() {
+        return new Unifier();
+    }
+
+    /**
+     * Returns the MGU of two atoms, or null if there is none.
+     */
+    public static Map<Term, Term> getMGU(Atom s, Atom t) {
+        Unifier unifier = LOCAL.get();
+        unifier.reset();
+        return (unifier.unify(s, t)) ? unifier.getSubstitution() : null;
+    }
+
+    /**
+     * Returns the MGU unifying each atom of the first list with the atom of the
+     * second list at the same position, or null if there is none.
+     */
+    public static Map<Term, Term> getMGU(List<Atom> atoms1, List<Atom> atoms2) {
+        if (atoms1.size() != atoms2.size())
+            return null;
+
+        Unifier unifier = LOCAL.get();
+        unifier.reset();
+        for (int i = 0; i < atoms1.size(); i++)
+            if (!unifier.unify(atoms1.get(i), atoms2.get(i)))
+                return null;
+
+        return unifier.getSubstitution();
+    }
+
+    /**
+     * Forgets all the unified atoms
+     */
+    public void reset() {
+        Arrays.fill(terms, 0, size, null);
+        size = 0;
+        trailSize = 0;
+    }
+
+    /**
+     * Returns a mark of the current state of the unifier
+     */
+    public int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Restores the state of the unifier at the mark
+     */
+    public void rollback(int mark) {
+        while (trailSize > mark) {
+            trailSize -= 2;
+            int index = trail[trailSize];
+            if (index < 0) {
+                size--;
+                terms[size] = null;
+            } else {
+                parents[index] = trail[trailSize + 1];
+            }
+        }
+    }
+
+    /**
+     * Unifies the two atoms in addition to the previously unified ones. When
+     * it fails, the state of the unifier is undefined until it is rolled back
+     * or reset.
+     */
+    public boolean unify(Atom s, Atom t) {
+        if (!s.getPredicate().equals(t.getPredicate()))
+            return false;
+
+        return unify(s.getTerms(), t.getTerms());
+    }
+
+    // Warning: as in Logic.getMGU, the unification fails when a nested Skolem term
+    // occurs, since they should not occur in our algorithms
+    private boolean unify(Term[] s, Term[] t) {
+        for (int i = 0; i < s.length; i++) {
+            int sRoot = find(indexOf(s[i]));
+            int tRoot = find(indexOf(t[i]));
+
+            // the terms already belong to the same class
+            if (sRoot == tRoot)
+                continue;
+
+            Term sTerm = terms[sRoot];
+            Term tTerm = terms[tRoot];
+
+            // if the representatives are both Skolem terms, we unify their arguments
+            if (sTerm instanceof FunctionTerm && tTerm instanceof FunctionTerm) {
+                FunctionTerm sSko = (FunctionTerm) sTerm;
+                FunctionTerm tSko = (FunctionTerm) tTerm;
+
+                if (!sSko.getFunction().equals(tSko.getFunction()) || !unify(sSko.getTerms(), tSko.getTerms()))
+                    return false;
+
+                continue;
+            }
+
+            // if none of the terms are variables, there is a clash
+            if (!sTerm.isVariable() && !tTerm.isVariable())
+                return false;
+
+            // in case, we unify a variable with a Skolem term, we check that
+            // the variable does not belong to the class of one of its variables
+            if (sTerm instanceof FunctionTerm || tTerm instanceof FunctionTerm) {
+                FunctionTerm sko = (FunctionTerm) ((sTerm instanceof FunctionTerm) ? sTerm : tTerm);
+                int variableRoot = (sTerm.isVariable()) ? sRoot : tRoot;
+                if (!checkSkolemArguments(sko.getTerms(), variableRoot))
+                    return false;
+            }
+
+            if (sTerm.isVariable())
+                setParent(sRoot, tRoot);
+            else
+                setParent(tRoot, sRoot);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns false, if a variable argument of the Skolem term belongs to the
+     * class of the variable or of a Skolem term
+     */
+    private boolean checkSkolemArguments(Term[] arguments, int variableRoot) {
+        for (Term argument : arguments) {
+            if (argument instanceof FunctionTerm) {
+                if (!checkSkolemArguments(((FunctionTerm) argument).getTerms(), variableRoot))
+                    return false;
+            } else if (argument.isVariable()) {
+                int root = find(indexOf(argument));
+                if (root == variableRoot || terms[root] instanceof FunctionTerm)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(Term term) {
+        for (int i = 0; i < size; i++)
+            if (terms[i] == term || terms[i].equals(term))
+                return i;
+
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, size * 2);
+            parents = Arrays.copyOf(parents, size * 2);
+        }
+        terms[size] = term;
+        parents[size] = size;
+        record(-1, 0);
+        return size++;
+    }
+
+    private void setParent(int index, int parent) {
+        record(index, parents[index]);
+        parents[index] = parent;
+    }
+
+    private void record(int index, int previousParent) {
+        if (trailSize == trail.length)
+            trail = Arrays.copyOf(trail, trailSize * 2);
+        trail[trailSize++] = index;
+        trail[trailSize++] = previousParent;
+    }
+
+    private int find(int index) {
+        int root = index;
+        while (parents[root] != root)
+            root = parents[root];
+
+        // path compression
+        while (parents[index] != root) {
+            int next = parents[index];
+            setParent(index, root);
+            index = next;
+        }
+
+        return root;
+    }
+
+    /**
+     * Returns the substitution of the unified atoms
+     */
+    public Map<Term, Term> getSubstitution() {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+            if (find(i) != i)
+                count++;
+
+        Term[] keys = new Term[count];
+        Term[] values = new Term[count];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            int root = find(i);
+            if (root != i) {
+                keys[position] = terms[i];
+                values[position] = terms[root];
+                position++;
+            }
+        }
+
+        return new Substitution(keys, values);
+    }
+
+    /**
+     * Immutable substitution backed by arrays, the unifiers being small, the
+     * lookups are linear.
+     */
+    private static class Substitution extends AbstractMap<Term, Term> {
+        private final Term[] keys;
+        private final Term[] values;
+
+        private Substitution(Term[] keys, Term[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Term get(Object key) {
+            for (int i = 0; i < keys.length; i++)
+                if (keys[i].equals(key))
+                    return values[i];
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<Term, Term>> entrySet() {
+            return new AbstractSet<Entry<Term, Term>>() {
+                @Override
+                public Iterator<Entry<Term, Term>> iterator() {
+                    return new Iterator<Entry<Term, Term>>() {
+                        private int position = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < keys.length;
+                        }
+
+                        @Override
+                        public Entry<Term, Term> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Entry<Term, Term> entry = new SimpleImmutableEntry<>(keys[position], values[position]);
+                            position++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
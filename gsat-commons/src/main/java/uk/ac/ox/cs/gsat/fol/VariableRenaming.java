@@ -0,0 +1,108 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.Arrays;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Injective renaming of the variables of a TGD, stored in two parallel arrays.
+ * A TGD has few variables, so a linear scan of the arrays is cheaper than a
+ * hash map, and the atoms are renamed in a single pass over their array,
+ * without the set and the type checks of {@link Logic#applySubstitution}.
+ */
+public final class VariableRenaming {
+
+    private Variable[] from = new Variable[8];
+    private Variable[] to = new Variable[8];
+    private int size = 0;
+    private boolean isIdentity = true;
+
+    /**
+     * Returns the variable renaming the variable, or null if it is not renamed
+     */
+    public Variable get(Variable variable) {
+        for (int i = 0; i < size; i++)
+            if (from[i] == variable || from[i].equals(variable))
+                return to[i];
+        return null;
+    }
+
+    /**
+     * Renames the variable, which should not already be renamed
+     */
+    public void put(Variable variable, Variable renamed) {
+        if (size == from.length) {
+            from = Arrays.copyOf(from, 2 * size);
+            to = Arrays.copyOf(to, 2 * size);
+        }
+        from[size] = variable;
+        to[size] = renamed;
+        size++;
+        if (!variable.equals(renamed))
+            isIdentity = false;
+    }
+
+    public boolean contains(Variable variable) {
+        return get(variable) != null;
+    }
+
+    /**
+     * Returns true if each variable is renamed to itself
+     */
+    public boolean isIdentity() {
+        return isIdentity;
+    }
+
+    /**
+     * Returns the renamed atoms, the atoms without renamed variables are kept
+     */
+    public Atom[] apply(Atom[] atoms) {
+        Atom[] renamed = new Atom[atoms.length];
+        for (int i = 0; i < atoms.length; i++)
+            renamed[i] = apply(atoms[i]);
+        return renamed;
+    }
+
+    /**
+     * Renames the atoms of the array in place
+     */
+    public void applyInPlace(Atom[] atoms) {
+        for (int i = 0; i < atoms.length; i++)
+            atoms[i] = apply(atoms[i]);
+    }
+
+    public Atom apply(Atom atom) {
+        Term[] terms = atom.getTerms();
+        Term[] renamed = apply(terms);
+        return (renamed == terms) ? atom : Atom.create(atom.getPredicate(), renamed);
+    }
+
+    // returns the same array if no term is renamed
+    private Term[] apply(Term[] terms) {
+        Term[] renamed = terms;
+        for (int i = 0; i < terms.length; i++) {
+            Term term = apply(terms[i]);
+            if (term != terms[i]) {
+                if (renamed == terms)
+                    renamed = terms.clone();
+                renamed[i] = term;
+            }
+        }
+        return renamed;
+    }
+
+    private Term apply(Term term) {
+        if (term.isVariable()) {
+            Variable renamed = get((Variable) term);
+            return (renamed != null) ? renamed : term;
+        } else if (term instanceof FunctionTerm) {
+            Term[] terms = ((FunctionTerm) term).getTerms();
+            Term[] renamed = apply(terms);
+            return (renamed == terms) ? term : FunctionTerm.create(((FunctionTerm) term).getFunction(), renamed);
+        }
+        return term;
+    }
+}
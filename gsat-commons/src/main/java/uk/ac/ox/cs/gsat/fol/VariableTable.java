@@ -0,0 +1,60 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Table of the variables named by a prefix followed by an index, such as the
+ * variables of the variable normal form. The variables are created once per
+ * prefix, so that the normalizations get them by index, without building and
+ * looking up their names.
+ */
+public final class VariableTable {
+
+    private static final Map<String, VariableTable> TABLES = new ConcurrentHashMap<>();
+    private static final int INITIAL_SIZE = 32;
+
+    private final String prefix;
+    // the variable of index i is at position i, the array is replaced when it grows
+    private volatile Variable[] variables = new Variable[0];
+
+    private VariableTable(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns the table of the variables named by the prefix
+     */
+    public static VariableTable of(String prefix) {
+        return TABLES.computeIfAbsent(prefix, VariableTable::new);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the variable named by the prefix followed by the index
+     */
+    public Variable get(int index) {
+        Variable[] current = variables;
+        if (index < current.length)
+            return current[index];
+        return grow(index);
+    }
+
+    private synchronized Variable grow(int index) {
+        Variable[] current = variables;
+        if (index >= current.length) {
+            Variable[] grown = new Variable[Math.max(index + 1, Math.max(INITIAL_SIZE, 2 * current.length))];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            for (int i = current.length; i < grown.length; i++)
+                grown[i] = Variable.create(prefix + i);
+            variables = grown;
+            current = grown;
+        }
+        return current[index];
+    }
+}
@@ -53,14 +53,16 @@ public class DefaultStatisticsCollector<T extends StatisticsColumn> extends Obse
 	 * @param col the column
 	 */
 	public void incr(Object row, T col) {
+        incr(row, col, 1);
+	}
+
+	@Override
+	public void incr(Object row, T col, int value) {
         String key = String.valueOf(row);
         Integer oldValue = (Integer) this.cells.get(row, col);
-        int value;
 
         if (oldValue != null) {
-            value = Integer.valueOf(oldValue) + 1;
-        } else {
-            value = 1;
+            value = Integer.valueOf(oldValue) + value;
         }
 
         this.cells.put(key, col, value);
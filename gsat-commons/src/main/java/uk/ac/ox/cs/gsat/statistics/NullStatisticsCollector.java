@@ -18,6 +18,10 @@ public class NullStatisticsCollector<Q extends StatisticsColumn> implements Stat
     public void incr(Object row, Q col) {
     }
 
+    @Override
+    public void incr(Object row, Q col, int value) {
+    }
+
     @Override
     public void report(Object row) {
     }
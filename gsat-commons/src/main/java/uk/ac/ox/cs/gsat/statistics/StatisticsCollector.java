@@ -36,6 +36,15 @@ public interface StatisticsCollector<T extends StatisticsColumn> {
 	 */
     public void incr(Object row, T col);
 
+    /**
+	 * Increment the value (assuming integer) in the given row and column by the given amount.
+	 *
+	 * @param row the row
+	 * @param col the column
+	 * @param value the amount to add
+	 */
+    public void incr(Object row, T col, int value);
+
 	/**
 	 * Notifies that the given has had from update
 	 *
@@ -0,0 +1,78 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the AtomFingerprint class
+ */
+public class AtomFingerprintTest {
+
+    private static final Predicate R = Predicate.create("R", 3);
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Variable z = Variable.create("z");
+    private static final UntypedConstant c = UntypedConstant.create("c");
+    private static final UntypedConstant d = UntypedConstant.create("d");
+    private static final Function f = new Function("f", 1);
+    private static final Function g = new Function("g", 1);
+    private static final SymbolTable symbols = new SymbolTable();
+
+    private static boolean isCompatible(Atom a, Atom b) {
+        int[] fingerprints = new int[2 * AtomFingerprint.SIZE];
+        AtomFingerprint.compute(a, fingerprints, 0, symbols);
+        AtomFingerprint.compute(b, fingerprints, AtomFingerprint.SIZE, symbols);
+        return AtomFingerprint.isCompatible(fingerprints, 0, fingerprints, AtomFingerprint.SIZE);
+    }
+
+    private static boolean isEqual(Atom a, Atom b) {
+        int[] fingerprints = new int[2 * AtomFingerprint.EXACT_SIZE];
+        AtomFingerprint.computeExact(a, fingerprints, 0, symbols);
+        AtomFingerprint.computeExact(b, fingerprints, AtomFingerprint.EXACT_SIZE, symbols);
+        return AtomFingerprint.isEqual(fingerprints, 0, fingerprints, AtomFingerprint.EXACT_SIZE);
+    }
+
+    @Test
+    public void compatibleTest() {
+        List<Term> terms = List.of(x, y, c, d, FunctionTerm.create(f, x), FunctionTerm.create(f, c),
+                FunctionTerm.create(g, y), FunctionTerm.create(f, d));
+
+        // the unifiable atoms have compatible fingerprints
+        for (Term s : terms)
+            for (Term t : terms) {
+                Atom a = Atom.create(R, s, z, c);
+                Atom b = Atom.create(R, t, x, z);
+                if (Logic.getMGU(a, b, new HashMap<>()) != null)
+                    assertTrue(isCompatible(a, b), a + " " + b);
+            }
+
+        assertFalse(isCompatible(Atom.create(R, c, x, y), Atom.create(R, d, x, y)));
+        assertFalse(isCompatible(Atom.create(R, FunctionTerm.create(f, c), x, y),
+                Atom.create(R, FunctionTerm.create(f, d), x, y)));
+        assertFalse(isCompatible(Atom.create(R, FunctionTerm.create(f, x), x, y), Atom.create(R, c, x, y)));
+    }
+
+    @Test
+    public void exactTest() {
+        Atom a = Atom.create(R, x, FunctionTerm.create(f, y), c);
+        assertTrue(isEqual(a, Atom.create(R, x, FunctionTerm.create(f, y), c)));
+        assertFalse(isEqual(a, Atom.create(R, y, FunctionTerm.create(f, y), c)));
+        assertFalse(isEqual(a, Atom.create(R, x, FunctionTerm.create(f, x), c)));
+        assertFalse(isEqual(a, Atom.create(Predicate.create("S", 3), x, FunctionTerm.create(f, y), c)));
+        assertEquals(AtomFingerprint.SIZE + 1, AtomFingerprint.EXACT_SIZE);
+    }
+}
@@ -0,0 +1,119 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the CanonicalForm class
+ */
+public class CanonicalFormTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Variable z = Variable.create("z");
+    private static final Variable w = Variable.create("w");
+    private static final Predicate A = Predicate.create("A", 1);
+    private static final Predicate R = Predicate.create("R", 2);
+    private static final Predicate H = Predicate.create("H", 1);
+    private static final Function f = new Function("f", 1);
+
+    @Test
+    public void variantTest() {
+        // R(x, y), R(y, z) -> H(z) and R(w, x), R(y, w) -> H(x) are variants
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, y), Atom.create(R, y, z)), Set.of(Atom.create(H, z)));
+        TGD variant = TGD.create(Set.of(Atom.create(R, w, x), Atom.create(R, y, w)), Set.of(Atom.create(H, x)));
+        assertEquals(CanonicalForm.of(tgd), CanonicalForm.of(variant));
+        assertEquals(CanonicalForm.of(tgd).getHash(), CanonicalForm.of(variant).getHash());
+
+        // but R(x, y), R(x, z) -> H(z) is not
+        TGD other = TGD.create(Set.of(Atom.create(R, x, y), Atom.create(R, x, z)), Set.of(Atom.create(H, z)));
+        assertNotEquals(CanonicalForm.of(tgd), CanonicalForm.of(other));
+
+        // nor R(x, y), R(y, z) -> H(x)
+        TGD reversed = TGD.create(Set.of(Atom.create(R, x, y), Atom.create(R, y, z)), Set.of(Atom.create(H, x)));
+        assertNotEquals(CanonicalForm.of(tgd), CanonicalForm.of(reversed));
+    }
+
+    @Test
+    public void symmetricTest() {
+        // the variables of R(x, y), R(y, x), A(x), A(y) -> ∃ z R(x, z) are only
+        // distinguished by the head
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, y), Atom.create(R, y, x), Atom.create(A, x), Atom.create(A, y)),
+                Set.of(Atom.create(R, x, z)));
+        TGD variant = TGD.create(
+                Set.of(Atom.create(R, x, y), Atom.create(R, y, x), Atom.create(A, x), Atom.create(A, y)),
+                Set.of(Atom.create(R, y, w)));
+        assertEquals(CanonicalForm.of(tgd), CanonicalForm.of(variant));
+
+        // an existential variable is not a universal one
+        TGD full = TGD.create(Set.of(Atom.create(R, x, y), Atom.create(R, y, x), Atom.create(A, x), Atom.create(A, y)),
+                Set.of(Atom.create(R, x, x)));
+        assertNotEquals(CanonicalForm.of(tgd), CanonicalForm.of(full));
+    }
+
+    @Test
+    public void functionTermTest() {
+        // R(x, f(y)) -> H(y) and R(z, f(x)) -> H(x) are variants, unlike R(x, f(y)) -> H(x)
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, FunctionTerm.create(f, y))), Set.of(Atom.create(H, y)));
+        TGD variant = TGD.create(Set.of(Atom.create(R, z, FunctionTerm.create(f, x))), Set.of(Atom.create(H, x)));
+        TGD other = TGD.create(Set.of(Atom.create(R, x, FunctionTerm.create(f, y))), Set.of(Atom.create(H, x)));
+        assertEquals(CanonicalForm.of(tgd), CanonicalForm.of(variant));
+        assertNotEquals(CanonicalForm.of(tgd), CanonicalForm.of(other));
+    }
+
+    @Test
+    public void randomRenamingTest() {
+        List<Variable> variables = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            variables.add(Variable.create("v" + i));
+
+        Random random = new Random(0);
+        for (int n = 0; n < 200; n++) {
+            Set<Atom> body = new HashSet<>(), head = new HashSet<>();
+            for (int k = 0; k < 5; k++)
+                body.add(Atom.create(R, variables.get(random.nextInt(4)), variables.get(random.nextInt(4))));
+            head.add(Atom.create(R, variables.get(random.nextInt(4)), variables.get(4 + random.nextInt(2))));
+            TGD tgd = TGD.create(body, head);
+
+            // renames the variables with a random permutation
+            List<Variable> permuted = new ArrayList<>(variables);
+            Collections.shuffle(permuted, random);
+            Map<Term, Term> renaming = new HashMap<>();
+            for (int i = 0; i < variables.size(); i++)
+                renaming.put(variables.get(i), permuted.get(i));
+            TGD variant = TGD.create(rename(body, renaming), rename(head, renaming));
+
+            assertEquals(CanonicalForm.of(tgd), CanonicalForm.of(variant));
+            assertEquals(CanonicalForm.of(tgd).getHash(), CanonicalForm.of(variant).getHash());
+        }
+    }
+
+    private static Set<Atom> rename(Set<Atom> atoms, Map<Term, Term> renaming) {
+        Set<Atom> renamed = new HashSet<>();
+        for (Atom atom : atoms) {
+            Term[] terms = atom.getTerms().clone();
+            for (int i = 0; i < terms.length; i++)
+                terms[i] = renaming.get(terms[i]);
+            renamed.add(Atom.create(atom.getPredicate(), terms));
+        }
+        return renamed;
+    }
+}
@@ -0,0 +1,58 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the SymbolTable class
+ */
+public class SymbolTableTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final UntypedConstant c = UntypedConstant.create("c");
+    private static final FunctionTerm fx = FunctionTerm.create(new Function("f", 1), x);
+
+    @Test
+    public void termCodeTest() {
+        SymbolTable symbols = new SymbolTable();
+
+        assertTrue(SymbolTable.isVariable(symbols.getTermCode(x)));
+        assertTrue(SymbolTable.isUntypedConstant(symbols.getTermCode(c)));
+        assertTrue(SymbolTable.isFunctionTerm(symbols.getTermCode(fx)));
+        assertFalse(SymbolTable.isVariable(symbols.getTermCode(fx)));
+        assertEquals(symbols.getTermCode(x), symbols.getTermCode(Variable.create("x")));
+        assertNotEquals(symbols.getTermCode(x), symbols.getTermCode(y));
+        assertEquals(x, symbols.getTerm(symbols.getTermCode(x)));
+
+        Predicate R = Predicate.create("R", 2);
+        assertEquals(R, symbols.getPredicate(symbols.getPredicateId(R)));
+    }
+
+    @Test
+    public void contextTest() {
+        // the ids are dense in each table
+        TGDContext context = new TGDContext();
+        SymbolTable symbols = context.getSymbolTable();
+        assertSame(symbols, context.getSymbolTable());
+        assertEquals(0, symbols.getPredicateId(Predicate.create("S", 1)));
+        assertEquals(1, symbols.getPredicateId(Predicate.create("R", 2)));
+
+        // and dropped when the context is released
+        context.release();
+        assertNotSame(symbols, context.getSymbolTable());
+        assertEquals(0, context.getSymbolTable().getPredicateId(Predicate.create("R", 2)));
+    }
+}
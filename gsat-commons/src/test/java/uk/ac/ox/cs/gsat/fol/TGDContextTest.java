@@ -0,0 +1,80 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the TGDContext class
+ */
+public class TGDContextTest {
+
+    private static final Atom R_x = Atom.create(Predicate.create("R", 1), Variable.create("x"));
+    private static final Atom P_x = Atom.create(Predicate.create("P", 1), Variable.create("x"));
+
+    @Test
+    public void internTest() {
+        TGDContext context = new TGDContext();
+        GTGD tgd = GTGD.create(context, Set.of(R_x), Set.of(P_x));
+
+        assertSame(tgd, GTGD.create(context, Set.of(R_x), Set.of(P_x)));
+        assertSame(context, tgd.getContext());
+
+        // TGDs interned in distinct contexts are distinct objects, but remain equal
+        GTGD other = GTGD.create(new TGDContext(), Set.of(R_x), Set.of(P_x));
+        assertNotSame(tgd, other);
+        assertEquals(tgd, other);
+    }
+
+    @Test
+    public void bindTest() {
+        TGDContext context = new TGDContext();
+
+        try (TGDContext.Binding binding = context.bind()) {
+            assertSame(context, TGDContext.current());
+            assertSame(context, GTGD.create(Set.of(R_x), Set.of(P_x)).getContext());
+        }
+
+        assertSame(TGDContext.getGlobal(), TGDContext.current());
+    }
+
+    @Test
+    public void releaseTest() {
+        TGDContext context = new TGDContext();
+        GTGD tgd = GTGD.create(context, Set.of(R_x), Set.of(P_x));
+        context.release();
+
+        // the TGDs interned before and after the release are equal
+        GTGD other = GTGD.create(context, Set.of(R_x), Set.of(P_x));
+        assertNotSame(tgd, other);
+        assertEquals(tgd, other);
+        assertEquals(tgd.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void lruEvictionTest() {
+        TGDContext context = new TGDContext(InternTableType.LRU, 1);
+        GTGD tgd = GTGD.create(context, Set.of(R_x), Set.of(P_x));
+        // evicts R(x) -> P(x)
+        GTGD.create(context, Set.of(P_x), Set.of(R_x));
+
+        // the evicted TGD remains equal to the new canonical one
+        GTGD other = GTGD.create(context, Set.of(R_x), Set.of(P_x));
+        assertNotSame(tgd, other);
+        assertEquals(tgd, other);
+        assertEquals(other, tgd);
+
+        assertSame(other, GTGD.create(context, Set.of(R_x), Set.of(P_x)));
+        assertEquals(1, context.getHitCount());
+        assertEquals(3, context.getMissCount());
+        assertEquals(2, context.getEvictionCount());
+    }
+}
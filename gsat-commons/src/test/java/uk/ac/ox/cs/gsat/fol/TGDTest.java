@@ -0,0 +1,112 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the TGD class
+ */
+public class TGDTest {
+
+    @Test
+    public void signatureTest() {
+        List<Atom> atoms = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            atoms.add(Atom.create(Predicate.create("A" + i, 1), Variable.create("x" + (i % 3))));
+
+        Random random = new Random(0);
+        for (int n = 0; n < 200; n++) {
+            Set<Atom> body = new HashSet<>(), head = new HashSet<>();
+            for (int k = 0; k < 6; k++)
+                body.add(atoms.get(random.nextInt(atoms.size())));
+            for (int k = 0; k < 3; k++)
+                head.add(atoms.get(random.nextInt(atoms.size())));
+            TGD tgd = TGD.create(body, head);
+
+            // the signatures of the subsets are contained in the ones of the sets
+            Set<Atom> subBody = new HashSet<>();
+            for (Atom atom : body)
+                if (random.nextBoolean())
+                    subBody.add(atom);
+            TGD other = TGD.create(subBody, Set.of(head.iterator().next()));
+            assertTrue(TGD.mayBeContained(other.getBodySignature(), tgd.getBodySignature()));
+            assertTrue(TGD.mayBeContained(other.getHeadSignature(), tgd.getHeadSignature()));
+            assertTrue(tgd.bodyContainsAll(other));
+            assertTrue(tgd.headContainsAll(other));
+
+            // the equal TGDs have the same signatures
+            TGD copy = TGD.create(new TGDContext(), body, head);
+            assertEquals(tgd.getBodySignature(), copy.getBodySignature());
+            assertEquals(tgd.getHeadSignature(), copy.getHeadSignature());
+            assertEquals(tgd, copy);
+            assertEquals(tgd.hashCode(), copy.hashCode());
+        }
+    }
+
+    @Test
+    public void atomHashesTest() {
+        Atom a = Atom.create(Predicate.create("A", 1), Variable.create("x"));
+        Atom b = Atom.create(Predicate.create("B", 1), Variable.create("x"));
+        Atom c = Atom.create(Predicate.create("C", 1), Variable.create("x"));
+
+        TGD tgd = TGD.create(Set.of(a, b), Set.of(c));
+        TGD other = TGD.create(Set.of(a), Set.of(c));
+        assertTrue(tgd.bodyContainsAll(other));
+        assertFalse(other.bodyContainsAll(tgd));
+        assertFalse(TGD.create(Set.of(c), Set.of(a)).isBodyContainingHead());
+        assertTrue(TGD.create(Set.of(a, c), Set.of(a)).isBodyContainingHead());
+
+        // the hash only depends on the atoms, and the TGDs of different contexts
+        // are compared on their atoms
+        TGD copy = TGD.create(new TGDContext(), Set.of(b, a), Set.of(c));
+        assertEquals(tgd.hashCode(), copy.hashCode());
+        assertEquals(tgd, copy);
+        assertTrue(copy.bodyContainsAll(other));
+        assertTrue(copy.headContainsAll(other));
+    }
+
+    @Test
+    public void containsAllTest() {
+        assertTrue(TGD.containsAll(new int[] { 1, 3, 5, 8 }, new int[] { 3, 8 }));
+        assertTrue(TGD.containsAll(new int[] { 1, 3 }, new int[] {}));
+        assertFalse(TGD.containsAll(new int[] { 1, 3, 5, 8 }, new int[] { 3, 4 }));
+        assertFalse(TGD.containsAll(new int[] { 1, 3 }, new int[] { 3, 9 }));
+        assertFalse(TGD.containsAll(new int[] { 3 }, new int[] { 1, 3 }));
+    }
+
+    @Test
+    public void derivedFormsTest() {
+        Variable x = Variable.create("x"), y = Variable.create("y"), z = Variable.create("z");
+        Predicate R = Predicate.create("R", 2), S = Predicate.create("S", 2);
+        // R(x, y) -> ∃ z S(x, z), R(z, x), S(y, z)
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, y)),
+                Set.of(Atom.create(S, x, z), Atom.create(R, z, x), Atom.create(S, y, z)));
+
+        assertEquals(Set.of(z), tgd.getExistentialSet());
+        int r = R.hashCode(), s = S.hashCode();
+        assertArrayEquals(new int[] { Math.min(r, s), Math.max(r, s) }, tgd.getHeadPredicateHashes());
+
+        // the renamed copy is only returned for its prefix
+        assertNull(tgd.getRenamedCopy("z"));
+        TGD copy = TGD.create(Set.of(Atom.create(R, z, y)), Set.of(Atom.create(S, z, x)));
+        tgd.setRenamedCopy("z", copy);
+        assertSame(copy, tgd.getRenamedCopy("z"));
+        assertNull(tgd.getRenamedCopy("w"));
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the Unifier class
+ */
+public class UnifierTest {
+
+    private static final Predicate R = Predicate.create("R", 3);
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Variable z = Variable.create("z");
+    private static final Variable w = Variable.create("w");
+    private static final UntypedConstant c = UntypedConstant.create("c");
+    private static final UntypedConstant d = UntypedConstant.create("d");
+    private static final Function f = new Function("f", 1);
+    private static final Function g = new Function("g", 1);
+
+    private static void checkAgainstMapBasedMGU(Atom s, Atom t) {
+        assertEquals(Logic.getMGU(s, t, new HashMap<>()), Unifier.getMGU(s, t));
+    }
+
+    @Test
+    public void variablesTest() {
+        Atom s = Atom.create(R, x, y, x);
+        Atom t = Atom.create(R, z, z, w);
+
+        Map<Term, Term> expected = new HashMap<>();
+        expected.put(x, w);
+        expected.put(y, w);
+        expected.put(z, w);
+        assertEquals(expected, Unifier.getMGU(s, t));
+        checkAgainstMapBasedMGU(s, t);
+    }
+
+    @Test
+    public void constantsTest() {
+        checkAgainstMapBasedMGU(Atom.create(R, x, c, y), Atom.create(R, c, x, d));
+        assertNull(Unifier.getMGU(Atom.create(R, x, x, y), Atom.create(R, c, d, y)));
+        assertNull(Unifier.getMGU(Atom.create(R, x, y, z), Atom.create(Predicate.create("S", 3), x, y, z)));
+    }
+
+    @Test
+    public void skolemTest() {
+        FunctionTerm fx = FunctionTerm.create(f, x);
+        FunctionTerm fy = FunctionTerm.create(f, y);
+        FunctionTerm gz = FunctionTerm.create(g, z);
+
+        checkAgainstMapBasedMGU(Atom.create(R, fx, z, x), Atom.create(R, fy, w, c));
+        checkAgainstMapBasedMGU(Atom.create(R, z, fx, w), Atom.create(R, fy, z, c));
+        // function clash
+        assertNull(Unifier.getMGU(Atom.create(R, fx, y, z), Atom.create(R, gz, y, z)));
+        // occurs check
+        assertNull(Unifier.getMGU(Atom.create(R, x, fx, z), Atom.create(R, y, y, z)));
+    }
+
+    @Test
+    public void atomListsTest() {
+        List<Atom> atoms1 = List.of(Atom.create(R, x, y, z), Atom.create(R, z, c, w));
+        List<Atom> atoms2 = List.of(Atom.create(R, y, y, y), Atom.create(R, w, x, w));
+
+        Map<Term, Term> expected = new HashMap<>();
+        expected = Logic.getMGU(atoms1.get(0), atoms2.get(0), expected);
+        expected = Logic.getMGU(atoms1.get(1), atoms2.get(1), expected);
+        assertEquals(expected, Unifier.getMGU(atoms1, atoms2));
+
+        assertNull(Unifier.getMGU(atoms1, List.of(atoms2.get(0))));
+        assertNull(Unifier.getMGU(atoms1, List.of(Atom.create(R, c, d, y), Atom.create(R, x, y, z))));
+    }
+}
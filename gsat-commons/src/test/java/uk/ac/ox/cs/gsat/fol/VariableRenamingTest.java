@@ -0,0 +1,72 @@
+package uk.ac.ox.cs.gsat.fol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the VariableTable and VariableRenaming classes
+ */
+public class VariableRenamingTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Predicate R = Predicate.create("R", 2);
+    private static final Predicate A = Predicate.create("A", 1);
+    private static final Function f = new Function("f", 1);
+
+    @Test
+    public void tableTest() {
+        VariableTable table = VariableTable.of("t_");
+        assertSame(table, VariableTable.of("t_"));
+        assertEquals(Variable.create("t_1"), table.get(1));
+        assertEquals(Variable.create("t_100"), table.get(100));
+        assertSame(table.get(100), table.get(100));
+    }
+
+    @Test
+    public void renamingTest() {
+        VariableTable table = VariableTable.of("t_");
+        VariableRenaming renaming = new VariableRenaming();
+        assertTrue(renaming.isIdentity());
+        renaming.put(x, table.get(1));
+        renaming.put(y, y);
+        assertFalse(renaming.isIdentity());
+        assertNull(renaming.get(table.get(1)));
+
+        // R(x, f(y)) and A(y) are renamed to R(t_1, f(y)), while A(y) is kept
+        Atom unchanged = Atom.create(A, y);
+        Atom[] atoms = { Atom.create(R, x, FunctionTerm.create(f, x)), unchanged };
+        Atom[] renamed = renaming.apply(atoms);
+        assertEquals(Atom.create(R, table.get(1), FunctionTerm.create(f, table.get(1))), renamed[0]);
+        assertSame(unchanged, renamed[1]);
+
+        renaming.applyInPlace(atoms);
+        assertEquals(renamed[0], atoms[0]);
+    }
+
+    @Test
+    public void vnfTest() {
+        TGDFactory<TGD> factory = TGDFactory.getTGDInstance(true);
+        // R(y, x) -> A(x) and R(x, y) -> A(y) have the same VNF
+        TGD tgd = TGD.create(Set.of(Atom.create(R, y, x)), Set.of(Atom.create(A, x)));
+        TGD variant = TGD.create(Set.of(Atom.create(R, x, y)), Set.of(Atom.create(A, y)));
+        TGD vnf = factory.computeVNF(tgd, "e_", "u_");
+        assertEquals(vnf, factory.computeVNF(variant, "e_", "u_"));
+        assertEquals(TGD.create(Set.of(Atom.create(R, Variable.create("u_2"), Variable.create("u_1"))),
+                Set.of(Atom.create(A, Variable.create("u_1")))), vnf);
+        assertSame(vnf, factory.computeVNF(vnf, "e_", "u_"));
+    }
+}
@@ -0,0 +1,165 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Implements a feature vector index, as proposed in Simple and Efficient Clause
+ * Subsumption with Feature Vector Indexing - Stephan Schulz.
+ *
+ * The features of a formula count its atoms, Skolem terms and constants, and
+ * its atoms whose predicate falls in each of some predicate buckets, both in
+ * the body and in the head. A formula a is subsumed by a formula b, only if
+ * the body of b is contained in the body of a and the head of a is contained
+ * in the head of b, so the body features of b are lower than the ones of a and
+ * the head features of b are greater than the ones of a. The feature vectors
+ * are stored in a trie, whose traversal only visits the branches satisfying
+ * these inequalities.
+ */
+public class FeatureVectorFilter<Q extends TGD> implements FormulaFilter<Q> {
+
+    // number of buckets in which the predicates are counted
+    private static final int PREDICATE_BUCKET_NB = 8;
+    // number of features of a set of atoms
+    static final int ATOMS_FEATURE_NB = 3 + PREDICATE_BUCKET_NB;
+
+    private final Node<Q> root = new Node<>();
+    private final Set<Q> all = new HashSet<>();
+
+    public Collection<Q> getAll() {
+        return all;
+    }
+
+    public void init(Collection<Q> formulas) {
+    }
+
+    public void add(Q formula) {
+        if (!all.add(formula))
+            return;
+
+        Node<Q> node = root;
+        for (int feature : computeFeatures(formula))
+            node = node.children.computeIfAbsent(feature, f -> new Node<>());
+
+        if (node.formulas == null)
+            node.formulas = new HashSet<>();
+        node.formulas.add(formula);
+    }
+
+    public void remove(Q formula) {
+        if (!all.remove(formula))
+            return;
+
+        remove(root, computeFeatures(formula), 0, formula);
+    }
+
+    // returns true if the node became empty
+    private boolean remove(Node<Q> node, int[] features, int depth, Q formula) {
+        if (depth == features.length) {
+            node.formulas.remove(formula);
+        } else {
+            Node<Q> child = node.children.get(features[depth]);
+            if (child != null && remove(child, features, depth + 1, formula))
+                node.children.remove(features[depth]);
+        }
+        return node.children.isEmpty() && (node.formulas == null || node.formulas.isEmpty());
+    }
+
+    /**
+     * Returns the formulas, whose body features are greater and head features
+     * are lower than the ones of the formula
+     */
+    public Iterable<Q> getSubsumedCandidates(Q formula) {
+        List<Q> candidates = new ArrayList<>();
+        collect(root, computeFeatures(formula), 0, true, candidates);
+        return candidates;
+    }
+
+    /**
+     * Returns the formulas, whose body features are lower and head features
+     * are greater than the ones of the formula
+     */
+    public Iterable<Q> getSubsumingCandidates(Q formula) {
+        List<Q> candidates = new ArrayList<>();
+        collect(root, computeFeatures(formula), 0, false, candidates);
+        return candidates;
+    }
+
+    // collects the formulas under the node whose body features are greater
+    // and head features lower than the query, if subsumed is true, and the
+    // converse otherwise
+    private void collect(Node<Q> node, int[] features, int depth, boolean subsumed, List<Q> candidates) {
+        if (depth == features.length) {
+            candidates.addAll(node.formulas);
+            return;
+        }
+
+        boolean greater = (depth < ATOMS_FEATURE_NB) == subsumed;
+        NavigableMap<Integer, Node<Q>> children = (greater) ? node.children.tailMap(features[depth], true)
+                : node.children.headMap(features[depth], true);
+
+        for (Map.Entry<Integer, Node<Q>> entry : children.entrySet())
+            collect(entry.getValue(), features, depth + 1, subsumed, candidates);
+    }
+
+    /**
+     * Returns the number of nodes of the trie, including the root
+     */
+    int getNodeCount() {
+        int count = 0;
+        List<Node<Q>> stack = new ArrayList<>(List.of(root));
+        while (!stack.isEmpty()) {
+            Node<Q> node = stack.remove(stack.size() - 1);
+            count++;
+            stack.addAll(node.children.values());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the features of the body followed by the ones of the head
+     */
+    static int[] computeFeatures(TGD formula) {
+        int[] features = new int[2 * ATOMS_FEATURE_NB];
+        computeFeatures(formula.getBodySet(), features, 0);
+        computeFeatures(formula.getHeadSet(), features, ATOMS_FEATURE_NB);
+        return features;
+    }
+
+    private static void computeFeatures(Set<Atom> atoms, int[] features, int offset) {
+        features[offset] = atoms.size();
+        for (Atom atom : atoms) {
+            for (Term term : atom.getTerms())
+                countTerm(term, features, offset);
+            int bucket = Math.floorMod(atom.getPredicate().hashCode(), PREDICATE_BUCKET_NB);
+            features[offset + 3 + bucket]++;
+        }
+    }
+
+    private static void countTerm(Term term, int[] features, int offset) {
+        if (term instanceof FunctionTerm) {
+            features[offset + 1]++;
+            for (Term subterm : ((FunctionTerm) term).getTerms())
+                countTerm(subterm, features, offset);
+        } else if (!term.isVariable()) {
+            features[offset + 2]++;
+        }
+    }
+
+    private static class Node<P extends TGD> {
+        private final TreeMap<Integer, Node<P>> children = new TreeMap<>();
+        // formulas whose feature vector leads to this leaf
+        private Set<P> formulas = null;
+    }
+}
@@ -0,0 +1,158 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.ox.cs.gsat.fol.AtomFingerprint;
+import uk.ac.ox.cs.gsat.fol.SymbolTable;
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+
+/**
+ * A FormulaFilter that stores the exact fingerprints of the body and head atoms
+ * of each formula in flat arrays (see {@link AtomFingerprint}). The
+ * candidates are taken from the smallest collection of formulas sharing a
+ * predicate with the query, like in MinPredicateFilter, then each of them is
+ * kept only if the fingerprints of the atoms, that it should contain, occur
+ * among its fingerprints.
+ */
+public class FingerprintFilter<Q extends TGD> implements FormulaFilter<Q> {
+
+    private final Map<Q, Entry<Q>> entries = new HashMap<>();
+    private final Map<Predicate, Set<Entry<Q>>> bodyMap = new HashMap<>(), headMap = new HashMap<>();
+    // the fingerprints are computed with the symbol table of the context of the run
+    private final SymbolTable symbols = TGDContext.current().getSymbolTable();
+
+    public Collection<Q> getAll() {
+        return entries.keySet();
+    }
+
+    public void init(Collection<Q> formulas) {
+    }
+
+    public void add(Q formula) {
+        if (entries.containsKey(formula))
+            return;
+
+        Entry<Q> entry = new Entry<>(formula, symbols);
+        entries.put(formula, entry);
+        for (Atom atom : formula.getBodySet())
+            bodyMap.computeIfAbsent(atom.getPredicate(), p -> new HashSet<>()).add(entry);
+        for (Atom atom : formula.getHeadSet())
+            headMap.computeIfAbsent(atom.getPredicate(), p -> new HashSet<>()).add(entry);
+    }
+
+    public void remove(Q formula) {
+        Entry<Q> entry = entries.remove(formula);
+        if (entry == null)
+            return;
+
+        for (Atom atom : formula.getBodySet())
+            removeFromMap(bodyMap, atom.getPredicate(), entry);
+        for (Atom atom : formula.getHeadSet())
+            removeFromMap(headMap, atom.getPredicate(), entry);
+    }
+
+    private void removeFromMap(Map<Predicate, Set<Entry<Q>>> map, Predicate predicate, Entry<Q> entry) {
+        Set<Entry<Q>> set = map.get(predicate);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty())
+                map.remove(predicate);
+        }
+    }
+
+    /**
+     * Returns the formulas whose body may contain the body of the formula and
+     * whose head may be contained in the head of the formula
+     */
+    public Iterable<Q> getSubsumedCandidates(Q formula) {
+        Entry<Q> query = new Entry<>(formula, symbols);
+        Collection<Entry<Q>> smallest = getSmallest(bodyMap, formula.getBodySet());
+
+        List<Q> candidates = new ArrayList<>();
+        for (Entry<Q> entry : smallest)
+            if (containsAll(entry.body, query.body) && containsAll(query.head, entry.head))
+                candidates.add(entry.formula);
+        return candidates;
+    }
+
+    /**
+     * Returns the formulas whose head may contain the head of the formula and
+     * whose body may be contained in the body of the formula
+     */
+    public Iterable<Q> getSubsumingCandidates(Q formula) {
+        Entry<Q> query = new Entry<>(formula, symbols);
+        Collection<Entry<Q>> smallest = getSmallest(headMap, formula.getHeadSet());
+
+        List<Q> candidates = new ArrayList<>();
+        for (Entry<Q> entry : smallest)
+            if (containsAll(entry.head, query.head) && containsAll(query.body, entry.body))
+                candidates.add(entry.formula);
+        return candidates;
+    }
+
+    // returns the smallest collection of entries indexed by a predicate of
+    // the atoms, or all the entries if there is no atom
+    private Collection<Entry<Q>> getSmallest(Map<Predicate, Set<Entry<Q>>> map, Set<Atom> atoms) {
+        if (atoms.isEmpty())
+            return entries.values();
+
+        Collection<Entry<Q>> smallest = null;
+        for (Atom atom : atoms) {
+            Set<Entry<Q>> set = map.get(atom.getPredicate());
+            if (set == null)
+                return Set.of();
+            if (smallest == null || set.size() < smallest.size())
+                smallest = set;
+        }
+        return smallest;
+    }
+
+    // returns true if each fingerprint of the subset occurs in the set
+    private static boolean containsAll(int[] set, int[] subset) {
+        if (subset.length > set.length)
+            return false;
+
+        for (int i = 0; i < subset.length; i += AtomFingerprint.EXACT_SIZE) {
+            boolean found = false;
+            for (int j = 0; j < set.length && !found; j += AtomFingerprint.EXACT_SIZE)
+                found = AtomFingerprint.isEqual(set, j, subset, i);
+            if (!found)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * A formula with the exact fingerprints of its body and head atoms
+     */
+    private static class Entry<P extends TGD> {
+        private final P formula;
+        private final int[] body;
+        private final int[] head;
+
+        Entry(P formula, SymbolTable symbols) {
+            this.formula = formula;
+            this.body = computeFingerprints(formula.getBodySet(), symbols);
+            this.head = computeFingerprints(formula.getHeadSet(), symbols);
+        }
+
+        private static int[] computeFingerprints(Set<Atom> atoms, SymbolTable symbols) {
+            int[] fingerprints = new int[atoms.size() * AtomFingerprint.EXACT_SIZE];
+            int offset = 0;
+            for (Atom atom : atoms) {
+                AtomFingerprint.computeExact(atom, fingerprints, offset, symbols);
+                offset += AtomFingerprint.EXACT_SIZE;
+            }
+            return fingerprints;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -12,14 +13,15 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.Stack;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import uk.ac.ox.cs.gsat.Log;
+import uk.ac.ox.cs.gsat.fol.SymbolTable;
 import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
 import uk.ac.ox.cs.gsat.satalg.SaturationAlgorithmConfiguration;
 import uk.ac.ox.cs.pdq.fol.Atom;
 import uk.ac.ox.cs.pdq.fol.Function;
@@ -30,6 +32,10 @@ import uk.ac.ox.cs.pdq.fol.Term;
 /**
  * Implements a tree based index that filters out subsumption candidates based
  * on sets of predicates.
+ *
+ * The transitions of the nodes are stored in sorted int arrays, looked up by
+ * binary search, and the traversals use an int stack, so that the retrieval of
+ * the candidates does not allocate per visited node.
  */
 public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
 
@@ -39,31 +45,201 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
         this.config = config;
     }
 
-    private class Node {
-        boolean isBody = true;
+    private static class Node {
+        private static final Object[] NO_FORMULAS = new Object[0];
+        // beyond this number of formulas, their positions are indexed by a map
+        private static final int FORMULAS_INLINE_MAX = 8;
+
+        final boolean isBody;
         // maps hash of next clause to the next node in the trie
-        TreeMap<Integer, Node> nextBody = new TreeMap<>();
-        TreeMap<Integer, Node> nextHead = new TreeMap<>();
+        final Transitions nextBody = new Transitions(), nextHead = new Transitions();
         // Formulas that end up at this node
-        HashSet<Q> formulas = new HashSet<>();
+        Object[] formulas = NO_FORMULAS;
+        int formulaCount = 0;
+        Map<Object, Integer> formulaPositions = null;
+
+        Node(boolean isBody) {
+            this.isBody = isBody;
+        }
+
+        boolean isEmpty() {
+            return nextBody.size == 0 && nextHead.size == 0 && formulaCount == 0;
+        }
+
+        void addFormula(Object formula) {
+            if (indexOfFormula(formula) >= 0)
+                return;
+
+            if (formulaCount == formulas.length)
+                formulas = Arrays.copyOf(formulas, Math.max(2, formulaCount * 2));
+            formulas[formulaCount] = formula;
+            if (formulaPositions != null)
+                formulaPositions.put(formula, formulaCount);
+            formulaCount++;
+
+            if (formulaPositions == null && formulaCount > FORMULAS_INLINE_MAX) {
+                formulaPositions = new HashMap<>();
+                for (int i = 0; i < formulaCount; i++)
+                    formulaPositions.put(formulas[i], i);
+            }
+        }
+
+        // removes the formula by moving the last one to its place
+        void removeFormula(Object formula) {
+            int index = indexOfFormula(formula);
+            if (index < 0)
+                return;
+
+            formulaCount--;
+            Object last = formulas[formulaCount];
+            formulas[index] = last;
+            formulas[formulaCount] = null;
+            if (formulaPositions != null) {
+                formulaPositions.remove(formula);
+                if (index < formulaCount)
+                    formulaPositions.put(last, index);
+            }
+        }
+
+        private int indexOfFormula(Object formula) {
+            if (formulaPositions != null) {
+                Integer position = formulaPositions.get(formula);
+                return (position != null) ? position : -1;
+            }
+            for (int i = 0; i < formulaCount; i++)
+                if (formulas[i].equals(formula))
+                    return i;
+            return -1;
+        }
     }
 
-    Node root = new Node();
-    
-    private class SubsumedCandidatesIterable implements Iterable<Q> {
-        private class SubsumedCandidatesIterator implements Iterator<Q> {
-            private class IntNodePair {
-                int index;
-                Node node;
-
-                IntNodePair(int index, Node node) {
-                    this.index = index;
-                    this.node = node;
+    /**
+     * Transitions of a node, whose keys are sorted increasingly
+     */
+    private static class Transitions {
+        private static final int[] NO_KEYS = new int[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        int[] keys = NO_KEYS;
+        Node[] nodes = NO_NODES;
+        int size = 0;
+
+        Node get(int key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return (index >= 0) ? nodes[index] : null;
+        }
+
+        Node getOrCreate(int key, boolean isBody) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0)
+                return nodes[index];
+
+            index = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                nodes = Arrays.copyOf(nodes, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(nodes, index, nodes, index + 1, size - index);
+            Node node = new Node(isBody);
+            keys[index] = key;
+            nodes[index] = node;
+            size++;
+            return node;
+        }
+
+        void remove(int key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0)
+                return;
+
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(nodes, index + 1, nodes, index, size - index - 1);
+            size--;
+            nodes[size] = null;
+        }
+    }
+
+    /**
+     * Stack of pairs made of an index and a node, stored in parallel arrays
+     */
+    private static class TraversalStack {
+        private int[] indexes = new int[16];
+        private Node[] nodes = new Node[16];
+        private int size = 0;
+
+        // index and node of the last popped pair
+        int index;
+        Node node;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int index, Node node) {
+            if (size == nodes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            indexes[size] = index;
+            nodes[size] = node;
+            size++;
+        }
+
+        void pop() {
+            size--;
+            index = indexes[size];
+            node = nodes[size];
+            nodes[size] = null;
+        }
+    }
+
+    Node root = new Node(true);
+
+    /**
+     * Iterator over the formulas of the nodes reached by a traversal of the
+     * trie, which expands the popped nodes until one of them has formulas to
+     * return
+     */
+    private abstract class TraversalIterator implements Iterator<Q> {
+        protected final TraversalStack traversing = new TraversalStack();
+        // node whose formulas are being returned
+        private Node current = null;
+        private int position = 0;
+
+        /**
+         * Pushes the successors of the node reached at the index, and returns
+         * true if the formulas of the node should be returned
+         */
+        protected abstract boolean expand(int index, Node node);
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || position == current.formulaCount) {
+                if (traversing.isEmpty())
+                    return false;
+                traversing.pop();
+                Node node = traversing.node;
+                if (expand(traversing.index, node)) {
+                    current = node;
+                    position = 0;
                 }
             }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Q next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (Q) current.formulas[position++];
+        }
+    }
 
-            private Stack<IntNodePair> traversing = new Stack<>();
-            private Iterator<Q> next = null;
+    private class SubsumedCandidatesIterable implements Iterable<Q> {
+        private class SubsumedCandidatesIterator extends TraversalIterator {
 
             private int[] bodyHashes, headHashes;
 
@@ -71,59 +247,46 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
                 this.bodyHashes = bodyHashes;
                 this.headHashes = headHashes;
                 if (bodyHashes.length != 0)
-                    traversing.push(new IntNodePair(0, root));
+                    traversing.push(0, root);
             }
 
             @Override
-            public boolean hasNext() {
-                if (next != null && next.hasNext())
-                    return true;
-                while (!traversing.empty() && (next == null || !next.hasNext())) {
-                    // [1, 2], [3] -> [1], [3, 4]
-                    IntNodePair top = traversing.pop();
-                    Node topNode = top.node;
-                    int topIndex = top.index;
-                    if (topNode.isBody) {
-                        // if element appears in bodyHashes, it should appear in nextBody and nextHead
-                        if (topIndex == bodyHashes.length) {
-                            // all elements still in the body should be pushed
-                            for (Map.Entry<Integer, Node> nodeInt : topNode.nextBody.entrySet()) {
-                                traversing.push(new IntNodePair(topIndex, nodeInt.getValue()));
-                            }
-                            // all elements in the nextHead that are in hashes should be pushed
-                            for (int i = 0; i < headHashes.length; i++) {
-                                if (topNode.nextHead.containsKey(headHashes[i])) {
-                                    traversing.push(new IntNodePair(i + 1, topNode.nextHead.get(headHashes[i])));
-                                }
-                            }
-                        } else {
-                            for (Map.Entry<Integer, Node> nodeInt : topNode.nextBody.entrySet()) {
-                                if (nodeInt.getKey() > bodyHashes[topIndex])
-                                    break;
-                                if (nodeInt.getKey() == bodyHashes[topIndex])
-                                    traversing.push(new IntNodePair(topIndex + 1, nodeInt.getValue()));
-                                else
-                                    traversing.push(new IntNodePair(topIndex, nodeInt.getValue()));
-                            }
-                        }
-                    }
-
-                    else {
-                        // if element appears in nextBody, it should also appear in hashes
-                        next = topNode.formulas.iterator();
-                        for (int i = topIndex; i < headHashes.length; i++) {
-                            if (topNode.nextHead.containsKey(headHashes[i]))
-                                traversing.push(new IntNodePair(i + 1, topNode.nextHead.get(headHashes[i])));
+            protected boolean expand(int topIndex, Node topNode) {
+                if (topNode.isBody) {
+                    // if element appears in bodyHashes, it should appear in nextBody and nextHead
+                    Transitions nextBody = topNode.nextBody;
+                    if (topIndex == bodyHashes.length) {
+                        // all elements still in the body should be pushed
+                        for (int i = 0; i < nextBody.size; i++)
+                            traversing.push(topIndex, nextBody.nodes[i]);
+                        // all elements in the nextHead that are in hashes should be pushed
+                        pushHeadTransitions(topNode, 0);
+                    } else {
+                        for (int i = 0; i < nextBody.size; i++) {
+                            int key = nextBody.keys[i];
+                            if (key > bodyHashes[topIndex])
+                                break;
+                            if (key == bodyHashes[topIndex])
+                                traversing.push(topIndex + 1, nextBody.nodes[i]);
+                            else
+                                traversing.push(topIndex, nextBody.nodes[i]);
                         }
                     }
+                    return false;
                 }
-                return next != null && next.hasNext();
+
+                // if element appears in nextBody, it should also appear in hashes
+                pushHeadTransitions(topNode, topIndex);
+                return true;
             }
 
-            @Override
-            public Q next() {
-                Q answer = next.next();
-                return answer;
+            // pushes the transitions to nextHead labelled by the hashes from the index
+            private void pushHeadTransitions(Node node, int from) {
+                for (int i = from; i < headHashes.length; i++) {
+                    Node child = node.nextHead.get(headHashes[i]);
+                    if (child != null)
+                        traversing.push(i + 1, child);
+                }
             }
         }
 
@@ -141,84 +304,55 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
     }
 
     private class SubsumingCandidatesIterable implements Iterable<Q> {
-        private class SubsumingCandidatesIterator implements Iterator<Q> {
-            private class IntNodePair {
-                int index;
-                Node node;
-
-                IntNodePair(int index, Node node) {
-                    this.index = index;
-                    this.node = node;
-                }
-            }
-
-            private Stack<IntNodePair> traversing = new Stack<>();
-            private Iterator<Q> next = null;
+        private class SubsumingCandidatesIterator extends TraversalIterator {
 
             private int[] bodyHashes, headHashes;
 
             public SubsumingCandidatesIterator(int[] bodyHashes, int[] headHashes) {
                 this.bodyHashes = bodyHashes;
                 this.headHashes = headHashes;
-                traversing.push(new IntNodePair(0, root));
+                traversing.push(0, root);
             }
 
             @Override
-            public boolean hasNext() {
-                if (next != null && next.hasNext())
-                    return true;
-                while (!traversing.empty() && (next == null || !next.hasNext())) {
-                    IntNodePair top = traversing.pop();
-                    Node topNode = top.node;
-                    int topIndex = top.index;
-                    if (topNode.isBody) {
-                        // [1], [2]
-                        // [1, 2], [3] -> [1], [3, 4]
-                        // if element appears in nextBody, it should appear in bodyHashes
-                        for (int i = topIndex; i < bodyHashes.length; i++) {
-                            if (topNode.nextBody.containsKey(bodyHashes[i]))
-                                traversing.push(new IntNodePair(i + 1, topNode.nextBody.get(bodyHashes[i])));
-                        }
-                        // push all the transitions to nextHead
-                        for (Map.Entry<Integer, Node> nodeInt : topNode.nextHead.entrySet()) {
-                            traversing.push(new IntNodePair(0, nodeInt.getValue()));
-                            if (nodeInt.getKey() > headHashes[0])
-                                break;
-                            if (nodeInt.getKey() == headHashes[0])
-                                traversing.push(new IntNodePair(1, nodeInt.getValue()));
-                            else
-                                traversing.push(new IntNodePair(0, nodeInt.getValue()));
-                        }
-                    }
-                    // if element appears in hashes, it should appear in nextHead
-                    else {
-                        if (topIndex == headHashes.length) {
-                            next = topNode.formulas.iterator();
-                            // add all elements in this subtree
-                            for (Map.Entry<Integer, Node> nodeInt : topNode.nextHead.entrySet()) {
-                                traversing.push(new IntNodePair(topIndex, nodeInt.getValue()));
-                            }
-                        } else {
-                            // add elements that are <= topIndex
-                            for (Map.Entry<Integer, Node> nodeInt : topNode.nextHead.entrySet()) {
-                                if (nodeInt.getKey() > headHashes[topIndex])
-                                    break;
-                                if (nodeInt.getKey() == headHashes[topIndex])
-                                    traversing.push(new IntNodePair(topIndex + 1, nodeInt.getValue()));
-                                else
-                                    traversing.push(new IntNodePair(topIndex, nodeInt.getValue()));
-
-                            }
-                        }
+            protected boolean expand(int topIndex, Node topNode) {
+                if (topNode.isBody) {
+                    // if element appears in nextBody, it should appear in bodyHashes
+                    for (int i = topIndex; i < bodyHashes.length; i++) {
+                        Node child = topNode.nextBody.get(bodyHashes[i]);
+                        if (child != null)
+                            traversing.push(i + 1, child);
                     }
+                    // push the transitions to nextHead that are <= the first hash
+                    pushHeadTransitions(topNode, 0);
+                    return false;
+                }
+
+                // if element appears in hashes, it should appear in nextHead
+                if (topIndex == headHashes.length) {
+                    // add all elements in this subtree
+                    Transitions nextHead = topNode.nextHead;
+                    for (int i = 0; i < nextHead.size; i++)
+                        traversing.push(topIndex, nextHead.nodes[i]);
+                    return true;
                 }
-                return next != null && next.hasNext();
+
+                // add elements that are <= topIndex
+                pushHeadTransitions(topNode, topIndex);
+                return false;
             }
 
-            @Override
-            public Q next() {
-                Q answer = next.next();
-                return answer;
+            private void pushHeadTransitions(Node node, int topIndex) {
+                Transitions nextHead = node.nextHead;
+                for (int i = 0; i < nextHead.size; i++) {
+                    int key = nextHead.keys[i];
+                    if (key > headHashes[topIndex])
+                        break;
+                    if (key == headHashes[topIndex])
+                        traversing.push(topIndex + 1, nextHead.nodes[i]);
+                    else
+                        traversing.push(topIndex, nextHead.nodes[i]);
+                }
             }
         }
 
@@ -236,36 +370,19 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
     }
 
     private class AllIterable implements Iterable<Q> {
-        private class AllIterator implements Iterator<Q> {
-            private Stack<Node> traversing = new Stack<>();
-            private Iterator<Q> next = null;
+        private class AllIterator extends TraversalIterator {
 
             public AllIterator() {
-                traversing.push(root);
+                traversing.push(0, root);
             }
 
             @Override
-            public boolean hasNext() {
-                if (next != null && next.hasNext())
-                    return true;
-                while (!traversing.empty() && (next == null || !next.hasNext())) {
-                    Node top = traversing.pop();
-                    next = top.formulas.iterator();
-                    for (Node node : top.nextBody.values()) {
-                        traversing.push(node);
-                    }
-                    for (Node node : top.nextHead.values()) {
-                        traversing.push(node);
-                    }
-                }
-                return next != null && next.hasNext();
-            }
-
-            @Override
-            public Q next() {
-                hasNext();
-                Q answer = next.next();
-                return answer;
+            protected boolean expand(int index, Node top) {
+                for (int i = 0; i < top.nextBody.size; i++)
+                    traversing.push(0, top.nextBody.nodes[i]);
+                for (int i = 0; i < top.nextHead.size; i++)
+                    traversing.push(0, top.nextHead.nodes[i]);
+                return true;
             }
         }
 
@@ -359,9 +476,9 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
         for (List<Predicate> bag : predicatesBags) {
             for (Predicate predicate : bag) {
                 if (isBody)
-                    bodyAtomIndeces.put(predicate, atomCounter);
+                    bodyAtomIndeces.put(symbols.getPredicateId(predicate), atomCounter);
                 else {
-                    headAtomIndeces.put(predicate, atomCounter);
+                    headAtomIndeces.put(symbols.getPredicateId(predicate), atomCounter);
                 }
             }
             atomCounter++;
@@ -373,7 +490,7 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
             for (List<Function> bag : functionsBags) {
                 // System.out.println(bag);
                 for (Function f : bag) 
-                    functionIndeces.put(f, atomCounter);
+                    functionIndeces.put(symbols.getFunctionId(f), atomCounter);
                 atomCounter++;
             }
         }
@@ -509,24 +626,22 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
     private void printIndexRec(FileWriter writer, Node current) throws IOException {
         String formulasString = "";
 
-        for (Q tgd : current.formulas) {
-            formulasString += tgd.toString().replaceAll("(^|\\s)([^\\s])+[#/-]", "").replace("&", ",") + "\n";
+        for (int i = 0; i < current.formulaCount; i++) {
+            formulasString += current.formulas[i].toString().replaceAll("(^|\\s)([^\\s])+[#/-]", "").replace("&", ",") + "\n";
         }
         //        formulasString = ""+current.formulas.size();
         writer.append(
                       String.format("%s [label=\"%s\", %s color=\"%s\"];\n", current.hashCode(), formulasString , current.isBody ? "" : "shape=box,", current.isBody ? "blue" : "red"));
-        for (Integer hash : current.nextBody.keySet()) {
-            Node child = current.nextBody.get(hash);
-            writer.append(String.format("%s -> %s[label=\"%s\"];\n", current.hashCode(), child.hashCode(), hash));
-            printIndexRec(writer, child);
-        }
+        printTransitionsRec(writer, current, current.nextBody);
+        printTransitionsRec(writer, current, current.nextHead);
+    }
 
-        for (Integer hash : current.nextHead.keySet()) {
-            Node child = current.nextHead.get(hash);
-            writer.append(String.format("%s -> %s[label=\"%s\"];\n", current.hashCode(), child.hashCode(), hash));
+    private void printTransitionsRec(FileWriter writer, Node current, Transitions transitions) throws IOException {
+        for (int i = 0; i < transitions.size; i++) {
+            Node child = transitions.nodes[i];
+            writer.append(String.format("%s -> %s[label=\"%s\"];\n", current.hashCode(), child.hashCode(), transitions.keys[i]));
             printIndexRec(writer, child);
         }
-
     }
     
     public void add(Q formula) {
@@ -534,101 +649,142 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
 
         if (formula.getHeadAtoms().length == 0)
             return;
-        // System.out.println(formula);
-        // System.out.println(Arrays.toString(formula.getBodyHashes()));
-        // System.out.println(Arrays.toString(formula.getHeadHashes()));
 
         Node current = root;
-        for (int hash : formula.getBodyHashes()) {
-            if (!current.nextBody.containsKey(hash)) {
-                current.nextBody.put(hash, new Node());
-            }
-            current = current.nextBody.get(hash);
-            // System.out.println("size " + current.formulas.size());
-            // System.out.println("isbody " + current.isBody);
-        }
-        for (int hash : formula.getHeadHashes()) {
-            if (!current.nextHead.containsKey(hash)) {
-                Node newNode = new Node();
-                newNode.isBody = false;
-                current.nextHead.put(hash, newNode);
-            }
-            current = current.nextHead.get(hash);
-            // System.out.println("size " + current.formulas.size());
-            // System.out.println("isbody " + current.isBody);
-        }
-        current.formulas.add(formula);
+        for (int hash : formula.getBodyHashes())
+            current = current.nextBody.getOrCreate(hash, true);
+        for (int hash : formula.getHeadHashes())
+            current = current.nextHead.getOrCreate(hash, false);
+        current.addFormula(formula);
     }
 
-    private class IntNodePair {
-        int index;
-        Node node;
+    /**
+     * Adds the formulas sorted by their paths in the trie, so that each formula
+     * only walks down from the node its path shares with the previous one,
+     * instead of from the root
+     */
+    @Override
+    public void addAll(Collection<Q> formulas) {
+        List<Q> sorted = new ArrayList<>(formulas.size());
+        for (Q formula : formulas) {
+            checkHashes(formula);
+            if (formula.getHeadAtoms().length != 0)
+                sorted.add(formula);
+        }
+        sorted.sort(PATH_COMPARATOR);
+
+        // path[i] is the node reached after the i first transitions of the previous formula
+        Node[] path = new Node[16];
+        path[0] = root;
+        int[] previousBody = null, previousHead = null;
+        for (Q formula : sorted) {
+            int[] bodyHashes = formula.getBodyHashes();
+            int[] headHashes = formula.getHeadHashes();
+            int length = bodyHashes.length + headHashes.length;
+            if (length >= path.length)
+                path = Arrays.copyOf(path, Math.max(length + 1, path.length * 2));
+
+            // the shared prefix of the paths, the head transitions are shared
+            // only if the bodies are equal
+            int depth = 0;
+            if (previousBody != null) {
+                depth = commonPrefix(previousBody, bodyHashes);
+                if (depth == previousBody.length && depth == bodyHashes.length)
+                    depth += commonPrefix(previousHead, headHashes);
+            }
+
+            for (; depth < bodyHashes.length; depth++)
+                path[depth + 1] = path[depth].nextBody.getOrCreate(bodyHashes[depth], true);
+            for (; depth < length; depth++)
+                path[depth + 1] = path[depth].nextHead.getOrCreate(headHashes[depth - bodyHashes.length], false);
+            path[length].addFormula(formula);
 
-        IntNodePair(int index, Node node) {
-            this.index = index;
-            this.node = node;
+            previousBody = bodyHashes;
+            previousHead = headHashes;
         }
     }
 
+    private static final Comparator<TGD> PATH_COMPARATOR = (a, b) -> {
+        int compare = Arrays.compare(a.getBodyHashes(), b.getBodyHashes());
+        return (compare != 0) ? compare : Arrays.compare(a.getHeadHashes(), b.getHeadHashes());
+    };
+
+    private static int commonPrefix(int[] a, int[] b) {
+        int length = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < length && a[i] == b[i])
+            i++;
+        return i;
+    }
+
     public void remove(Q formula) {
         checkHashes(formula);
-        Stack<IntNodePair> reversedTraversal = new Stack<>();
-        Node current = root;
-        for (int hash : formula.getBodyHashes()) {
-            reversedTraversal.add(new IntNodePair(hash * 2, current));
-            if (!current.nextBody.containsKey(hash)) {
+        int[] bodyHashes = formula.getBodyHashes();
+        int[] headHashes = formula.getHeadHashes();
+
+        // path[i] is the node reached after the i first transitions
+        Node[] path = new Node[bodyHashes.length + headHashes.length + 1];
+        path[0] = root;
+        for (int i = 0; i < bodyHashes.length; i++) {
+            path[i + 1] = path[i].nextBody.get(bodyHashes[i]);
+            if (path[i + 1] == null)
                 return;
-            }
-            current = current.nextBody.get(hash);
         }
-        for (int hash : formula.getHeadHashes()) {
-            reversedTraversal.add(new IntNodePair(hash * 2 + 1, current));
-            if (!current.nextHead.containsKey(hash)) {
+        for (int i = 0; i < headHashes.length; i++) {
+            int depth = bodyHashes.length + i;
+            path[depth + 1] = path[depth].nextHead.get(headHashes[i]);
+            if (path[depth + 1] == null)
                 return;
-            }
-            current = current.nextHead.get(hash);
-        }
-        current.formulas.remove(formula);
-        while (!reversedTraversal.empty()) {
-            IntNodePair top = reversedTraversal.pop();
-            Node topNode = top.node;
-            int index = top.index / 2;
-            if (top.index % 2 == 0) {
-                Node node = topNode.nextBody.get(index);
-                if (node.nextBody.isEmpty() && node.nextHead.isEmpty() && node.formulas.isEmpty()) {
-                    topNode.nextBody.remove(index);
-                } else
-                    return;
-            } else {
-                Node node = topNode.nextHead.get(index);
-                if (node.nextBody.isEmpty() && node.nextHead.isEmpty() && node.formulas.isEmpty()) {
-                    topNode.nextHead.remove(index);
-                } else
-                    return;
-            }
+        }
+
+        int depth = path.length - 1;
+        path[depth].removeFormula(formula);
+        // remove the nodes that became empty
+        for (; depth > 0 && path[depth].isEmpty(); depth--) {
+            if (depth <= bodyHashes.length)
+                path[depth - 1].nextBody.remove(bodyHashes[depth - 1]);
+            else
+                path[depth - 1].nextHead.remove(headHashes[depth - 1 - bodyHashes.length]);
         }
     }
 
+    /**
+     * Returns the number of nodes of the trie, including the root
+     */
+    int getNodeCount() {
+        int count = 0;
+        List<Node> stack = new ArrayList<>(List.of(root));
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            count++;
+            for (int i = 0; i < node.nextBody.size; i++)
+                stack.add(node.nextBody.nodes[i]);
+            for (int i = 0; i < node.nextHead.size; i++)
+                stack.add(node.nextHead.nodes[i]);
+        }
+        return count;
+    }
+
     private int atomCounter = 1;
-    private HashMap<Predicate, Integer> bodyAtomIndeces = new HashMap<>(), headAtomIndeces = new HashMap<>();
-    private HashMap<Function, Integer> functionIndeces = new HashMap<>();
+    // the indexes of the predicates and functions are stored by their ids in the symbol
+    // table of the context of the run
+    private final SymbolTable symbols = TGDContext.current().getSymbolTable();
+    private SymbolIndex bodyAtomIndeces = new SymbolIndex(), headAtomIndeces = new SymbolIndex();
+    private SymbolIndex functionIndeces = new SymbolIndex();
 
-    private int[] computeHashes(Atom[] atoms, HashMap<Predicate, Integer> atomIndeces, boolean isBody) {
+    private int[] computeHashes(Atom[] atoms, SymbolIndex atomIndeces, boolean isBody) {
         TreeSet<Integer> hashes = new TreeSet<Integer>();
         for (Atom atom : atoms) {
-            // if (!isBody && !atomIndeces.containsKey(atom.getPredicate())) {
-            //     atomIndeces.put(atom.getPredicate(), atomCounter);
-            //     atomCounter++;
-            // }
-
-            if (atomIndeces.containsKey(atom.getPredicate()))
-                hashes.add(atomIndeces.get(atom.getPredicate()));
+            int predicateIndex = atomIndeces.get(symbols.getPredicateId(atom.getPredicate()));
+            if (predicateIndex != SymbolIndex.ABSENT)
+                hashes.add(predicateIndex);
 
             if (!isBody) {
                 for (Term t : atom.getTerms()) {
                     if (t instanceof FunctionTerm) {
-                        if (functionIndeces.containsKey(((FunctionTerm) t).getFunction()))
-                            hashes.add(functionIndeces.get(((FunctionTerm) t).getFunction()));
+                        int functionIndex = functionIndeces.get(symbols.getFunctionId(((FunctionTerm) t).getFunction()));
+                        if (functionIndex != SymbolIndex.ABSENT)
+                            hashes.add(functionIndex);
                     }
                 }
             }
@@ -640,6 +796,27 @@ public class TreePredicateFilter<Q extends TGD> implements FormulaFilter<Q> {
         return hashes.stream().mapToInt(Integer::intValue).toArray();
     }
 
+    /**
+     * Map from the symbol ids to the indexes, stored in an array since the ids
+     * are dense
+     */
+    private static class SymbolIndex {
+        // the indexes start from 1
+        static final int ABSENT = 0;
+
+        private int[] indexes = new int[16];
+
+        void put(int id, int index) {
+            if (id >= indexes.length)
+                indexes = Arrays.copyOf(indexes, Math.max(id + 1, indexes.length * 2));
+            indexes[id] = index;
+        }
+
+        int get(int id) {
+            return (id < indexes.length) ? indexes[id] : ABSENT;
+        }
+    }
+
     private void checkHashes(Q formula) {
         if (formula.getBodyHashes() == null)
             formula.setBodyHashes(computeHashes(formula.getBodyAtoms(), bodyAtomIndeces, true));
@@ -2,21 +2,32 @@ package uk.ac.ox.cs.gsat.satalg;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeoutException;
 
 import uk.ac.ox.cs.gsat.Log;
 import uk.ac.ox.cs.gsat.api.SaturationAlgorithm;
 import uk.ac.ox.cs.gsat.api.SaturationStatColumns;
+import uk.ac.ox.cs.gsat.fol.CanonicalForm;
 import uk.ac.ox.cs.gsat.fol.GTGD;
-import uk.ac.ox.cs.gsat.fol.Logic;
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
 import uk.ac.ox.cs.gsat.fol.TGDFactory;
+import uk.ac.ox.cs.gsat.fol.VariableRenaming;
+import uk.ac.ox.cs.gsat.fol.VariableTable;
 import uk.ac.ox.cs.gsat.statistics.NullStatisticsCollector;
 import uk.ac.ox.cs.gsat.statistics.StatisticsCollector;
 import uk.ac.ox.cs.gsat.subsumers.SimpleSubsumer;
@@ -52,6 +63,12 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
     protected final UnificationIndexType rightIndexType;
     protected final SaturationAlgorithmConfiguration config;
     protected StatisticsCollector<SaturationStatColumns> statsCollector = new NullStatisticsCollector<>();
+    // number of input TGDs below which they are transformed by a single task
+    private static final int TRANSFORMATION_THRESHOLD = 256;
+    // batches of the new TGDs whose backward subsumption is deferred, by subsumer
+    private final Map<Subsumer<Q>, BackwardSubsumptionBatch> backwardSubsumptionBatches = new IdentityHashMap<>();
+    // canonical forms of the TGDs kept in each subsumer, to discard their variants
+    private final Map<Subsumer<Q>, Set<CanonicalForm>> addedForms = new IdentityHashMap<>();
 
     protected AbstractSaturation(String saturationName, TGDFactory<Q> factory, SaturationAlgorithmConfiguration config) {
 
@@ -86,10 +103,28 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
      * Main method to run the saturation algorithm
      */
     public Collection<Q> run(String processName, Collection<? extends Dependency> allDependencies) {
+        // the TGDs created during the run are interned in their own context,
+        // whose tables are released at the end of the run
+        TGDContext context = new TGDContext(config.getInternTableType(), config.getInternTableSize());
+        factory.setContext(context);
+        try (TGDContext.Binding binding = context.bind()) {
+            return runInContext(processName, allDependencies);
+        } finally {
+            statsCollector.put(processName, SaturationStatColumns.INTERN_HIT, context.getHitCount());
+            statsCollector.put(processName, SaturationStatColumns.INTERN_MISS, context.getMissCount());
+            statsCollector.put(processName, SaturationStatColumns.INTERN_EVICTION, context.getEvictionCount());
+            factory.setContext(null);
+            context.release();
+        }
+    }
+
+    private Collection<Q> runInContext(String processName, Collection<? extends Dependency> allDependencies) {
 
         Log.GLOBAL.info(String.format("Running %s...", this.saturationName));
 
         int discarded = 0;
+        backwardSubsumptionBatches.clear();
+        addedForms.clear();
 
         Collection<Q> selectedTGDs = new HashSet<>();
         for (Dependency d : allDependencies) {
@@ -137,6 +172,10 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
             newRightTGDs = new Stack<>();
             newLeftTGDs = new Stack<>();
             break;
+        case GENERATION:
+            newRightTGDs = new LinkedHashSet<>();
+            newLeftTGDs = new LinkedHashSet<>();
+            break;
         default:
             throw new IllegalStateException();
         }
@@ -178,8 +217,10 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
             // running the saturation process using the structures
             process(leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex, rightIndex, leftTGDsSubsumer,
                     rightTGDsSubsumer, bodyPredicates, processName);
+            flushBackwardSubsumption(processName);
             statsCollector.stop(processName, SaturationStatColumns.TIME);
         } catch (TimeoutException e) {
+            flushBackwardSubsumption(processName);
             statsCollector.put(processName, SaturationStatColumns.TIME, "TIMEOUT");
         }
 
@@ -234,25 +275,109 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
                                   Collection<Q> newLeftTGDs, UnificationIndex<Q> rightIndex, UnificationIndex<Q> leftIndex, Subsumer<Q> rightTGDsSubsumer, Subsumer<Q> leftTGDsSubsumer, String processName) {
         // we store the inserted right TGDs without redundancy.
         Set<Q> insertedRightTGDs = new HashSet<>();
-        for (Q transformedTGD : initialTGDs) {
-            if (isRightTGD(transformedTGD)) {
-                addNewTGD(transformedTGD, true, insertedRightTGDs, rightTGDsSubsumer, rightIndex, rightTGDsSet, processName);
+        if (config.isBulkInitializationEnabled()) {
+            List<Q> rightTGDs = new ArrayList<>(), leftTGDs = new ArrayList<>();
+            for (Q transformedTGD : initialTGDs) {
+                if (isRightTGD(transformedTGD))
+                    rightTGDs.add(transformedTGD);
+                if (isLeftTGD(transformedTGD))
+                    leftTGDs.add(transformedTGD);
             }
-            if (isLeftTGD(transformedTGD)) {
-                addNewTGD(transformedTGD, false, newLeftTGDs, leftTGDsSubsumer, leftIndex, leftTGDsSet, processName);
+            addNewTGDs(rightTGDs, insertedRightTGDs, rightTGDsSubsumer, processName);
+            addNewTGDs(leftTGDs, newLeftTGDs, leftTGDsSubsumer, processName);
+        } else {
+            for (Q transformedTGD : initialTGDs) {
+                if (isRightTGD(transformedTGD)) {
+                    addNewTGD(transformedTGD, true, insertedRightTGDs, rightTGDsSubsumer, rightIndex, rightTGDsSet, processName);
+                }
+                if (isLeftTGD(transformedTGD)) {
+                    addNewTGD(transformedTGD, false, newLeftTGDs, leftTGDsSubsumer, leftIndex, leftTGDsSet, processName);
+                }
             }
+            // the deferred backward subsumption is applied before the right TGDs are checked
+            flushBackwardSubsumption(processName);
         }
         // we add every right tgd as checked
-        for (Q insertedRightTGD : insertedRightTGDs) {
-            addRightTGD(insertedRightTGD, rightIndex, rightTGDsSet);
+        rightIndex.putAll(insertedRightTGDs, this::getUnifiableBodyAtoms);
+        rightTGDsSet.addAll(insertedRightTGDs);
+    }
+
+    /**
+     * Adds the initial TGDs to the subsumer at once, then removes the ones
+     * subsumed by the others. This is equivalent to adding them one by one,
+     * except that it may keep another TGD among the equivalent ones.
+     */
+    private void addNewTGDs(Collection<Q> initialTGDs, Collection<Q> newTGDs, Subsumer<Q> TGDsSubsumer,
+                            String processName) {
+        Map<Q, CanonicalForm> keptTGDs = new LinkedHashMap<>();
+        Set<CanonicalForm> keptForms = new HashSet<>();
+        for (Q initialTGD : initialTGDs) {
+            CanonicalForm form = getCanonicalForm(initialTGD);
+            if (isDiscarded(initialTGD, form, TGDsSubsumer, processName))
+                continue;
+            if (form != null && !keptForms.add(form)) {
+                statsCollector.incr(processName, SaturationStatColumns.DISCARDED_VARIANT);
+                continue;
+            }
+            keptTGDs.put(initialTGD, form);
         }
+
+        statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
+        TGDsSubsumer.addAll(keptTGDs.keySet());
+        Set<Q> subsumed = new HashSet<>();
+        for (Q keptTGD : keptTGDs.keySet())
+            if (!subsumed.contains(keptTGD))
+                subsumed.addAll(TGDsSubsumer.subsumesAny(keptTGD));
+        statsCollector.tick(processName, SaturationStatColumns.BACKWARD_SUB_TIME);
+
+        for (Map.Entry<Q, CanonicalForm> entry : keptTGDs.entrySet())
+            if (!subsumed.contains(entry.getKey())) {
+                newTGDs.add(entry.getKey());
+                recordCanonicalForm(entry.getValue(), TGDsSubsumer);
+            }
     }
 
     /**
      * Returns the inputted TGDs transformed into TGDs on which the saturation
-     * process should be applied
+     * process should be applied. The TGDs are transformed in parallel if it is
+     * enabled, and the transformed TGDs are returned in the order of the
+     * inputted ones.
      */
-    protected abstract Collection<Q> transformInputTGDs(Collection<Q> inputTGDs);
+    protected Collection<Q> transformInputTGDs(Collection<Q> inputTGDs) {
+        List<Q> inputs = new ArrayList<>(inputTGDs);
+        List<Collection<Q>> transformed = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+
+        if (config.isParallelTransformationEnabled() && inputs.size() > TRANSFORMATION_THRESHOLD) {
+            ForkJoinPool pool = new ForkJoinPool(config.getParallelism());
+            try {
+                pool.invoke(new TransformationTask(inputs, transformed, 0, inputs.size()));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int position = 0; position < inputs.size(); position++)
+                transformed.set(position, transformInputTGD(inputs, position));
+        }
+
+        Collection<Q> result = new ArrayList<>();
+        for (Collection<Q> tgds : transformed)
+            result.addAll(tgds);
+        return result;
+    }
+
+    // the fresh symbols are numbered after the position of the input TGD, so
+    // that the sequential and parallel transformations create the same symbols
+    private Collection<Q> transformInputTGD(List<Q> inputs, int position) {
+        try (TGDFactory.InputSymbols.Binding binding = factory.bindInputPosition(position)) {
+            return transformInputTGD(inputs.get(position));
+        }
+    }
+
+    /**
+     * Returns the inputted TGD transformed into TGDs on which the saturation
+     * process should be applied, it may be called by several threads
+     */
+    protected abstract Collection<Q> transformInputTGD(Q inputTGD);
 
     /**
      * Returns true iff the tgd should be considered as a left input TGD
@@ -288,11 +413,9 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
     protected void addNewTGD(Q newTGD, boolean asRightTGD, Collection<Q> newTGDs, Subsumer<Q> TGDsSubsumer,
                              UnificationIndex<Q> unificationIndex, Set<Q> TGDsSet, String processName) {
 
-        // discard if the newTGD is a tautology
-        if (config.isTautologyDiscarded() && newTGD.getBodySet().containsAll(newTGD.getHeadSet())) {
-            statsCollector.incr(processName, SaturationStatColumns.DISCARDED_TAUTOLOGY);
+        CanonicalForm form = getCanonicalForm(newTGD);
+        if (isDiscarded(newTGD, form, TGDsSubsumer, processName))
             return;
-        }
 
         statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
         boolean isSubsumed = TGDsSubsumer.subsumed(newTGD);
@@ -301,28 +424,189 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
         if (isSubsumed)
             return;
 
+        if (config.getBackwardSubsumptionBatchSize() > 0) {
+            if (config.getNewTGDStrusture().equals(NewTGDStructure.STACK) && newTGDs.contains(newTGD))
+                return;
+            newTGDs.add(newTGD);
+            TGDsSubsumer.add(newTGD);
+            recordCanonicalForm(form, TGDsSubsumer);
+
+            // the backward subsumption of the new TGD is deferred to the batch of its subsumer
+            BackwardSubsumptionBatch batch = backwardSubsumptionBatches.computeIfAbsent(TGDsSubsumer,
+                    s -> new BackwardSubsumptionBatch(asRightTGD, newTGDs, TGDsSubsumer, unificationIndex, TGDsSet));
+            batch.pending.add(newTGD);
+            if (batch.pending.size() >= config.getBackwardSubsumptionBatchSize())
+                batch.flush(processName);
+            return;
+        }
+
         statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
         Collection<Q> sub = TGDsSubsumer.subsumesAny(newTGD);
         statsCollector.tick(processName, SaturationStatColumns.BACKWARD_SUB_TIME);
 
+        removeSubsumedTGDs(sub, asRightTGD, newTGDs, TGDsSubsumer, unificationIndex, TGDsSet);
+
+        if (config.getNewTGDStrusture().equals(NewTGDStructure.STACK) && newTGDs.contains(newTGD))
+            return;
+        newTGDs.add(newTGD);
+        TGDsSubsumer.add(newTGD);
+        recordCanonicalForm(form, TGDsSubsumer);
+    }
+
+    /**
+     * Returns the canonical form of the TGD, when the variants are discarded,
+     * and null otherwise
+     */
+    private CanonicalForm getCanonicalForm(Q tgd) {
+        return (config.isVariantDiscarded()) ? CanonicalForm.of(tgd) : null;
+    }
+
+    private void recordCanonicalForm(CanonicalForm form, Subsumer<Q> TGDsSubsumer) {
+        if (form != null)
+            addedForms.computeIfAbsent(TGDsSubsumer, s -> new HashSet<>()).add(form);
+    }
+
+    /**
+     * Returns true if the new TGD is a tautology or a variant, of canonical
+     * form, of a TGD kept in the subsumer, when they are discarded
+     */
+    private boolean isDiscarded(Q newTGD, CanonicalForm form, Subsumer<Q> TGDsSubsumer, String processName) {
+        // discard if the newTGD is a tautology
+        if (config.isTautologyDiscarded() && TGD.mayBeContained(newTGD.getHeadSignature(), newTGD.getBodySignature())
+                && newTGD.isBodyContainingHead()) {
+            statsCollector.incr(processName, SaturationStatColumns.DISCARDED_TAUTOLOGY);
+            return true;
+        }
+
+        // discard if the newTGD is a variant of a TGD kept in the subsumer, the
+        // form of a TGD is only recorded once it passed the forward subsumption
+        // and removed along with it by the backward subsumption
+        if (form != null && addedForms.getOrDefault(TGDsSubsumer, Set.of()).contains(form)) {
+            statsCollector.incr(processName, SaturationStatColumns.DISCARDED_VARIANT);
+            return true;
+        }
+        return false;
+    }
+
+    private void removeSubsumedTGDs(Collection<Q> sub, boolean asRightTGD, Collection<Q> newTGDs,
+                                    Subsumer<Q> TGDsSubsumer, UnificationIndex<Q> unificationIndex, Set<Q> TGDsSet) {
         TGDsSet.removeAll(sub);
         newTGDs.removeAll(sub);
+        Set<CanonicalForm> forms = addedForms.get(TGDsSubsumer);
+        if (forms != null)
+            for (Q tgd : sub)
+                forms.remove(CanonicalForm.of(tgd));
         for (Q tgd : sub) {
             if (asRightTGD) {
-                for (Atom atom : getUnifiableBodyAtoms(newTGD)) {
-                    unificationIndex.remove(atom, newTGD);
+                for (Atom atom : getUnifiableBodyAtoms(tgd)) {
+                    unificationIndex.remove(atom, tgd);
                 }
             } else {
                 for (Atom atom : tgd.getHeadSet()) {
-                    unificationIndex.remove(atom, newTGD);
+                    unificationIndex.remove(atom, tgd);
                 }
             }
         }
+    }
 
-        if (config.getNewTGDStrusture().equals(NewTGDStructure.STACK) && newTGDs.contains(newTGD))
-            return;
-        newTGDs.add(newTGD);
-        TGDsSubsumer.add(newTGD);
+    /**
+     * Applies the deferred backward subsumption to the pending new TGDs, which
+     * should be done before the checked TGDs are outputted
+     */
+    protected void flushBackwardSubsumption(String processName) {
+        for (BackwardSubsumptionBatch batch : backwardSubsumptionBatches.values())
+            batch.flush(processName);
+        backwardSubsumptionBatches.clear();
+    }
+
+    /**
+     * Task transforming the input TGDs between two positions, the transformed
+     * TGDs are stored by position
+     */
+    private class TransformationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Q> inputs;
+        private final List<Collection<Q>> transformed;
+        private final int from;
+        private final int to;
+
+        private TransformationTask(List<Q> inputs, List<Collection<Q>> transformed, int from, int to) {
+            this.inputs = inputs;
+            this.transformed = transformed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TRANSFORMATION_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TransformationTask(inputs, transformed, from, middle),
+                        new TransformationTask(inputs, transformed, middle, to));
+                return;
+            }
+
+            // the transformed TGDs are interned in the context of the saturation
+            try (TGDContext.Binding binding = factory.getContext().bind()) {
+                for (int position = from; position < to; position++)
+                    transformed.set(position, transformInputTGD(inputs, position));
+            }
+        }
+    }
+
+    /**
+     * New TGDs added to a subsumer, whose backward subsumption is deferred,
+     * with the structures from which the TGDs they subsume are removed
+     */
+    private class BackwardSubsumptionBatch {
+        private final boolean asRightTGD;
+        private final Collection<Q> newTGDs;
+        private final Subsumer<Q> subsumer;
+        private final UnificationIndex<Q> unificationIndex;
+        private final Set<Q> TGDsSet;
+        private final List<Q> pending = new ArrayList<>();
+
+        BackwardSubsumptionBatch(boolean asRightTGD, Collection<Q> newTGDs, Subsumer<Q> subsumer,
+                UnificationIndex<Q> unificationIndex, Set<Q> TGDsSet) {
+            this.asRightTGD = asRightTGD;
+            this.newTGDs = newTGDs;
+            this.subsumer = subsumer;
+            this.unificationIndex = unificationIndex;
+            this.TGDsSet = TGDsSet;
+        }
+
+        /**
+         * Checks the pending TGDs from the most general ones, so that the TGDs
+         * subsumed by one of them are removed from the subsumer, before the
+         * next ones are checked
+         */
+        void flush(String processName) {
+            if (pending.isEmpty())
+                return;
+
+            statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
+            statsCollector.incr(processName, SaturationStatColumns.BACKWARD_BATCH_NB);
+            pending.sort(SaturationUtils.comparator);
+
+            Set<Q> removed = new HashSet<>();
+            for (Q tgd : pending) {
+                if (removed.contains(tgd)) {
+                    statsCollector.incr(processName, SaturationStatColumns.BACKWARD_BATCH_SKIPPED);
+                    continue;
+                }
+
+                statsCollector.incr(processName, SaturationStatColumns.BACKWARD_BATCH_CHECKED);
+                Collection<Q> sub = subsumer.subsumesAny(tgd);
+                if (!sub.isEmpty()) {
+                    statsCollector.incr(processName, SaturationStatColumns.BACKWARD_BATCH_SUBSUMING);
+                    removed.addAll(sub);
+                    removeSubsumedTGDs(sub, asRightTGD, newTGDs, subsumer, unificationIndex, TGDsSet);
+                }
+            }
+            pending.clear();
+            statsCollector.tick(processName, SaturationStatColumns.BACKWARD_SUB_TIME);
+        }
     }
 
     /**
@@ -349,7 +633,18 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
 
     protected Q renameVariable(Q ftgd) {
 
-        return (Q) Logic.applySubstitution(ftgd, getRenameVariableSubstitution(ftgd));
+        // the renamed copy is stored in the TGD, which is renamed each time it is evolved
+        TGD renamed = ftgd.getRenamedCopy(zVariable);
+        if (renamed == null) {
+            VariableRenaming renaming = new VariableRenaming();
+            VariableTable zTable = VariableTable.of(zVariable);
+            int counter = 1;
+            for (Variable v : getUniversalToRename(ftgd))
+                renaming.put(v, zTable.get(counter++));
+            renamed = factory.create(renaming.apply(ftgd.getBodyAtoms()), renaming.apply(ftgd.getHeadAtoms()));
+            ftgd.setRenamedCopy(zVariable, renamed);
+        }
+        return (Q) renamed;
     }
 
     protected Map<Term, Term> getRenameVariableSubstitution(Q ftgd) {
@@ -358,23 +653,34 @@ public abstract class AbstractSaturation<Q extends GTGD> implements SaturationAl
 
     protected Map<Term, Term> getRenameVariableSubstitution(Q ftgd, String prefix) {
 
-        Variable[] uVariables = ftgd.getUniversal();
+        VariableTable table = VariableTable.of(prefix);
 
         Map<Term, Term> substitution = new HashMap<>();
         int counter = 1;
-        for (Variable v : uVariables) {
+        for (Variable v : getUniversalToRename(ftgd))
+            substitution.put(v, table.get(counter++));
+
+        return substitution;
+    }
+
+    private Variable[] getUniversalToRename(Q ftgd) {
+
+        Variable[] uVariables = ftgd.getUniversal();
+        for (Variable v : uVariables)
             if (!v.getSymbol().startsWith(uVariable))
                 throw new IllegalArgumentException("TGD not valid in renameVariable: " + ftgd);
-            substitution.put(v, Variable.create(prefix + counter++));
-        }
 
-        return substitution;
+        return uVariables;
     }
 
     protected void checkTimeout(long currentDurationInMS) throws TimeoutException {
         if (config.getTimeout() != null && (1000 * config.getTimeout()) < currentDurationInMS) {
             throw new TimeoutException();
         }
+        // the saturation is stopped as a timeout, when its thread is interrupted
+        if (Thread.interrupted()) {
+            throw new TimeoutException();
+        }
     }
 
     public void setStatsCollector(StatisticsCollector<SaturationStatColumns> statsCollector) {
@@ -21,32 +21,33 @@ public abstract class AbstractSkolemSat<Q extends SkGTGD> extends EvolveBasedSat
     }
 
     @Override
-    protected Collection<Q> transformInputTGDs(Collection<Q> inputTGDs) {
+    protected Collection<Q> transformInputTGD(Q inputTGD) {
         Collection<Q> result = new ArrayList<>();
 
-        for (Q tgd : inputTGDs) {
-
-            Collection<Q> singleSkolemizedTGDs;
-            switch (config.getSkolemizationType()) {
-            case NAIVE:
-                singleSkolemizedTGDs = factory.computeSingleHeadedSkolemized(tgd);
-                break;
-            case PROJ_ON_FRONTIER:
-                singleSkolemizedTGDs = factory.computeSingleHeadSkolemizedOnFrontierVariable(tgd);
-                break;
-            default:
-                String message = String.format("the skolemization type %s is not supported",
-                                               config.getSkolemizationType());
-                throw new IllegalStateException(message);
-            }
+        for (Q shnf : computeSingleHeadedSkolemized(factory, inputTGD, config))
+            result.add(factory.computeVNF(shnf, eVariable, uVariable));
 
-            for (Q shnf : singleSkolemizedTGDs) {
-                result.add(factory.computeVNF(shnf, eVariable, uVariable));
-            }
-        }
         return result;
     }
 
+    /**
+     * Returns the single headed skolemized TGDs of the input TGD, according to
+     * the configured skolemization type
+     */
+    static <P extends SkGTGD> Collection<P> computeSingleHeadedSkolemized(TGDFactory<P> factory, P inputTGD,
+            SaturationAlgorithmConfiguration config) {
+        switch (config.getSkolemizationType()) {
+        case NAIVE:
+            return factory.computeSingleHeadedSkolemized(inputTGD);
+        case PROJ_ON_FRONTIER:
+            return factory.computeSingleHeadSkolemizedOnFrontierVariable(inputTGD);
+        default:
+            String message = String.format("the skolemization type %s is not supported",
+                                           config.getSkolemizationType());
+            throw new IllegalStateException(message);
+        }
+    }
+
     @Override
     protected Collection<Q> getOutput(Collection<Q> rightTGDs) {
         Collection<Q> output = new HashSet<>();
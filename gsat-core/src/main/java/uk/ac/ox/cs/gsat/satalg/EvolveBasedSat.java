@@ -1,16 +1,30 @@
 package uk.ac.ox.cs.gsat.satalg;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import uk.ac.ox.cs.gsat.Log;
 import uk.ac.ox.cs.gsat.api.SaturationStatColumns;
 import uk.ac.ox.cs.gsat.fol.GTGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
 import uk.ac.ox.cs.gsat.fol.TGDFactory;
 import uk.ac.ox.cs.gsat.subsumers.Subsumer;
 import uk.ac.ox.cs.gsat.unification.UnificationIndex;
@@ -34,6 +48,11 @@ import uk.ac.ox.cs.pdq.fol.Predicate;
  */
 public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<Q> {
 
+    // minimal number of partners of a TGD processed by a single evolve task
+    private static final int PARALLEL_EVOLVE_THRESHOLD = 16;
+    // time (ms) the saturation thread waits for an evolved TGD before checking the timeout
+    private static final long PIPELINE_POLL_TIMEOUT = 100;
+
     protected EvolveBasedSat(String saturationName, TGDFactory<Q> factory, SaturationAlgorithmConfiguration config) {
 
         this(saturationName, factory, UnificationIndexType.PREDICATE_INDEX, UnificationIndexType.PREDICATE_INDEX, config);
@@ -50,6 +69,35 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
             Subsumer<Q> leftTGDsSubsumer, Subsumer<Q> rightTGDsSubsumer, Set<Predicate> bodyPredicates,
             String processName) throws TimeoutException {
 
+        boolean isGenerationBased = config.getNewTGDStrusture().equals(NewTGDStructure.GENERATION);
+        boolean isPipelined = !isGenerationBased && config.isPipelinedEvolveEnabled();
+        // the pool evolving the current TGD (or generation) with its partners in
+        // parallel, while the pipeline has its own evolve stages
+        ForkJoinPool pool = (isGenerationBased || (!isPipelined && config.isParallelEvolveEnabled()))
+                ? new ForkJoinPool(config.getParallelism())
+                : null;
+
+        try {
+            if (isGenerationBased)
+                saturateByGeneration(leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex, rightIndex,
+                        leftTGDsSubsumer, rightTGDsSubsumer, bodyPredicates, pool, processName);
+            else if (isPipelined)
+                saturateByPipeline(leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex, rightIndex,
+                        leftTGDsSubsumer, rightTGDsSubsumer, bodyPredicates, processName);
+            else
+                saturate(leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex, rightIndex,
+                        leftTGDsSubsumer, rightTGDsSubsumer, bodyPredicates, pool, processName);
+        } finally {
+            if (pool != null)
+                pool.shutdownNow();
+        }
+    }
+
+    private void saturate(Set<Q> leftTGDsSet, Set<Q> rightTGDsSet, Collection<Q> newLeftTGDs,
+            Collection<Q> newRightTGDs, UnificationIndex<Q> leftIndex, UnificationIndex<Q> rightIndex,
+            Subsumer<Q> leftTGDsSubsumer, Subsumer<Q> rightTGDsSubsumer, Set<Predicate> bodyPredicates,
+            ForkJoinPool pool, String processName) throws TimeoutException {
+
         int counter = 100;
 
         while (!newRightTGDs.isEmpty() || !newLeftTGDs.isEmpty()) {
@@ -81,16 +129,8 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
 
                 boolean added = addLeftTGD(currentTGD, leftIndex, leftTGDsSet);
                 if (added)
-                    for (Q rightTGD : getRightTGDsToEvolveWith(currentTGD, rightIndex)) {
-                        statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT);
-                        boolean isCurrentTGDSubsumed = fillToAdd(toAdd, currentTGD, rightTGD, true, bodyPredicates,
-                                processName);
-
-                        if (isCurrentTGDSubsumed) {
-                            statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED);
-                            break;
-                        }
-                    }
+                    evolveWithPartners(toAdd, currentTGD, getRightTGDsToEvolveWith(currentTGD, rightIndex), true,
+                            bodyPredicates, pool, processName);
 
             } else {
 
@@ -101,35 +141,286 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
 
                 boolean added = addRightTGD(currentTGD, rightIndex, rightTGDsSet);
 
-                Set<Q> leftTGDsToEvolve = getLeftTGDsToEvolveWith(currentTGD, leftIndex);
+                List<Q> leftTGDsToEvolve = getLeftTGDsToEvolveWith(currentTGD, leftIndex);
                 if (added && leftTGDsToEvolve != null)
-                    for (Q leftTGD : leftTGDsToEvolve) {
-                        statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT);
-                        boolean isCurrentTGDSubsumed = fillToAdd(toAdd, currentTGD, leftTGD, false, bodyPredicates,
-                                                                 processName);
-
-                        if (isCurrentTGDSubsumed) {
-                            statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED);
-                            break;
-                        }
-                    }
+                    evolveWithPartners(toAdd, currentTGD, leftTGDsToEvolve, false, bodyPredicates, pool,
+                            processName);
             }
 
             // we update the structures with the TGDs to add
-            for (Q newTGD : toAdd) {
+            addEvolvedTGDs(toAdd, leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex, rightIndex,
+                    leftTGDsSubsumer, rightTGDsSubsumer, processName);
+        }
+
+    }
+
+    /**
+     * Saturation processing the new TGDs generation by generation. The TGDs of
+     * a generation are first added to the indexes, then each of them is evolved
+     * in parallel with its partners against the frozen indexes. Finally, the
+     * evolved TGDs are merged sequentially in the generation order, which applies
+     * the forward and backward subsumption and fills the next generation.
+     */
+    private void saturateByGeneration(Set<Q> leftTGDsSet, Set<Q> rightTGDsSet, Collection<Q> newLeftTGDs,
+            Collection<Q> newRightTGDs, UnificationIndex<Q> leftIndex, UnificationIndex<Q> rightIndex,
+            Subsumer<Q> leftTGDsSubsumer, Subsumer<Q> rightTGDsSubsumer, Set<Predicate> bodyPredicates,
+            ForkJoinPool pool, String processName) throws TimeoutException {
+
+        while (!newRightTGDs.isEmpty() || !newLeftTGDs.isEmpty()) {
+
+            checkTimeout(statsCollector.total(processName));
+
+            statsCollector.incr(processName, SaturationStatColumns.GENERATION_NB);
+            Log.GLOBAL.fine("# new TGDs: " + newRightTGDs.size() + " , " + newLeftTGDs.size());
+
+            if (config.isVerbose())
+                System.out.println("nonFullTGDs\t" + leftTGDsSet.size() + "\t\tfullTGDs\t" + rightTGDsSet.size()
+                        + "\t\t\tnewNonFullTGDs\t" + newLeftTGDs.size() + "\t\tnewFullTGDs\t"
+                        + newRightTGDs.size());
+
+            List<Q> leftGeneration = new ArrayList<>(newLeftTGDs);
+            List<Q> rightGeneration = new ArrayList<>(newRightTGDs);
+            newLeftTGDs.clear();
+            newRightTGDs.clear();
+
+            // the generation is indexed before any evolution
+            List<Q> addedLeftTGDs = new ArrayList<>();
+            for (Q leftTGD : leftGeneration)
+                if (addLeftTGD(leftTGD, leftIndex, leftTGDsSet))
+                    addedLeftTGDs.add(leftTGD);
+
+            List<Q> addedRightTGDs = new ArrayList<>();
+            for (Q rightTGD : rightGeneration)
+                if (addRightTGD(rightTGD, rightIndex, rightTGDsSet))
+                    addedRightTGDs.add(rightTGD);
+
+            // the partners are computed before the parallel evolution,
+            // since the unification indexes are not thread-safe
+            List<GenerationMember> members = new ArrayList<>();
+            Map<Q, List<Q>> leftTGDsPartners = new HashMap<>();
+            for (Q leftTGD : addedLeftTGDs) {
+                List<Q> partners = getRightTGDsToEvolveWith(leftTGD, rightIndex);
+                leftTGDsPartners.put(leftTGD, partners);
+                members.add(new GenerationMember(leftTGD, partners, true));
+            }
+
+            // the partners of the left TGDs are only hashed when a right TGD of the generation needs them
+            Map<Q, Set<Q>> leftTGDsPartnerSets = new HashMap<>();
+            for (Q rightTGD : addedRightTGDs) {
+                List<Q> partners = getLeftTGDsToEvolveWith(rightTGD, leftIndex);
+                if (partners == null)
+                    continue;
+                // a pair of TGDs from the same generation is only evolved from the left TGD
+                partners.removeIf(l -> leftTGDsPartners.containsKey(l) && leftTGDsPartnerSets
+                        .computeIfAbsent(l, k -> new HashSet<>(leftTGDsPartners.get(k))).contains(rightTGD));
+                members.add(new GenerationMember(rightTGD, partners, false));
+            }
+
+            statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
+
+            GenerationEvolution evolution = new GenerationEvolution(members, bodyPredicates);
+            pool.invoke(new GenerationTask(evolution, 0, members.size()));
+
+            statsCollector.tick(processName, SaturationStatColumns.EVOL_TIME);
+            statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT, evolution.evolveCount.intValue());
+            statsCollector.incr(processName, SaturationStatColumns.EVOL_STOPPED_BECAUSE_EQUAL,
+                    evolution.equalCount.intValue());
+            statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED,
+                    evolution.stopCount.intValue());
+
+            // sequential merge of the evolved TGDs
+            for (GenerationMember member : members)
+                addEvolvedTGDs(member.toAdd, leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex,
+                        rightIndex, leftTGDsSubsumer, rightTGDsSubsumer, processName);
+        }
+    }
 
-                if (isRightTGD(newTGD)) {
-                    reportNewRightTGD(processName, newTGD);
-                    addNewTGD(newTGD, true, newRightTGDs, rightTGDsSubsumer, rightIndex, rightTGDsSet, processName);
+    /**
+     * Pipelined saturation: the saturation thread selects the new TGDs, adds
+     * them to the indexes and passes them with their partners to the evolve
+     * stage, whose threads evolve them. The evolved TGDs are then merged by the
+     * saturation thread, which applies the forward and backward subsumption.
+     * Each structure is owned by a single stage, so they are not locked.
+     *
+     * The stages are connected by bounded queues: the saturation thread never
+     * waits to dispatch a new TGD, it merges the evolved TGDs instead, while the
+     * evolve stage waits for the merge when its result queue is full. A pair of
+     * TGDs is evolved by the one indexed last, as in the sequential saturation,
+     * but a new TGD may be evolved before the TGDs subsuming it are merged.
+     */
+    private void saturateByPipeline(Set<Q> leftTGDsSet, Set<Q> rightTGDsSet, Collection<Q> newLeftTGDs,
+            Collection<Q> newRightTGDs, UnificationIndex<Q> leftIndex, UnificationIndex<Q> rightIndex,
+            Subsumer<Q> leftTGDsSubsumer, Subsumer<Q> rightTGDsSubsumer, Set<Predicate> bodyPredicates,
+            String processName) throws TimeoutException {
+
+        Pipeline pipeline = new Pipeline(bodyPredicates);
+        int stageNb = Math.max(1, config.getParallelism() - 1);
+        ExecutorService evolveStages = Executors.newFixedThreadPool(stageNb);
+        for (int i = 0; i < stageNb; i++)
+            evolveStages.execute(new EvolveStage(pipeline));
+
+        // number of TGDs dispatched whose evolved TGDs are not merged yet
+        int inFlight = 0;
+        try {
+            while (inFlight > 0 || !newRightTGDs.isEmpty() || !newLeftTGDs.isEmpty()) {
+
+                checkTimeout(statsCollector.total(processName));
+                // a failed or stopped stage would never return the TGDs in flight
+                pipeline.checkStages();
+
+                Log.GLOBAL.fine("# new TGDs: " + newRightTGDs.size() + " , " + newLeftTGDs.size() + " , in flight: "
+                        + inFlight);
+
+                // dispatch of the new TGDs, until the evolve queue is full
+                while (!newRightTGDs.isEmpty() || !newLeftTGDs.isEmpty()) {
+                    if (pipeline.tasks.remainingCapacity() == 0) {
+                        statsCollector.incr(processName, SaturationStatColumns.PIPELINE_DISPATCH_STALL);
+                        break;
+                    }
+
+                    GenerationMember task = selectNewTGD(leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs,
+                            leftIndex, rightIndex);
+                    if (task != null) {
+                        pipeline.tasks.add(task);
+                        inFlight++;
+                        statsCollector.incr(processName, SaturationStatColumns.PIPELINE_DISPATCHED);
+                    }
                 }
 
-                if (isLeftTGD(newTGD)) {
-                    reportNewLeftTGD(processName, newTGD);
-                    addNewTGD(newTGD, false, newLeftTGDs, leftTGDsSubsumer, leftIndex, leftTGDsSet, processName);
+                // merge of the evolved TGDs, waiting for them only if no TGD can be dispatched
+                GenerationMember result = pipeline.results.poll();
+                if (result == null && inFlight > 0)
+                    result = pipeline.results.poll(PIPELINE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                for (; result != null; result = pipeline.results.poll()) {
+                    pipeline.checkStages();
+
+                    inFlight--;
+                    statsCollector.incr(processName, SaturationStatColumns.PIPELINE_MERGED);
+                    addEvolvedTGDs(result.toAdd, leftTGDsSet, rightTGDsSet, newLeftTGDs, newRightTGDs, leftIndex,
+                            rightIndex, leftTGDsSubsumer, rightTGDsSubsumer, processName);
                 }
             }
+        } catch (InterruptedException e) {
+            // the saturation is stopped as a timeout, when its thread is interrupted
+            throw new TimeoutException();
+        } finally {
+            evolveStages.shutdownNow();
+
+            statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT, pipeline.evolveCount.intValue());
+            statsCollector.incr(processName, SaturationStatColumns.EVOL_STOPPED_BECAUSE_EQUAL,
+                    pipeline.equalCount.intValue());
+            statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED,
+                    pipeline.stopCount.intValue());
+            statsCollector.incr(processName, SaturationStatColumns.PIPELINE_EVOLVE_STALL,
+                    pipeline.evolveStallCount.intValue());
+        }
+    }
+
+    /**
+     * Removes the next new TGD, the left ones first, and adds it to the checked
+     * TGDs. Returns the TGD with its partners, or null if it has no partner to
+     * be evolved with.
+     */
+    private GenerationMember selectNewTGD(Set<Q> leftTGDsSet, Set<Q> rightTGDsSet, Collection<Q> newLeftTGDs,
+            Collection<Q> newRightTGDs, UnificationIndex<Q> leftIndex, UnificationIndex<Q> rightIndex) {
+
+        if (!newLeftTGDs.isEmpty()) {
+            Iterator<Q> iterator = newLeftTGDs.iterator();
+            Q currentTGD = iterator.next();
+            iterator.remove();
+
+            if (!addLeftTGD(currentTGD, leftIndex, leftTGDsSet))
+                return null;
+            List<Q> partners = getRightTGDsToEvolveWith(currentTGD, rightIndex);
+            return (partners.isEmpty()) ? null : new GenerationMember(currentTGD, partners, true);
+        }
+
+        Iterator<Q> iterator = newRightTGDs.iterator();
+        Q currentTGD = iterator.next();
+        iterator.remove();
+
+        if (!addRightTGD(currentTGD, rightIndex, rightTGDsSet))
+            return null;
+        List<Q> partners = getLeftTGDsToEvolveWith(currentTGD, leftIndex);
+        return (partners == null || partners.isEmpty()) ? null : new GenerationMember(currentTGD, partners, false);
+    }
+
+    private void addEvolvedTGDs(Collection<Q> toAdd, Set<Q> leftTGDsSet, Set<Q> rightTGDsSet,
+            Collection<Q> newLeftTGDs, Collection<Q> newRightTGDs, UnificationIndex<Q> leftIndex,
+            UnificationIndex<Q> rightIndex, Subsumer<Q> leftTGDsSubsumer, Subsumer<Q> rightTGDsSubsumer,
+            String processName) {
+
+        for (Q newTGD : toAdd) {
+
+            if (isRightTGD(newTGD)) {
+                reportNewRightTGD(processName, newTGD);
+                addNewTGD(newTGD, true, newRightTGDs, rightTGDsSubsumer, rightIndex, rightTGDsSet, processName);
+            }
+
+            if (isLeftTGD(newTGD)) {
+                reportNewLeftTGD(processName, newTGD);
+                addNewTGD(newTGD, false, newLeftTGDs, leftTGDsSubsumer, leftIndex, leftTGDsSet, processName);
+            }
+        }
+    }
+
+    /**
+     * Evolve the current TGD with each of its partners and fill toAdd with the
+     * evolved TGDs. When the parallel evolve is enabled and there are enough
+     * partners, the partners are split among the threads of the pool.
+     */
+    private void evolveWithPartners(Collection<Q> toAdd, Q currentTGD, Collection<Q> partners,
+            boolean isCurrentLeftTGD, Set<Predicate> bodyPredicates, ForkJoinPool pool, String processName) {
+
+        if (pool != null && partners.size() > PARALLEL_EVOLVE_THRESHOLD) {
+            parallelEvolveWithPartners(toAdd, currentTGD, partners, isCurrentLeftTGD, bodyPredicates, pool,
+                    processName);
+            return;
+        }
+
+        for (Q otherTGD : partners) {
+            statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT);
+            boolean isCurrentTGDSubsumed = fillToAdd(toAdd, currentTGD, otherTGD, isCurrentLeftTGD, bodyPredicates,
+                    processName);
+
+            if (isCurrentTGDSubsumed) {
+                statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED);
+                break;
+            }
         }
+    }
+
+    /**
+     * Parallel version of the evolution of the current TGD with its partners.
+     * Each partner has its own slot of evolved TGDs, which are merged in the
+     * order of the partners, so toAdd does not depend on the scheduling. If the
+     * current TGD is subsumed, toAdd only contains the subsuming TGD coming from
+     * the first partner (in the partners order) leading to a subsumption, as in
+     * the sequential version.
+     */
+    private void parallelEvolveWithPartners(Collection<Q> toAdd, Q currentTGD, Collection<Q> partners,
+            boolean isCurrentLeftTGD, Set<Predicate> bodyPredicates, ForkJoinPool pool, String processName) {
+
+        statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
 
+        ParallelEvolution evolution = new ParallelEvolution(currentTGD, new ArrayList<>(partners), isCurrentLeftTGD,
+                bodyPredicates);
+        pool.invoke(new EvolveTask(evolution, 0, evolution.partners.size()));
+
+        statsCollector.tick(processName, SaturationStatColumns.EVOL_TIME);
+        statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT, evolution.evolveCount.intValue());
+        statsCollector.incr(processName, SaturationStatColumns.EVOL_STOPPED_BECAUSE_EQUAL,
+                evolution.equalCount.intValue());
+
+        int subsumingPartner = evolution.firstSubsumingPartner.get();
+        if (subsumingPartner < evolution.partners.size()) {
+            statsCollector.incr(processName, SaturationStatColumns.STOP_BECAUSE_SUBSUMED);
+            toAdd.clear();
+            toAdd.addAll(evolution.results.get(subsumingPartner));
+        } else {
+            for (List<Q> result : evolution.results)
+                toAdd.addAll(result);
+        }
     }
 
     private boolean fillToAdd(Collection<Q> toAdd, Q currentTGD, Q otherTGD, boolean isCurrentLeftTGD,
@@ -139,6 +430,18 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
         statsCollector.tick(processName, SaturationStatColumns.OTHER_TIME);
         Collection<Q> evolvedTGDs = evolveNew(leftTGD, rightTGD);
         statsCollector.tick(processName, SaturationStatColumns.EVOL_TIME);
+
+        return selectEvolvedTGDs(toAdd, currentTGD, leftTGD, rightTGD, evolvedTGDs, bodyPredicates,
+                () -> statsCollector.incr(processName, SaturationStatColumns.EVOL_STOPPED_BECAUSE_EQUAL));
+    }
+
+    /**
+     * Add to toAdd the evolved TGDs to keep and returns true iff the current TGD
+     * is subsumed by one of them, in which case toAdd only contains the subsuming
+     * TGD.
+     */
+    private boolean selectEvolvedTGDs(Collection<Q> toAdd, Q currentTGD, Q leftTGD, Q rightTGD,
+            Collection<Q> evolvedTGDs, Set<Predicate> bodyPredicates, Runnable onEqual) {
         if (this.config.isStopEvolvingIfSubsumedEnabled()) {
             boolean subsumed = false;
             for (Q newTGD : evolvedTGDs) {
@@ -160,7 +463,7 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
                     }
                 } else {
                     Log.GLOBAL.fine("evolve equals :\n" + leftTGD + "\n + \n" + rightTGD + "\n = \n" + newTGD + "\n");
-                    statsCollector.incr(processName, SaturationStatColumns.EVOL_STOPPED_BECAUSE_EQUAL);
+                    onEqual.run();
                 }
             }
             if (subsumed) {
@@ -183,27 +486,21 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
         return false;
     }
 
-    private Set<Q> getRightTGDsToEvolveWith(Q leftTGD, UnificationIndex<Q> rightIndex) {
+    private List<Q> getRightTGDsToEvolveWith(Q leftTGD, UnificationIndex<Q> rightIndex) {
 
-        Set<Q> result = new HashSet<>();
+        List<Q> result = new ArrayList<>();
+        rightIndex.forEachCandidate(leftTGD.getHeadSet(), result::add);
 
         if (this.config.isEvolvingTGDOrderingEnabled())
-            result = new TreeSet<>(SaturationUtils.comparator);
-
-        for (Atom atom : leftTGD.getHeadSet()) {
-            Set<Q> set = rightIndex.get(atom);
-            result.addAll(set);
-        }
+            result.sort(SaturationUtils.comparator);
 
         return result;
     }
 
-    protected Set<Q> getLeftTGDsToEvolveWith(Q rightTGD, UnificationIndex<Q> leftIndex) {
-        Set<Q> result = new HashSet<>();
+    protected List<Q> getLeftTGDsToEvolveWith(Q rightTGD, UnificationIndex<Q> leftIndex) {
 
-        for (Atom atom : getUnifiableBodyAtoms(rightTGD)) {
-            result.addAll(leftIndex.get(atom));
-        }
+        List<Q> result = new ArrayList<>();
+        leftIndex.forEachCandidate(Arrays.asList(getUnifiableBodyAtoms(rightTGD)), result::add);
 
         return result;
     }
@@ -213,4 +510,258 @@ public abstract class EvolveBasedSat<Q extends GTGD> extends AbstractSaturation<
      */
     protected abstract Collection<Q> evolveNew(Q leftTGD, Q rightTGD);
 
+    /**
+     * State shared by the tasks evolving the current TGD with its partners in
+     * parallel
+     */
+    private class ParallelEvolution {
+        private final Q currentTGD;
+        private final List<Q> partners;
+        private final boolean isCurrentLeftTGD;
+        private final Set<Predicate> bodyPredicates;
+        // evolved TGDs to add, stored by partner position
+        private final List<List<Q>> results;
+        // position of the first partner leading to a subsumption of the current TGD
+        private final AtomicInteger firstSubsumingPartner;
+        private final LongAdder evolveCount = new LongAdder();
+        private final LongAdder equalCount = new LongAdder();
+
+        private ParallelEvolution(Q currentTGD, List<Q> partners, boolean isCurrentLeftTGD,
+                Set<Predicate> bodyPredicates) {
+            this.currentTGD = currentTGD;
+            this.partners = partners;
+            this.isCurrentLeftTGD = isCurrentLeftTGD;
+            this.bodyPredicates = bodyPredicates;
+            this.results = new ArrayList<>(Collections.nCopies(partners.size(), null));
+            this.firstSubsumingPartner = new AtomicInteger(partners.size());
+        }
+    }
+
+    /**
+     * A TGD of a generation, or dispatched to the pipeline, with the partners
+     * it has to be evolved with
+     */
+    private class GenerationMember {
+        private final Q currentTGD;
+        private final Collection<Q> partners;
+        private final boolean isCurrentLeftTGD;
+        // evolved TGDs to add
+        private final List<Q> toAdd = new ArrayList<>();
+
+        private GenerationMember(Q currentTGD, Collection<Q> partners, boolean isCurrentLeftTGD) {
+            this.currentTGD = currentTGD;
+            this.partners = partners;
+            this.isCurrentLeftTGD = isCurrentLeftTGD;
+        }
+    }
+
+    /**
+     * Evolves the member with its partners as the current TGD of the sequential
+     * saturation, and fills its TGDs to add
+     */
+    private void evolveMember(GenerationMember member, Set<Predicate> bodyPredicates, LongAdder evolveCount,
+            LongAdder equalCount, LongAdder stopCount) {
+        for (Q otherTGD : member.partners) {
+            Q leftTGD = (member.isCurrentLeftTGD) ? member.currentTGD : otherTGD;
+            Q rightTGD = (!member.isCurrentLeftTGD) ? member.currentTGD : otherTGD;
+
+            evolveCount.increment();
+            boolean subsumed = selectEvolvedTGDs(member.toAdd, member.currentTGD, leftTGD, rightTGD,
+                    evolveNew(leftTGD, rightTGD), bodyPredicates, equalCount::increment);
+
+            if (subsumed) {
+                stopCount.increment();
+                break;
+            }
+        }
+    }
+
+    /**
+     * State shared by the tasks evolving a generation in parallel
+     */
+    private class GenerationEvolution {
+        private final List<GenerationMember> members;
+        private final Set<Predicate> bodyPredicates;
+        private final LongAdder evolveCount = new LongAdder();
+        private final LongAdder equalCount = new LongAdder();
+        private final LongAdder stopCount = new LongAdder();
+
+        private GenerationEvolution(List<GenerationMember> members, Set<Predicate> bodyPredicates) {
+            this.members = members;
+            this.bodyPredicates = bodyPredicates;
+        }
+    }
+
+    /**
+     * Queues connecting the stages of the pipelined saturation, and the
+     * counters of the evolve stages
+     */
+    private class Pipeline {
+        private final Set<Predicate> bodyPredicates;
+        // TGDs dispatched to the evolve stages, and the same TGDs once evolved
+        private final BlockingQueue<GenerationMember> tasks;
+        private final BlockingQueue<GenerationMember> results;
+        // first failure of an evolve stage, rethrown by the saturation thread
+        private volatile Throwable failure = null;
+        // number of evolve stages still running
+        private final AtomicInteger liveStageCount = new AtomicInteger();
+        private final LongAdder evolveCount = new LongAdder();
+        private final LongAdder equalCount = new LongAdder();
+        private final LongAdder stopCount = new LongAdder();
+        private final LongAdder evolveStallCount = new LongAdder();
+
+        private Pipeline(Set<Predicate> bodyPredicates) {
+            this.bodyPredicates = bodyPredicates;
+            this.tasks = new ArrayBlockingQueue<>(config.getPipelineQueueSize());
+            this.results = new ArrayBlockingQueue<>(config.getPipelineQueueSize());
+        }
+
+        /**
+         * Rethrows the failure of an evolve stage, and throws an exception if
+         * all the stages are stopped
+         */
+        private void checkStages() {
+            Throwable stageFailure = failure;
+            if (stageFailure instanceof RuntimeException)
+                throw (RuntimeException) stageFailure;
+            if (stageFailure instanceof Error)
+                throw (Error) stageFailure;
+            if (stageFailure != null)
+                throw new IllegalStateException("An evolve stage failed", stageFailure);
+            if (liveStageCount.get() == 0)
+                throw new IllegalStateException("The evolve stages are stopped");
+        }
+    }
+
+    /**
+     * Evolve stage of the pipeline, which evolves the dispatched TGDs until it
+     * is interrupted
+     */
+    private class EvolveStage implements Runnable {
+        private final Pipeline pipeline;
+
+        private EvolveStage(Pipeline pipeline) {
+            this.pipeline = pipeline;
+            // counted before the stage is started, so that the saturation thread
+            // does not see it as stopped
+            pipeline.liveStageCount.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            // the evolved TGDs are interned in the context of the saturation
+            try (TGDContext.Binding binding = factory.getContext().bind()) {
+                while (true) {
+                    GenerationMember task = pipeline.tasks.take();
+                    try {
+                        evolveMember(task, pipeline.bodyPredicates, pipeline.evolveCount, pipeline.equalCount,
+                                pipeline.stopCount);
+                    } catch (Throwable e) {
+                        if (pipeline.failure == null)
+                            pipeline.failure = e;
+                    }
+
+                    if (!pipeline.results.offer(task)) {
+                        pipeline.evolveStallCount.increment();
+                        pipeline.results.put(task);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // the pipeline is stopped
+            } catch (Throwable e) {
+                if (pipeline.failure == null)
+                    pipeline.failure = e;
+            } finally {
+                pipeline.liveStageCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Task evolving the members of a generation between two positions, each
+     * member is evolved with its partners as the current TGD of the sequential
+     * saturation.
+     */
+    private class GenerationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GenerationEvolution evolution;
+        private final int from;
+        private final int to;
+
+        private GenerationTask(GenerationEvolution evolution, int from, int to) {
+            this.evolution = evolution;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GenerationTask(evolution, from, middle), new GenerationTask(evolution, middle, to));
+                return;
+            }
+
+            // the evolved TGDs are interned in the context of the saturation
+            try (TGDContext.Binding binding = factory.getContext().bind()) {
+                for (int position = from; position < to; position++)
+                    evolveMember(evolution.members.get(position), evolution.bodyPredicates, evolution.evolveCount,
+                            evolution.equalCount, evolution.stopCount);
+            }
+        }
+    }
+
+    /**
+     * Task evolving the current TGD with the partners between two positions. A
+     * task stops as soon as the current TGD is known to be subsumed thanks to a
+     * partner placed before its next partner.
+     */
+    private class EvolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelEvolution evolution;
+        private final int from;
+        private final int to;
+
+        private EvolveTask(ParallelEvolution evolution, int from, int to) {
+            this.evolution = evolution;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_EVOLVE_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EvolveTask(evolution, from, middle), new EvolveTask(evolution, middle, to));
+                return;
+            }
+
+            // the evolved TGDs are interned in the context of the saturation
+            try (TGDContext.Binding binding = factory.getContext().bind()) {
+                for (int position = from; position < to; position++) {
+                    // a sibling already found that the current TGD is subsumed
+                    if (position > evolution.firstSubsumingPartner.get())
+                        return;
+
+                    Q otherTGD = evolution.partners.get(position);
+                    Q leftTGD = (evolution.isCurrentLeftTGD) ? evolution.currentTGD : otherTGD;
+                    Q rightTGD = (!evolution.isCurrentLeftTGD) ? evolution.currentTGD : otherTGD;
+
+                    evolution.evolveCount.increment();
+                    List<Q> result = new ArrayList<>();
+                    boolean subsumed = selectEvolvedTGDs(result, evolution.currentTGD, leftTGD, rightTGD,
+                            evolveNew(leftTGD, rightTGD), evolution.bodyPredicates, evolution.equalCount::increment);
+                    evolution.results.set(position, result);
+
+                    if (subsumed) {
+                        evolution.firstSubsumingPartner.accumulateAndGet(position, Math::min);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
 }
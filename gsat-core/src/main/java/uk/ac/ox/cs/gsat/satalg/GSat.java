@@ -1,13 +1,13 @@
 package uk.ac.ox.cs.gsat.satalg;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 import uk.ac.ox.cs.gsat.Log;
@@ -35,12 +35,11 @@ class GSat extends EvolveBasedSat<GTGD> {
     }
 
     @Override
-    protected Collection<GTGD> transformInputTGDs(Collection<GTGD> inputTGDs) {
+    protected Collection<GTGD> transformInputTGD(GTGD inputTGD) {
         Collection<GTGD> result = new ArrayList<>();
 
-        for(GTGD tgd : inputTGDs)
-            for (GTGD hnf : this.factory.computeHNF(tgd))
-                result.add(this.factory.computeVNF(hnf, eVariable, uVariable));
+        for (GTGD hnf : this.factory.computeHNF(inputTGD))
+            result.add(this.factory.computeVNF(hnf, eVariable, uVariable));
 
         return result;
     }
@@ -63,7 +62,7 @@ class GSat extends EvolveBasedSat<GTGD> {
 
         Log.GLOBAL.fine("Composing:\n" + nftgd + "\nand\n" + ftgd);
 
-        Atom guard = GTGD.create(ftgd.getBodySet(), ftgd.getHeadSet()).getGuard();
+        Atom guard = ftgd.getGuard();
         Collection<GTGD> results = new HashSet<>();
 
         for (Atom H : nftgd.getHeadAtoms()) {
@@ -75,7 +74,7 @@ class GSat extends EvolveBasedSat<GTGD> {
                 final GTGD new_nftgd = Logic.applyMGU(nftgd, guardMGU);
                 final GTGD new_ftgd = Logic.applyMGU(ftgd, guardMGU);
 
-                final List<Variable> new_nftgd_existentials = Arrays.asList(new_nftgd.getExistential());
+                final Set<Variable> new_nftgd_existentials = new_nftgd.getExistentialSet();
 
                 var new_nftgd_head_atoms = new_nftgd.getHeadSet();
                 var new_nftgd_body_atoms = new_nftgd.getBodySet();
@@ -111,15 +110,16 @@ class GSat extends EvolveBasedSat<GTGD> {
 
                 Log.GLOBAL.fine("Shead:" + Shead.toString());
 
-                for (List<Atom> S : SaturationUtils.getProduct(Shead)) {
+                // the sequences S of Shead are unified incrementally with Sbody,
+                // so the sequences sharing a non unifiable prefix are skipped
+                UnificationEnumerator enumerator = new UnificationEnumerator(Sbody, Shead, true);
+                while (enumerator.next()) {
 
-                    Log.GLOBAL.fine("Non-Full:" + new_nftgd.toString() + "\nFull:" + new_ftgd.toString() + "\nSbody:"
-                                    + Sbody + "\nS:" + S);
+                    if (Log.GLOBAL.isLoggable(Level.FINE))
+                        Log.GLOBAL.fine("Non-Full:" + new_nftgd.toString() + "\nFull:" + new_ftgd.toString() + "\nSbody:"
+                                        + Sbody + "\nS:" + enumerator.getChosenCandidates());
 
-                    Map<Term, Term> mgu = Logic.getVariableSubstitution(S, Sbody);
-                    if (mgu == null)
-                        // unification failed -> continue with next sequence
-                        continue;
+                    Map<Term, Term> mgu = enumerator.getMGU();
 
                     new_body.removeAll(Sbody);
 
@@ -1,9 +1,10 @@
 package uk.ac.ox.cs.gsat.satalg;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -30,9 +31,6 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
 
     private static final String NAME = "HyperSat";
 
-
-    private Map<SkGTGD, SkGTGD> renamingCache = new HashMap<>();
-
     protected HyperResolutionBasedSat(SaturationAlgorithmConfiguration config) {
         super(NAME, TGDFactory.getSkGTGDInstance(config.isSortedVNF()),
               UnificationIndexType.ATOM_PATH_INDEX,
@@ -196,34 +194,32 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
                 if (Log.GLOBAL.isLoggable(Level.FINE)) {
                     Log.GLOBAL.fine("skolem atom candidates: " + nonFullTGDcandidatesForSkolemAtoms);
                 }
-
-                for (List<SkGTGD> candidateList : nonFullTGDcandidatesForSkolemAtoms) {
+                if (nonFullTGDcandidatesForSkolemAtoms.isEmpty())
+                    // a Skolem atom has no candidate
+                    return resolvedTGDs;
+
+                // the variables of the candidates are renamed according to the position of their Skolem atom,
+                // the renaming is done lazily, so that the candidates behind a pruned prefix are never renamed
+                List<RenamedCandidates> candidateHeadAtoms = new ArrayList<>();
+                int pos = 1;
+                for (List<SkGTGD> candidates : nonFullTGDcandidatesForSkolemAtoms)
+                    candidateHeadAtoms.add(new RenamedCandidates(candidates, zVariable + pos++));
+
+                // the candidate lists are enumerated depth-first, such that
+                // the lists sharing a non unifiable prefix are skipped
+                UnificationEnumerator enumerator = new UnificationEnumerator(skolemAtoms, candidateHeadAtoms, false);
+                while (enumerator.next()) {
                     statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT);
 
-                    List<Atom> headAtoms = new ArrayList<>();
-                    List<Map<Term, Term>> candidateRenaming = new ArrayList<>();
-                    int pos = 1;
-                    for (SkGTGD candidate : candidateList) {
-                        Map<Term, Term> renaming = getRenameVariableSubstitution(candidate, zVariable + pos);
-                        candidateRenaming.add(renaming);
-                        headAtoms.add((Atom) Logic.applySubstitution(candidate.getHeadAtom(0), renaming));
-                        pos++;
-                    }
-
-                    Map<Term, Term> mgu = Logic.getVariableSubstitution(skolemAtoms, headAtoms);
-                    if (mgu == null) {
-                        statsCollector.incr(processName, SaturationStatColumns.HYPER_FAILURE);
-                        // unification failed -> continue with next candidate list
-                        continue;
-                    }
+                    Map<Term, Term> mgu = enumerator.getMGU();
 
                     // create the new body and head
                     Set<Atom> newBody = new HashSet<>(resolvedRightTGD.getBodySet());
                     newBody.removeAll(skolemAtoms);
-                    pos = 0;
-                    for (SkGTGD candidate : candidateList) {
-                        Map<Term, Term> renaming = candidateRenaming.get(pos);
-                        pos++;
+                    for (int position = 0; position < skolemAtoms.size(); position++) {
+                        int choice = enumerator.getChoice(position);
+                        SkGTGD candidate = nonFullTGDcandidatesForSkolemAtoms.get(position).get(choice);
+                        Map<Term, Term> renaming = candidateHeadAtoms.get(position).getRenaming(choice);
                         for (Atom atom : candidate.getBodySet())
                             newBody.add((Atom) Logic.applySubstitution(atom, renaming));
                     }
@@ -239,6 +235,10 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
                         break;
                     }
                 }
+                // each failed unification prunes the candidate lists sharing its prefix
+                statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT, enumerator.getFailureCount());
+                statsCollector.incr(processName, SaturationStatColumns.HYPER_FAILURE, enumerator.getFailureCount());
+                statsCollector.incr(processName, SaturationStatColumns.HYPER_PRUNE_DEPTH, enumerator.getPruneDepth());
             } else {
                 statsCollector.incr(processName, SaturationStatColumns.EVOL_COUNT);
                 resolvedTGDs.add(factory.computeVNF(resolvedRightTGD, eVariable, uVariable));
@@ -251,20 +251,63 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
         return resolvedTGDs;
     }
 
+    /**
+     * Head atoms of the candidates of a Skolem atom, whose variables are renamed
+     * with a prefix on their first access
+     */
+    private class RenamedCandidates extends AbstractList<Atom> {
+        private final List<SkGTGD> candidates;
+        private final String prefix;
+        private final Atom[] headAtoms;
+        private final List<Map<Term, Term>> renamings;
+
+        RenamedCandidates(List<SkGTGD> candidates, String prefix) {
+            this.candidates = candidates;
+            this.prefix = prefix;
+            this.headAtoms = new Atom[candidates.size()];
+            this.renamings = new ArrayList<>(Collections.nCopies(candidates.size(), null));
+        }
+
+        @Override
+        public Atom get(int index) {
+            if (headAtoms[index] == null) {
+                SkGTGD candidate = candidates.get(index);
+                Map<Term, Term> renaming = getRenameVariableSubstitution(candidate, prefix);
+                renamings.set(index, renaming);
+                headAtoms[index] = (Atom) Logic.applySubstitution(candidate.getHeadAtom(0), renaming);
+            }
+            return headAtoms[index];
+        }
+
+        Map<Term, Term> getRenaming(int index) {
+            get(index);
+            return renamings.get(index);
+        }
+
+        @Override
+        public int size() {
+            return candidates.size();
+        }
+    }
+
+    /**
+     * Returns the non full TGD candidates for each Skolem atom, or an empty list
+     * if one of the Skolem atoms has no candidate
+     */
     private List<List<SkGTGD>> computeCandidatesForSkolemAtoms(UnificationIndex<SkGTGD> nonFullTGDsIndex,
             List<Atom> skolemAtoms) {
 
-        List<Collection<SkGTGD>> candidatesPerBodyAtoms = new ArrayList<>();
+        List<List<SkGTGD>> candidatesPerBodyAtoms = new ArrayList<>();
 
         for (Atom atom : skolemAtoms) {
             Collection<SkGTGD> candidates = nonFullTGDsIndex.get(atom);
             if (!candidates.isEmpty())
-                candidatesPerBodyAtoms.add(candidates);
+                candidatesPerBodyAtoms.add(new ArrayList<>(candidates));
             else
                 return new ArrayList<>();
         }
 
-        return SaturationUtils.getProduct(candidatesPerBodyAtoms);
+        return candidatesPerBodyAtoms;
     }
 
     /**
@@ -280,13 +323,9 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
         if (!H.getPredicate().equals(B.getPredicate()))
             return null;
 
-        Map<Term, Term> renamingSubstitution = getRenameVariableSubstitution(leftTGD);
-        Map<Term, Term> mgu = Logic.getMGU(B, (Atom) Logic.applySubstitution(H, renamingSubstitution));
-
-        if (!renamingCache.containsKey(leftTGD))
-            renamingCache.put(leftTGD, (SkGTGD) Logic.applySubstitution(leftTGD, renamingSubstitution));
-
-        leftTGD = renamingCache.get(leftTGD);
+        // the left TGD is single headed, so the head of its renamed copy is the renamed H
+        leftTGD = renameVariable(leftTGD);
+        Map<Term, Term> mgu = Logic.getMGU(B, leftTGD.getHeadAtom(0));
 
         if (Log.GLOBAL.isLoggable(Level.FINE))
             Log.GLOBAL.fine("mgu of " + B + " and " + H + ": " + mgu);
@@ -326,30 +365,12 @@ public class HyperResolutionBasedSat extends AbstractSaturation<SkGTGD> {
     }
 
     @Override
-    protected Collection<SkGTGD> transformInputTGDs(Collection<SkGTGD> inputTGDs) {
-        // ugly copy from AbstractSkolemSat
+    protected Collection<SkGTGD> transformInputTGD(SkGTGD inputTGD) {
         Collection<SkGTGD> result = new ArrayList<>();
 
-        for (SkGTGD tgd : inputTGDs) {
-
-            Collection<SkGTGD> singleSkolemizedTGDs;
-            switch (config.getSkolemizationType()) {
-            case NAIVE:
-                singleSkolemizedTGDs = factory.computeSingleHeadedSkolemized(tgd);
-                break;
-            case PROJ_ON_FRONTIER:
-                singleSkolemizedTGDs = factory.computeSingleHeadSkolemizedOnFrontierVariable(tgd);
-                break;
-            default:
-                String message = String.format("the skolemization type %s is not supported",
-                        config.getSkolemizationType());
-                throw new IllegalStateException(message);
-            }
+        for (SkGTGD shnf : AbstractSkolemSat.computeSingleHeadedSkolemized(factory, inputTGD, config))
+            result.add(factory.computeVNF(shnf, eVariable, uVariable));
 
-            for (SkGTGD shnf : singleSkolemizedTGDs) {
-                result.add(factory.computeVNF(shnf, eVariable, uVariable));
-            }
-        }
         return result;
     }
 
@@ -7,5 +7,12 @@ public enum NewTGDStructure {
      * stored in ordered sets such that the TGDs with smallest body and largest head
      * come first
      */
-    ORDERED_BY_ATOMS_NB, SET
+    ORDERED_BY_ATOMS_NB, SET,
+    /**
+     * In evolved based algorithms, the new TGDs are stored in insertion ordered
+     * sets and processed generation by generation: every new TGD is evolved in
+     * parallel against the frozen indexes, then the evolved TGDs are merged
+     * sequentially
+     */
+    GENERATION
 }
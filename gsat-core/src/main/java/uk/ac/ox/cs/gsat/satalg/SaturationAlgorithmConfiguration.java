@@ -7,6 +7,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import uk.ac.ox.cs.gsat.fol.InternTableType;
 import uk.ac.ox.cs.gsat.fol.TGD;
 import uk.ac.ox.cs.gsat.satalg.AbstractSkolemSat.SkolemizationType;
 import uk.ac.ox.cs.gsat.unification.UnificationIndexType;
@@ -25,11 +26,21 @@ public class SaturationAlgorithmConfiguration {
     protected boolean discardUselessTGD = true;
     protected SkolemizationType skolemizationType = SkolemizationType.NAIVE;
     protected boolean discardTautology = true;
+    protected boolean discardVariant = false;
     protected boolean orderedSkolemSatSelectSkolemBodyAtom = false;
     protected UnificationIndexType unificationIndexType = null;
     protected int maxPredicate = 0;
     protected boolean sortedVNF = true;
     protected SaturationAlgorithmType saturationAlgorithmType = SaturationAlgorithmType.GSAT;
+    protected boolean parallelEvolve = false;
+    protected boolean parallelTransformation = false;
+    protected boolean bulkInitialization = false;
+    protected boolean pipelinedEvolve = false;
+    protected int pipelineQueueSize = 64;
+    protected int parallelism = Runtime.getRuntime().availableProcessors();
+    protected InternTableType internTableType = InternTableType.WEAK;
+    protected int internTableSize = 1000000;
+    protected int backwardSubsumptionBatchSize = 0;
 
     public SaturationAlgorithmConfiguration() {
     }
@@ -61,6 +72,34 @@ public class SaturationAlgorithmConfiguration {
         if (prop.containsKey("optimization.discard_useless_tgd"))
             discardUselessTGD = Boolean.parseBoolean(prop.getProperty("optimization.discard_useless_tgd"));
 
+        if (prop.containsKey("optimization.parallel_evolve"))
+            parallelEvolve = Boolean.parseBoolean(prop.getProperty("optimization.parallel_evolve"));
+
+        if (prop.containsKey("optimization.parallel_transformation"))
+            parallelTransformation = Boolean.parseBoolean(prop.getProperty("optimization.parallel_transformation"));
+
+        if (prop.containsKey("optimization.bulk_initialization"))
+            bulkInitialization = Boolean.parseBoolean(prop.getProperty("optimization.bulk_initialization"));
+
+        if (prop.containsKey("optimization.pipelined_evolve"))
+            pipelinedEvolve = Boolean.parseBoolean(prop.getProperty("optimization.pipelined_evolve"));
+
+        if (prop.containsKey("optimization.pipeline_queue_size"))
+            pipelineQueueSize = Integer.parseInt(prop.getProperty("optimization.pipeline_queue_size"));
+
+        if (prop.containsKey("optimization.parallelism"))
+            parallelism = Integer.parseInt(prop.getProperty("optimization.parallelism"));
+
+        if (prop.containsKey("optimization.intern_table"))
+            internTableType = InternTableType.valueOf(prop.getProperty("optimization.intern_table"));
+
+        if (prop.containsKey("optimization.intern_table_size"))
+            internTableSize = Integer.parseInt(prop.getProperty("optimization.intern_table_size"));
+
+        if (prop.containsKey("optimization.backward_subsumption_batch_size"))
+            backwardSubsumptionBatchSize = Integer
+                    .parseInt(prop.getProperty("optimization.backward_subsumption_batch_size"));
+
         if (prop.containsKey("optimization.maxPredicate"))
             maxPredicate = Integer.parseInt(prop.getProperty("optimization.maxPredicate"));
 
@@ -69,6 +108,9 @@ public class SaturationAlgorithmConfiguration {
         if (prop.containsKey("optimization.discard_tautology"))
             discardTautology = Boolean.parseBoolean(prop.getProperty("optimization.discard_tautology"));
 
+        if (prop.containsKey("optimization.discard_variant"))
+            discardVariant = Boolean.parseBoolean(prop.getProperty("optimization.discard_variant"));
+
         if (prop.containsKey("ordered_skolemsat_select_skolem_body_atom"))
             orderedSkolemSatSelectSkolemBodyAtom = Boolean.parseBoolean(prop.getProperty("ordered_skolemsat_select_skolem_body_atom"));
 
@@ -87,6 +129,25 @@ public class SaturationAlgorithmConfiguration {
             }
         }
 
+        checkEvolveModes(pipelinedEvolve, parallelEvolve, newTGDStructure);
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the pipelined evolve is enabled
+     * along with the parallel evolve or the GENERATION structure, which would
+     * be ignored
+     */
+    private static void checkEvolveModes(boolean pipelinedEvolve, boolean parallelEvolve,
+            NewTGDStructure newTGDStructure) {
+        if (!pipelinedEvolve)
+            return;
+
+        if (parallelEvolve)
+            throw new IllegalArgumentException(
+                    "'optimization.pipelined_evolve' and 'optimization.parallel_evolve' cannot be both enabled, since the new TGDs are already evolved by the pipeline stages");
+        if (newTGDStructure == NewTGDStructure.GENERATION)
+            throw new IllegalArgumentException(
+                    "'optimization.pipelined_evolve' cannot be enabled with the GENERATION new TGD structure, which evolves the TGDs generation by generation");
     }
 
     /**
@@ -139,6 +200,11 @@ public class SaturationAlgorithmConfiguration {
         return newTGDStructure;
     }
 
+    public void setNewTGDStructure(NewTGDStructure newTGDStructure) {
+        checkEvolveModes(pipelinedEvolve, parallelEvolve, newTGDStructure);
+        this.newTGDStructure = newTGDStructure;
+    }
+
     /**
      * In evolved based algorithms, the new TGDs can be subsumed by the TGDs
      * outputed by an evolve application on this new TGD and others TGDs. This
@@ -149,6 +215,115 @@ public class SaturationAlgorithmConfiguration {
         return stopEvolvingIfSubsumed;
     }
 
+    /**
+     * In evolved based algorithms, allows to evolve the currently processed TGD
+     * with its partners using several threads.
+     */
+    public boolean isParallelEvolveEnabled() {
+        return parallelEvolve;
+    }
+
+    public void setParallelEvolve(boolean parallelEvolve) {
+        checkEvolveModes(pipelinedEvolve, parallelEvolve, newTGDStructure);
+        this.parallelEvolve = parallelEvolve;
+    }
+
+    /**
+     * Allows to transform the input TGDs using several threads, the names of
+     * the fresh symbols introduced by the transformations may then depend on
+     * the scheduling of the threads.
+     */
+    public boolean isParallelTransformationEnabled() {
+        return parallelTransformation;
+    }
+
+    public void setParallelTransformation(boolean parallelTransformation) {
+        this.parallelTransformation = parallelTransformation;
+    }
+
+    /**
+     * Allows to build the indexes of the initial TGDs in bulk, instead of
+     * adding them one by one.
+     */
+    public boolean isBulkInitializationEnabled() {
+        return bulkInitialization;
+    }
+
+    public void setBulkInitialization(boolean bulkInitialization) {
+        this.bulkInitialization = bulkInitialization;
+    }
+
+    /**
+     * In evolved based algorithms, allows to evolve the new TGDs in separate
+     * threads, while the subsumption and the indexes are updated by the
+     * saturation thread. It cannot be enabled along with the parallel evolve
+     * or the GENERATION structure.
+     */
+    public boolean isPipelinedEvolveEnabled() {
+        return pipelinedEvolve;
+    }
+
+    public void setPipelinedEvolve(boolean pipelinedEvolve) {
+        checkEvolveModes(pipelinedEvolve, parallelEvolve, newTGDStructure);
+        this.pipelinedEvolve = pipelinedEvolve;
+    }
+
+    /**
+     * Capacity of the queues connecting the stages of the pipelined evolve
+     */
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = pipelineQueueSize;
+    }
+
+    /**
+     * Number of threads used by the parallel optimizations
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Type of the tables interning the TGDs created during a saturation
+     */
+    public InternTableType getInternTableType() {
+        return internTableType;
+    }
+
+    public void setInternTableType(InternTableType internTableType) {
+        this.internTableType = internTableType;
+    }
+
+    /**
+     * Maximal number of TGDs of each intern table, when the tables are LRU
+     */
+    public int getInternTableSize() {
+        return internTableSize;
+    }
+
+    public void setInternTableSize(int internTableSize) {
+        this.internTableSize = internTableSize;
+    }
+
+    /**
+     * Number of new TGDs whose backward subsumption is deferred and checked in
+     * a batch, the backward subsumption is immediate when it is not positive
+     */
+    public int getBackwardSubsumptionBatchSize() {
+        return backwardSubsumptionBatchSize;
+    }
+
+    public void setBackwardSubsumptionBatchSize(int backwardSubsumptionBatchSize) {
+        this.backwardSubsumptionBatchSize = backwardSubsumptionBatchSize;
+    }
+
     public boolean isDiscardUselessTGDEnabled() {
         return discardUselessTGD;
     }
@@ -161,6 +336,18 @@ public class SaturationAlgorithmConfiguration {
         return discardTautology;
     }
 
+    /**
+     * If true, the new TGDs that are variants of a TGD already added, up to the
+     * naming of their variables, are discarded before the subsumption checks
+     */
+    public boolean isVariantDiscarded() {
+        return discardVariant;
+    }
+
+    public void setVariantDiscarded(boolean discardVariant) {
+        this.discardVariant = discardVariant;
+    }
+
     public boolean isOrderedSkolemSatSelectSkolemBodyAtom() {
         return orderedSkolemSatSelectSkolemBodyAtom;
     }
@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import uk.ac.ox.cs.gsat.filters.FeatureVectorFilter;
+import uk.ac.ox.cs.gsat.filters.FingerprintFilter;
 import uk.ac.ox.cs.gsat.filters.FormulaFilter;
 import uk.ac.ox.cs.gsat.filters.IdentityFormulaFilter;
 import uk.ac.ox.cs.gsat.filters.MinAtomFilter;
@@ -14,8 +16,10 @@ import uk.ac.ox.cs.gsat.filters.MinPredicateFilter;
 import uk.ac.ox.cs.gsat.filters.TreePredicateFilter;
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.subsumers.ConcurrentSubsumer;
 import uk.ac.ox.cs.gsat.subsumers.DisabledSubsumer;
 import uk.ac.ox.cs.gsat.subsumers.ExactAtomSubsumer;
+import uk.ac.ox.cs.gsat.subsumers.HomomorphismSubsumer;
 import uk.ac.ox.cs.gsat.subsumers.SimpleSubsumer;
 import uk.ac.ox.cs.gsat.subsumers.Subsumer;
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -57,16 +61,15 @@ class SaturationUtils {
      */
     static <Q extends GTGD> boolean subsumed(Q tgd1, Q tgd2) {
 
-        var body1 = tgd1.getBodySet();
-        var headN = tgd1.getHeadSet();
-
-        var body = tgd2.getBodySet();
-        var head = tgd2.getHeadSet();
+        if (tgd1.getBodyAtoms().length < tgd2.getBodyAtoms().length
+                || tgd2.getHeadAtoms().length < tgd1.getHeadAtoms().length)
+            return false;
 
-        if (body1.size() < body.size() || head.size() < headN.size())
+        if (!TGD.mayBeContained(tgd2.getBodySignature(), tgd1.getBodySignature())
+                || !TGD.mayBeContained(tgd1.getHeadSignature(), tgd2.getHeadSignature()))
             return false;
 
-        if (body1.containsAll(body) && head.containsAll(headN))
+        if (tgd1.bodyContainsAll(tgd2) && tgd2.headContainsAll(tgd1))
             return true;
 
         return false;
@@ -136,6 +139,18 @@ class SaturationUtils {
             subsumer = new ExactAtomSubsumer<P>();
         } else if (subsumptionMethod.equals("disabled")) {
             subsumer = new DisabledSubsumer<P>();
+        } else if (subsumptionMethod.equals("concurrent_tree_predicate")) {
+            List<FormulaFilter<P>> stripes = new ArrayList<>();
+            for (int i = 0; i < config.getParallelism(); i++) {
+                FormulaFilter<P> filter = new TreePredicateFilter<P>(config);
+                filter.init(initialTGDs);
+                stripes.add(filter);
+            }
+            subsumer = new ConcurrentSubsumer<P>(stripes);
+        } else if (subsumptionMethod.equals("homomorphism")) {
+            FormulaFilter<P> filter = new TreePredicateFilter<P>(config);
+            filter.init(initialTGDs);
+            subsumer = new HomomorphismSubsumer<P>(filter);
         } else {
             FormulaFilter<P> filter;
             if (subsumptionMethod.equals("min_predicate")) {
@@ -144,6 +159,10 @@ class SaturationUtils {
                 filter = new MinAtomFilter<P>();
             } else if (subsumptionMethod.equals("tree_predicate")) {
                 filter = new TreePredicateFilter<P>(config);
+            } else if (subsumptionMethod.equals("feature_vector")) {
+                filter = new FeatureVectorFilter<P>();
+            } else if (subsumptionMethod.equals("fingerprint")) {
+                filter = new FingerprintFilter<P>();
             } else if (subsumptionMethod.equals("identity")) {
                 filter = new IdentityFormulaFilter<P>();
             } else {
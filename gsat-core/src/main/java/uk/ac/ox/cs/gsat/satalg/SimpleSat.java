@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 
 import uk.ac.ox.cs.gsat.Log;
 import uk.ac.ox.cs.gsat.api.SaturationAlgorithm;
@@ -16,6 +17,7 @@ import uk.ac.ox.cs.gsat.api.SaturationStatColumns;
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.gsat.fol.Logic;
 import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
 import uk.ac.ox.cs.gsat.fol.TGDFactory;
 import uk.ac.ox.cs.gsat.statistics.NullStatisticsCollector;
 import uk.ac.ox.cs.gsat.statistics.StatisticsCollector;
@@ -57,6 +59,22 @@ class SimpleSat implements SaturationAlgorithm {
      * @return the Guarded Saturation of allDependencies
      */
     public Collection<TGD> run(String processName, Collection<? extends Dependency> allDependencies) {
+        // the TGDs created during the run are interned in their own context,
+        // whose tables are released at the end of the run
+        TGDContext context = new TGDContext(config.getInternTableType(), config.getInternTableSize());
+        factory.setContext(context);
+        try (TGDContext.Binding binding = context.bind()) {
+            return runInContext(processName, allDependencies);
+        } finally {
+            statsCollector.put(processName, SaturationStatColumns.INTERN_HIT, context.getHitCount());
+            statsCollector.put(processName, SaturationStatColumns.INTERN_MISS, context.getMissCount());
+            statsCollector.put(processName, SaturationStatColumns.INTERN_EVICTION, context.getEvictionCount());
+            factory.setContext(null);
+            context.release();
+        }
+    }
+
+    private Collection<TGD> runInContext(String processName, Collection<? extends Dependency> allDependencies) {
 
         final long startTime = System.nanoTime();
         boolean timeoutReached = false;
@@ -258,7 +276,7 @@ class SimpleSat implements SaturationAlgorithm {
                     final TGD new_nftgd = (TGD) Logic.applySubstitution(nftgd, guardMGU);
                     final TGD new_ftgd = (TGD) Logic.applySubstitution(ftgd, guardMGU);
     
-                    final Set<Variable> new_nftgd_existentials = Set.of(new_nftgd.getExistential());
+                    final Set<Variable> new_nftgd_existentials = new_nftgd.getExistentialSet();
     
                     var new_nftgd_head_atoms = new_nftgd.getHeadSet();
                     var new_nftgd_body_atoms = new_nftgd.getBodySet();
@@ -301,16 +319,16 @@ class SimpleSat implements SaturationAlgorithm {
     
                     Log.GLOBAL.fine("Shead:" + Shead.toString());
     
-                    for (List<Atom> S : SaturationUtils.getProduct(Shead)) {
-    
-                        Log.GLOBAL.fine("Non-Full:" + new_nftgd.toString() + "\nFull:" + new_ftgd.toString() + "\nSbody:"
-                                        + Sbody + "\nS:" + S);
+                    // the sequences S of Shead are unified incrementally with Sbody,
+                    // so the sequences sharing a non unifiable prefix are skipped
+                    UnificationEnumerator enumerator = new UnificationEnumerator(Sbody, Shead, true);
+                    while (enumerator.next()) {
     
-                        Map<Term, Term> mgu = Logic.getVariableSubstitution(S, Sbody);
+                        if (Log.GLOBAL.isLoggable(Level.FINE))
+                            Log.GLOBAL.fine("Non-Full:" + new_nftgd.toString() + "\nFull:" + new_ftgd.toString() + "\nSbody:"
+                                            + Sbody + "\nS:" + enumerator.getChosenCandidates());
     
-                        if (mgu == null)
-                            // unification failed -> continue with next sequence
-                            continue;
+                        Map<Term, Term> mgu = enumerator.getMGU();
     
                         new_body.removeAll(Sbody);
     
@@ -0,0 +1,144 @@
+package uk.ac.ox.cs.gsat.satalg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.ox.cs.gsat.fol.Unifier;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Depth-first enumeration of the choices of a candidate atom for each atom of
+ * a list, such that all the atoms are unifiable with their chosen candidates.
+ * The atoms are unified incrementally, so a choice prefix, whose unification
+ * fails, is pruned without considering its extensions.
+ *
+ * The choices are enumerated in the order of the product of the candidate
+ * lists (see {@link SaturationUtils#getProduct(List)}) and the unifiers are the
+ * same as the ones computed by
+ * {@link uk.ac.ox.cs.gsat.fol.Logic#getVariableSubstitution(List, List)}.
+ */
+class UnificationEnumerator {
+
+    private final List<Atom> atoms;
+    private final List<? extends List<Atom>> candidates;
+    // if true, the candidate is the first argument of the unifications
+    private final boolean candidateFirst;
+    private final Unifier unifier = Unifier.create();
+    // chosen candidate for each position
+    private final int[] choices;
+    // mark of the unifier before the unification of each position
+    private final int[] marks;
+    private boolean started = false;
+    private int failureCount = 0;
+    private int pruneDepth = 0;
+
+    /**
+     * @param atoms          atoms to unify
+     * @param candidates     candidate atoms for each atom to unify
+     * @param candidateFirst if true, the candidates are unified with the atoms,
+     *                       otherwise the atoms are unified with the candidates
+     */
+    UnificationEnumerator(List<Atom> atoms, List<? extends List<Atom>> candidates, boolean candidateFirst) {
+        if (atoms.size() != candidates.size())
+            throw new IllegalArgumentException("Each atom to unify should have its list of candidates");
+
+        this.atoms = atoms;
+        this.candidates = candidates;
+        this.candidateFirst = candidateFirst;
+        this.choices = new int[atoms.size()];
+        this.marks = new int[atoms.size()];
+    }
+
+    /**
+     * Moves to the next choice of unifiable candidates, returns false if there
+     * is none.
+     */
+    boolean next() {
+        int last = atoms.size() - 1;
+        int position;
+
+        if (!started) {
+            started = true;
+            // the empty list is unified by the empty choice
+            if (last < 0)
+                return true;
+            position = 0;
+            marks[0] = unifier.mark();
+            choices[0] = -1;
+        } else {
+            position = last;
+        }
+
+        while (position >= 0) {
+            // undo the unification of the previous candidate of this position
+            unifier.rollback(marks[position]);
+            choices[position]++;
+
+            List<Atom> positionCandidates = candidates.get(position);
+            if (choices[position] >= positionCandidates.size()) {
+                // backtrack
+                position--;
+                continue;
+            }
+
+            Atom candidate = positionCandidates.get(choices[position]);
+            Atom atom = atoms.get(position);
+            boolean unified = (candidateFirst) ? unifier.unify(candidate, atom) : unifier.unify(atom, candidate);
+
+            if (unified) {
+                if (position == last)
+                    return true;
+
+                position++;
+                marks[position] = unifier.mark();
+                choices[position] = -1;
+            } else {
+                failureCount++;
+                pruneDepth += position + 1;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of failed unifications, each one pruning the choices
+     * sharing its prefix
+     */
+    int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the sum of the lengths of the pruned prefixes
+     */
+    int getPruneDepth() {
+        return pruneDepth;
+    }
+
+    /**
+     * Returns the index of the candidate chosen for the atom at the position
+     */
+    int getChoice(int position) {
+        return choices[position];
+    }
+
+    /**
+     * Returns the chosen candidates
+     */
+    List<Atom> getChosenCandidates() {
+        List<Atom> result = new ArrayList<>(atoms.size());
+        for (int position = 0; position < atoms.size(); position++)
+            result.add(candidates.get(position).get(choices[position]));
+        return result;
+    }
+
+    /**
+     * Returns the MGU of the atoms and their chosen candidates
+     */
+    Map<Term, Term> getMGU() {
+        return unifier.getSubstitution();
+    }
+}
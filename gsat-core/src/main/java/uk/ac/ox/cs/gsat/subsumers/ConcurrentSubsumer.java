@@ -0,0 +1,150 @@
+package uk.ac.ox.cs.gsat.subsumers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import uk.ac.ox.cs.gsat.filters.FormulaFilter;
+import uk.ac.ox.cs.gsat.fol.TGD;
+
+/**
+ * A thread-safe version of {@link SimpleSubsumer}. The tgds are spread among
+ * several stripes, each one having its own filter protected by a read-write
+ * lock. Hence, the subsumption checks can run concurrently, while the additions
+ * only lock the stripe of the added tgd.
+ *
+ * The stripes are checked one after the other, so a tgd added to a stripe
+ * during a subsumption check may be missed by this check. It only makes the
+ * subsumption less complete, the subsumer remains sound.
+ */
+public class ConcurrentSubsumer<Q extends TGD> implements Subsumer<Q> {
+
+    private final List<FormulaFilter<Q>> stripes;
+    private final List<ReadWriteLock> locks;
+    private final LongAdder num_filter_discarded = new LongAdder(), num_subsumed = new LongAdder();
+
+    /**
+     * @param stripes initialized filters, one per stripe
+     */
+    public ConcurrentSubsumer(List<? extends FormulaFilter<Q>> stripes) {
+        if (stripes.isEmpty())
+            throw new IllegalArgumentException("A concurrent subsumer requires at least one stripe");
+
+        this.stripes = new ArrayList<>(stripes);
+        this.locks = new ArrayList<>();
+        for (int i = 0; i < stripes.size(); i++)
+            this.locks.add(new ReentrantReadWriteLock());
+    }
+
+    @Override
+    public Collection<Q> subsumesAny(Q newTGD) {
+        Collection<Q> subsumed = new HashSet<>();
+
+        for (int i = 0; i < stripes.size(); i++) {
+            FormulaFilter<Q> filter = stripes.get(i);
+            Collection<Q> stripeSubsumed = new ArrayList<>();
+
+            locks.get(i).writeLock().lock();
+            try {
+                for (Q tgd : filter.getSubsumedCandidates(newTGD)) {
+                    if (tgd.equals(newTGD))
+                        continue;
+                    if (SimpleSubsumer.isSubsumedBy(tgd, newTGD)) {
+                        num_subsumed.increment();
+                        stripeSubsumed.add(tgd);
+                    } else {
+                        num_filter_discarded.increment();
+                    }
+                }
+                filter.removeAll(stripeSubsumed);
+            } finally {
+                locks.get(i).writeLock().unlock();
+            }
+
+            subsumed.addAll(stripeSubsumed);
+        }
+
+        return subsumed;
+    }
+
+    @Override
+    public boolean subsumed(Q newTGD) {
+        for (int i = 0; i < stripes.size(); i++) {
+            locks.get(i).readLock().lock();
+            try {
+                for (Q tgd : stripes.get(i).getSubsumingCandidates(newTGD)) {
+                    if (SimpleSubsumer.isSubsumedBy(newTGD, tgd)) {
+                        num_subsumed.increment();
+                        return true;
+                    } else {
+                        num_filter_discarded.increment();
+                    }
+                }
+            } finally {
+                locks.get(i).readLock().unlock();
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void add(Q newTGD) {
+        int stripe = Math.floorMod(newTGD.hashCode(), stripes.size());
+
+        locks.get(stripe).writeLock().lock();
+        try {
+            stripes.get(stripe).add(newTGD);
+        } finally {
+            locks.get(stripe).writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Q> newTGDs) {
+        List<List<Q>> stripeTGDs = new ArrayList<>();
+        for (int i = 0; i < stripes.size(); i++)
+            stripeTGDs.add(new ArrayList<>());
+        for (Q newTGD : newTGDs)
+            stripeTGDs.get(Math.floorMod(newTGD.hashCode(), stripes.size())).add(newTGD);
+
+        for (int i = 0; i < stripes.size(); i++) {
+            locks.get(i).writeLock().lock();
+            try {
+                stripes.get(i).addAll(stripeTGDs.get(i));
+            } finally {
+                locks.get(i).writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Collection<Q> getAll() {
+        Collection<Q> all = new HashSet<>();
+
+        for (int i = 0; i < stripes.size(); i++) {
+            locks.get(i).readLock().lock();
+            try {
+                all.addAll(stripes.get(i).getAll());
+            } finally {
+                locks.get(i).readLock().unlock();
+            }
+        }
+
+        return all;
+    }
+
+    @Override
+    public long getNumberSubsumed() {
+        return num_subsumed.sum();
+    }
+
+    @Override
+    public long getFilterDiscarded() {
+        return num_filter_discarded.sum();
+    }
+}
@@ -110,15 +110,16 @@ public class ExactAtomSubsumer<Q extends TGD> implements Subsumer<Q> {
 
             else {
                 // if element appears in nextBody, it should also appear in hashes
-                if (topNode.currentFormula != null)
+                if (topNode.currentFormula != null && !topNode.currentFormula.equals(formula)) {
                     answer.add(topNode.currentFormula);
+                    topNode.currentFormula = null;
+                }
                 for (int i = topIndex; i < headHashes.length; i++) {
                     if (topNode.nextHead.containsKey(headHashes[i])) {
                         traversing.push(new IntNodePair(i + 1, topNode.nextHead.get(headHashes[i])));
                         reversedTraversal.push(new IntNodePair(headHashes[i] * 2 + 1, topNode));
                     }
                 }
-                topNode.currentFormula = null;
             }
         }
         // discard deleted nodes
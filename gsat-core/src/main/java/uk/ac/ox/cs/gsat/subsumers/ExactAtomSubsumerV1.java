@@ -99,13 +99,14 @@ public class ExactAtomSubsumerV1<Q extends TGD> implements Subsumer<Q> {
 
             else {
                 // if element appears in nextBody, it should also appear in hashes
-                if (topNode.currentFormula != null)
+                if (topNode.currentFormula != null && !topNode.currentFormula.equals(formula)) {
                     answer.add(topNode.currentFormula);
+                    topNode.currentFormula = null;
+                }
                 for (int i = topIndex; i < headHashes.length; i++) {
                     if (topNode.nextHead.containsKey(headHashes[i]))
                         traversing.push(new IntNodePair(i + 1, topNode.nextHead.get(headHashes[i])));
                 }
-                topNode.currentFormula = null;
             }
         }
         return answer;
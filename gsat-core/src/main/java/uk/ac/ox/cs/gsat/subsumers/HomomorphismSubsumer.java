@@ -0,0 +1,186 @@
+package uk.ac.ox.cs.gsat.subsumers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.ox.cs.gsat.filters.FormulaFilter;
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * A subsumer that uses an index to filter out only candidates for subsumption,
+ * then identifies tgd a as subsumed by tgd b if there is a substitution s of
+ * the universal variables of b, such that s(b.body) is contained in a.body and
+ * a.head is contained in s(b.head). Unlike {@link SimpleSubsumer}, it detects
+ * the variants and the instances of the tgds under another variable naming.
+ *
+ * The existential variables of b are left unchanged by the substitution, so
+ * they should not occur in the body of a. Since the predicates are preserved by
+ * the substitutions, a filter based on the predicates, like
+ * TreePredicateFilter, overapproximates this subsumption.
+ */
+public class HomomorphismSubsumer<Q extends TGD> extends SimpleSubsumer<Q> {
+
+    public HomomorphismSubsumer(FormulaFilter<Q> filter) {
+        super(filter);
+    }
+
+    @Override
+    protected boolean checkSubsumption(TGD tgd, TGD other) {
+        return isSubsumedBy(tgd, other) || isHomomorphicallySubsumedBy(tgd, other);
+    }
+
+    /**
+     * Returns true iff there is a substitution of the universal variables of
+     * other, mapping the body of other into the body of tgd and the head of
+     * other onto a superset of the head of tgd.
+     */
+    static boolean isHomomorphicallySubsumedBy(TGD tgd, TGD other) {
+        Set<Atom> body = tgd.getBodySet();
+        Set<Atom> otherBody = other.getBodySet();
+        Set<Atom> otherHead = other.getHeadSet();
+
+        // the image of the head of other has at most as many atoms as it
+        if (otherHead.size() < tgd.getHeadSet().size())
+            return false;
+
+        // each predicate of the head of tgd should appear in the head of other
+        if (!TGD.containsAll(other.getHeadPredicateHashes(), tgd.getHeadPredicateHashes()))
+            return false;
+
+        // the body atoms of tgd, which each body atom of other may be mapped to
+        Map<Predicate, List<Atom>> bodyByPredicate = new HashMap<>();
+        for (Atom atom : body)
+            bodyByPredicate.computeIfAbsent(atom.getPredicate(), p -> new ArrayList<>()).add(atom);
+
+        Atom[] patterns = otherBody.toArray(new Atom[otherBody.size()]);
+        for (Atom pattern : patterns)
+            if (!bodyByPredicate.containsKey(pattern.getPredicate()))
+                return false;
+
+        Set<Variable> existentials = other.getExistentialSet();
+        if (!existentials.isEmpty()) {
+            Set<Variable> bodyVariables = new HashSet<>();
+            for (Atom atom : body)
+                for (Term term : atom.getTerms())
+                    collectVariables(term, bodyVariables);
+            for (Variable variable : existentials)
+                if (bodyVariables.contains(variable))
+                    return false;
+        }
+
+        // the atoms having the fewest candidates are matched first
+        Arrays.sort(patterns,
+                (a, b) -> bodyByPredicate.get(a.getPredicate()).size() - bodyByPredicate.get(b.getPredicate()).size());
+
+        return new Matcher(tgd, other, existentials, bodyByPredicate).matchBody(patterns, 0);
+    }
+
+    private static void collectVariables(Term term, Set<Variable> variables) {
+        if (term.isVariable())
+            variables.add((Variable) term);
+        else if (term instanceof FunctionTerm)
+            for (Term subterm : ((FunctionTerm) term).getTerms())
+                collectVariables(subterm, variables);
+    }
+
+    /**
+     * Backtracking search of a substitution of the variables of a tgd, whose
+     * bindings are undone using a trail
+     */
+    private static class Matcher {
+        private final TGD tgd;
+        private final TGD other;
+        // variables left unchanged by the substitution
+        private final Set<Variable> fixed;
+        private final Map<Predicate, List<Atom>> bodyByPredicate;
+        private final Map<Variable, Term> bindings = new HashMap<>();
+        private final List<Variable> trail = new ArrayList<>();
+
+        Matcher(TGD tgd, TGD other, Set<Variable> fixed, Map<Predicate, List<Atom>> bodyByPredicate) {
+            this.tgd = tgd;
+            this.other = other;
+            this.fixed = fixed;
+            this.bodyByPredicate = bodyByPredicate;
+        }
+
+        // maps the patterns from the depth into the body of tgd, then checks the heads
+        boolean matchBody(Atom[] patterns, int depth) {
+            if (depth == patterns.length)
+                return matchHead();
+
+            Atom pattern = patterns[depth];
+            for (Atom atom : bodyByPredicate.get(pattern.getPredicate())) {
+                int mark = trail.size();
+                if (match(pattern.getTerms(), atom.getTerms()) && matchBody(patterns, depth + 1))
+                    return true;
+                rollback(mark);
+            }
+            return false;
+        }
+
+        // checks that each head atom of tgd is the image of a head atom of other
+        private boolean matchHead() {
+            for (Atom atom : tgd.getHeadSet()) {
+                boolean found = false;
+                for (Atom pattern : other.getHeadSet()) {
+                    if (!pattern.getPredicate().equals(atom.getPredicate()))
+                        continue;
+                    int mark = trail.size();
+                    found = match(pattern.getTerms(), atom.getTerms());
+                    rollback(mark);
+                    if (found)
+                        break;
+                }
+                if (!found)
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean match(Term[] patterns, Term[] terms) {
+            if (patterns.length != terms.length)
+                return false;
+
+            for (int i = 0; i < patterns.length; i++)
+                if (!match(patterns[i], terms[i]))
+                    return false;
+            return true;
+        }
+
+        private boolean match(Term pattern, Term term) {
+            if (pattern.isVariable() && !fixed.contains(pattern)) {
+                Term bound = bindings.get(pattern);
+                if (bound != null)
+                    return bound.equals(term);
+                bindings.put((Variable) pattern, term);
+                trail.add((Variable) pattern);
+                return true;
+            }
+
+            if (pattern instanceof FunctionTerm) {
+                if (!(term instanceof FunctionTerm))
+                    return false;
+                FunctionTerm patternFunction = (FunctionTerm) pattern, termFunction = (FunctionTerm) term;
+                return patternFunction.getFunction().equals(termFunction.getFunction())
+                        && match(patternFunction.getTerms(), termFunction.getTerms());
+            }
+
+            return pattern.equals(term);
+        }
+
+        private void rollback(int mark) {
+            for (int i = trail.size() - 1; i >= mark; i--)
+                bindings.remove(trail.remove(i));
+        }
+    }
+}
@@ -25,19 +25,10 @@ public class SimpleSubsumer<Q extends TGD> implements Subsumer<Q> {
     public Collection<Q> subsumesAny(Q newTGD) {
         Collection<Q> subsumed = new HashSet<>();
 
-        var bodyN = newTGD.getBodySet();
-        var headN = newTGD.getHeadSet();
-
         for (Q tgd : filter.getSubsumedCandidates(newTGD)) {
-            var body = tgd.getBodySet();
-            var head = tgd.getHeadSet();
-
-            if (body.size() < bodyN.size() || headN.size() < head.size()) {
-                num_filter_discarded += 1;
+            if (tgd.equals(newTGD))
                 continue;
-            }
-
-            if (body.containsAll(bodyN) && headN.containsAll(head)) {
+            if (checkSubsumption(tgd, newTGD)) {
                 num_subsumed += 1;
                 subsumed.add(tgd);
             } else {
@@ -54,18 +45,8 @@ public class SimpleSubsumer<Q extends TGD> implements Subsumer<Q> {
 
     @Override
     public boolean subsumed(Q newTGD) {
-        var bodyN = newTGD.getBodySet();
-        var headN = newTGD.getHeadSet();
         for (Q tgd : filter.getSubsumingCandidates(newTGD)) {
-            var body = tgd.getBodySet();
-            var head = tgd.getHeadSet();
-
-            if (bodyN.size() < body.size() || head.size() < headN.size()) {
-                num_filter_discarded += 1;
-                continue;
-            }
-
-            if (bodyN.containsAll(body) && head.containsAll(headN)) {
+            if (checkSubsumption(newTGD, tgd)) {
                 num_subsumed += 1;
                 // System.out.println("subsuming " + candidatesCount + "  " + 0 + "  " + (System.nanoTime() - start) + "ns");
                 return true;
@@ -78,10 +59,41 @@ public class SimpleSubsumer<Q extends TGD> implements Subsumer<Q> {
         return false;
     }
 
+    /**
+     * Returns true iff the candidate tgd is subsumed by other, by default using
+     * the syntactic subsumption
+     */
+    protected boolean checkSubsumption(TGD tgd, TGD other) {
+        return isSubsumedBy(tgd, other);
+    }
+
+    /**
+     * Returns true iff tgd is syntactically subsumed by other, that is the head
+     * of tgd is contained in the one of other and the body of other is contained
+     * in the one of tgd.
+     */
+    public static boolean isSubsumedBy(TGD tgd, TGD other) {
+        if (tgd.getBodyAtoms().length < other.getBodyAtoms().length
+                || other.getHeadAtoms().length < tgd.getHeadAtoms().length)
+            return false;
+
+        // the containments are first tested on the Bloom signatures
+        if (!TGD.mayBeContained(other.getBodySignature(), tgd.getBodySignature())
+                || !TGD.mayBeContained(tgd.getHeadSignature(), other.getHeadSignature()))
+            return false;
+
+        return tgd.bodyContainsAll(other) && other.headContainsAll(tgd);
+    }
+
     public void add(Q newTGD) {
         filter.add(newTGD);
     }
 
+    @Override
+    public void addAll(Collection<Q> newTGDs) {
+        filter.addAll(newTGDs);
+    }
+
     public Collection<Q> getAll() {
         return filter.getAll();
     }
@@ -11,7 +11,8 @@ import uk.ac.ox.cs.gsat.fol.TGD;
  */
 public interface Subsumer<Q extends TGD> {
     /**
-     * Removes from S any tgds that are subsumed by {@code tgd}. Updates the counts
+     * Removes from S any tgds, other than {@code tgd} itself, that are subsumed by
+     * {@code tgd}. Updates the counts
      * for number of filtered elements if an index is used. Increments number of
      * subsumed elements by the size of the returned set.
      * 
@@ -33,6 +34,14 @@ public interface Subsumer<Q extends TGD> {
      */
     public void add(Q tgd);
 
+    /**
+     * Adds {@code tgds} to S, without checking the subsumption between them
+     */
+    default public void addAll(Collection<Q> tgds) {
+        for (Q tgd : tgds)
+            add(tgd);
+    }
+
     /**
      * This does not need to be efficient. It is intended to be called at most once
      * at the end of the algorithm, or for debugging.
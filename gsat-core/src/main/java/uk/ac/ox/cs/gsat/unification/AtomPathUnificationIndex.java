@@ -1,11 +1,19 @@
 package uk.ac.ox.cs.gsat.unification;
 
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -21,10 +29,22 @@ import uk.ac.ox.cs.pdq.fol.Term;
  * specialised for our usage: 
  * the "terms" we consider are atoms, where the predicate can be considered as a function symbol,
  *    therefore all our paths will start with a predicate symbol
+ *
+ * Each indexed TGD gets a dense integer id and the nodes store the ids of
+ * their TGDs in compressed bitmaps, so that the intersections and unions of
+ * the retrieval are word-wise operations. The returned sets are views
+ * decoding the ids on demand.
  */
 public class AtomPathUnificationIndex<Q extends GTGD> implements UnificationIndex<Q> {
 
-    private final Node<Q> root;
+    private final Node root;
+
+    // ids of the indexed TGDs and the TGDs indexed by their ids
+    private final Map<Q, Integer> ids = new HashMap<>();
+    private final List<Q> tgds = new ArrayList<>();
+    // atoms indexed for each id, the id is released once they are all removed
+    private final List<List<Atom>> indexedAtoms = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
 
     public AtomPathUnificationIndex() {
         this.root = Node.createRoot();
@@ -34,13 +54,28 @@ public class AtomPathUnificationIndex<Q extends GTGD> implements UnificationInde
     public Set<Q> get(Atom atom) {
 
         Predicate p = atom.getPredicate();
-        Node<Q> pNode = this.root.lookup_s(p);
+        Node pNode = this.root.lookup_s(p);
         if (pNode != null) {
 
             Term[] terms = atom.getTerms();
-            return get(pNode, terms);
+            return new CandidateSet(get(pNode, terms));
         } else {
-            return new HashSet<>();
+            return new CandidateSet(new RoaringBitmap());
+        }
+    }
+
+    @Override
+    public void forEachCandidate(Atom atom, Consumer<? super Q> consumer) {
+        Node pNode = this.root.lookup_s(atom.getPredicate());
+        if (pNode == null)
+            return;
+
+        PrimitiveIterator.OfInt idIterator = get(pNode, atom.getTerms()).iterator();
+        while (idIterator.hasNext()) {
+            Q tgd = tgds.get(idIterator.nextInt());
+            // the released ids are skipped
+            if (tgd != null)
+                consumer.accept(tgd);
         }
     }
 
@@ -48,123 +83,139 @@ public class AtomPathUnificationIndex<Q extends GTGD> implements UnificationInde
     // where s is function or predicate symbol
     // terms are [t1, ..., tn]
     // it computes the GetUnifiables(P, s(t1, ..., tn))
-    public Set<Q> get(Node<Q> node, Term[] terms) {
+    // the returned bitmap may belong to a node, so it must not be modified
+    RoaringBitmap get(Node node, Term[] terms) {
 
-        boolean containsAtLeastOneFunctionTermOrConstant = false;
-        for (Term t : terms) {
-            if (t instanceof FunctionTerm || t instanceof Constant) {
-                containsAtLeastOneFunctionTermOrConstant = true;
-                break;
+        // represents GetUnifiables(P, s(t1, ..., tn)) = intersection_i
+        // GetUnifiables(P.s.i, ti)
+        RoaringBitmap candidates = null;
+        for (int i = 0; i < terms.length; i++) {
+            Term t = terms[i];
+            if (t.isVariable()) {
+                // in this case GetUnifiables(P.s.i, ti) = Terms
+                // so it will not change the intersection
+                continue;
             }
-        }
-
-        // we distinguish two cases whether there is a function term
-        // among the terms
-        if (containsAtLeastOneFunctionTermOrConstant) {
 
-            // we instantiate the candidate set with the first candidate
-            // in order to compute the intersection
-            // represents GetUnifiables(P, s(t1, ..., tn)) = intersection_i
-            // GetUnifiables(P.s.i, ti)
-            Set<Q> candidates = null;
+            Node iNode = node.lookup_i(i);
             // the tCandidates are the candidates for unfications for the path
             // tCandidates represents GetUnifiables(P.s.i, ti)
-            Set<Q> tCandidates = new HashSet<>();
-            for (int i = 0; i < terms.length; i++) {
-                Term t = terms[i];
-                if (t.isVariable()) {
-                    // in this case GetUnifiables(P.s.i, ti) = Terms
-                    // so it will not change the intersection
-                    continue;
-                }
-
-                Node<Q> iNode = node.lookup_i(i);
-                
-                if (t instanceof FunctionTerm) {
-                    Function f = ((FunctionTerm) t).getFunction();
+            RoaringBitmap tCandidates;
 
-                    //GetUnifiables(P.s.i, f(u1, ...,uk)) = GetTerms(P.s.i, *) U
-                    // \cap_j GetUnifiables(P.s.i.f.j, uj)
-
-                    // add GetTerms(P.s.i, *)
-                    tCandidates.addAll(iNode.getTGDs());
-
-                    Node<Q> fNode = iNode.lookup_s(f);
-                    if (fNode != null) {
-                        // add \cap_j GetUnifiables(P.s.i.f.j, uj)
-                        tCandidates.addAll(get(fNode, ((FunctionTerm)t).getTerms()));
-                    }
-                }  else if (t instanceof Constant) {
-                    // GetUnifiables(P.s.i, c) = GetTerms(P.s.i, *) U GetTerms(P.s.i, c)
-
-                    // add GetTerms(P.s.i, *)
-                    tCandidates.addAll(iNode.getTGDs());
+            if (t instanceof FunctionTerm) {
+                Function f = ((FunctionTerm) t).getFunction();
 
-                    Node<Q> cNode = iNode.lookup_s(t);
-                    if (cNode != null)
-                        tCandidates.addAll(cNode.getTGDs());
-                }
+                //GetUnifiables(P.s.i, f(u1, ...,uk)) = GetTerms(P.s.i, *) U
+                // \cap_j GetUnifiables(P.s.i.f.j, uj)
+                Node fNode = iNode.lookup_s(f);
+                tCandidates = union(iNode.getTGDs(), (fNode != null) ? get(fNode, ((FunctionTerm) t).getTerms()) : null);
+            } else {
+                // GetUnifiables(P.s.i, c) = GetTerms(P.s.i, *) U GetTerms(P.s.i, c)
+                Node cNode = iNode.lookup_s(t);
+                tCandidates = union(iNode.getTGDs(), (cNode != null) ? cNode.getTGDs() : null);
+            }
 
-                if (candidates != null)
-                    candidates.retainAll(tCandidates);
-                else
-                    candidates = new HashSet<>(tCandidates);
+            candidates = (candidates != null) ? RoaringBitmap.and(candidates, tCandidates) : tCandidates;
+            if (candidates.isEmpty())
+                return candidates;
+        }
 
-                tCandidates.clear();
-            }
+        if (candidates != null)
             return candidates;
-        } else {
+        else
             // GetUnifiables(<>, p(x1, ..., xn)) = GetTerms(<>, *) U GetTerms(<>, p)
             // GetTerms(<>, *) is empty, since every terms start with a predicate symbol
             return node.getTGDs();
-        }
+    }
+
+    // returns the union of the bitmaps, without copying them if one is empty
+    private static RoaringBitmap union(RoaringBitmap a, RoaringBitmap b) {
+        if (b == null || b.isEmpty())
+            return a;
+        if (a.isEmpty())
+            return b;
+
+        RoaringBitmap result = a.copy();
+        result.or(b);
+        return result;
     }
 
     @Override
     public void put(Atom atom, Q tgd) {
+        put(atom, getOrCreateId(tgd));
+    }
+
+    /**
+     * Assigns the ids of the TGDs before putting their atoms by increasing ids,
+     * so that the ids are appended at the end of the bitmaps of the nodes
+     */
+    @Override
+    public void putAll(Collection<Q> tgds, java.util.function.Function<? super Q, Atom[]> atoms) {
+        int[] tgdIds = new int[tgds.size()];
+        List<Q> ordered = new ArrayList<>(tgds);
+        for (int i = 0; i < tgdIds.length; i++)
+            tgdIds[i] = getOrCreateId(ordered.get(i));
+
+        // the released ids that were reused may be smaller than the others
+        Integer[] positions = new Integer[tgdIds.length];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = i;
+        Arrays.sort(positions, (a, b) -> Integer.compare(tgdIds[a], tgdIds[b]));
+
+        for (int position : positions)
+            for (Atom atom : atoms.apply(ordered.get(position)))
+                put(atom, tgdIds[position]);
+    }
+
+    private void put(Atom atom, int id) {
+        indexedAtoms.get(id).add(atom);
+        putPaths(atom, id);
+    }
+
+    private void putPaths(Atom atom, int id) {
 
         Predicate p = atom.getPredicate();
-        Node<Q> pNode = this.root.lookup_s(p);
+        Node pNode = this.root.lookup_s(p);
 
         if (pNode == null) {
-            pNode = new Node<>(p.getArity());
+            pNode = new Node(p.getArity());
             this.root.put_s(p, pNode);
         }
 
-        pNode.add(tgd);
-        put(pNode, atom.getTerms(), tgd);
+        pNode.add(id);
+        put(pNode, atom.getTerms(), id);
     }
 
     // recurve function to add tgd to a node corresponding to the path P.i.ti where
     // ti is in terms at the index i
-    private void put(Node<Q> node, Term[] terms, Q tgd) {
+    private void put(Node node, Term[] terms, int id) {
 
         for (int i = 0; i < terms.length; i++) {
             Term t = terms[i];
-            Node<Q> iNode = node.lookup_i(i);
+            Node iNode = node.lookup_i(i);
             if (t instanceof FunctionTerm) {
                 Function f = ((FunctionTerm) t).getFunction();
-                Node<Q> fNode = iNode.lookup_s(f);
+                Node fNode = iNode.lookup_s(f);
                 if (fNode == null) {
-                    fNode = new Node<>(f.getArity());
-                    // we recursively add tgd using the subterms
-                    put(fNode, ((FunctionTerm) t).getTerms(), tgd);
+                    fNode = new Node(f.getArity());
                     iNode.put_s(f, fNode);
                 }
+                // we recursively add tgd using the subterms
+                put(fNode, ((FunctionTerm) t).getTerms(), id);
                 // we add tgd to the set corresponding to GetTerms(P.i, f)
-                fNode.add(tgd);
+                fNode.add(id);
             } else if (t instanceof Constant) {
                 Constant c = (Constant) t;
-                Node<Q> cNode = iNode.lookup_s(c);
+                Node cNode = iNode.lookup_s(c);
                 if (cNode == null) {
                     cNode = Node.createLeaf();
                     iNode.put_s(c, cNode);
                 }
                 // we add tgd to the set corresponding to GetTerms(P.i, c)
-                cNode.add(tgd);
+                cNode.add(id);
             } else {
                 // we add tgd to the set corresponding to GetTerms(P.i, *)
-                iNode.add(tgd);
+                iNode.add(id);
             }
         }
 
@@ -172,104 +223,208 @@ public class AtomPathUnificationIndex<Q extends GTGD> implements UnificationInde
 
     @Override
     public void remove(Atom atom, Q tgd) {
+        Integer id = ids.get(tgd);
+        if (id == null)
+            return;
+
+        List<Atom> atoms = indexedAtoms.get(id);
+        if (!atoms.remove(atom))
+            return;
+
+        removePaths(atom, id);
+        if (atoms.isEmpty()) {
+            releaseId(tgd, id);
+        } else {
+            // the other atoms of the TGD may share some paths with the removed
+            // one, so their paths are restored
+            for (Atom other : atoms)
+                putPaths(other, id);
+        }
+    }
+
+    private void removePaths(Atom atom, int id) {
         Predicate p = atom.getPredicate();
-        Node<Q> pNode = this.root.lookup_s(p);
+        Node pNode = this.root.lookup_s(p);
 
         if (pNode == null)
             return;
 
-        pNode.remove(tgd);
+        pNode.remove(id);
 
         if (pNode.isEmpty()) {
             this.root.remove(p, pNode);
         } else {
             Term[] terms = atom.getTerms();
-            remove(pNode, terms, tgd);
+            remove(pNode, terms, id);
         }
     }
 
-    public void remove(Node<Q> node, Term[] terms, Q tgd) {
+    void remove(Node node, Term[] terms, int id) {
         for (int i = 0; i < terms.length; i++) {
             Term t = terms[i];
-            Node<Q> iNode = node.lookup_i(i);
+            Node iNode = node.lookup_i(i);
             if (t instanceof FunctionTerm) {
                 Function f = ((FunctionTerm) t).getFunction();
-                Node<Q> fNode = iNode.lookup_s(f);
+                Node fNode = iNode.lookup_s(f);
                 if (fNode != null) {
-                    fNode.remove(tgd);
-                    remove(fNode, ((FunctionTerm) t).getTerms(), tgd);
+                    fNode.remove(id);
+                    remove(fNode, ((FunctionTerm) t).getTerms(), id);
                     if (fNode.isEmpty())
                         iNode.remove(f, fNode);
                 }
             } else if (t instanceof Constant) {
                 Constant c = (Constant) t;
-                Node<Q> cNode = iNode.lookup_s(c);
-                cNode.remove(tgd);
-                if (cNode.isEmpty())
-                    iNode.remove(c, cNode);
+                Node cNode = iNode.lookup_s(c);
+                if (cNode != null) {
+                    cNode.remove(id);
+                    if (cNode.isEmpty())
+                        iNode.remove(c, cNode);
+                }
             } else {
-                iNode.remove(tgd);
+                iNode.remove(id);
             }
         }
     }
 
-    static class Node<P extends GTGD> {
+    private int getOrCreateId(Q tgd) {
+        Integer id = ids.get(tgd);
+        if (id != null)
+            return id;
+
+        if (freeIds.isEmpty()) {
+            id = tgds.size();
+            tgds.add(tgd);
+            indexedAtoms.add(new ArrayList<>(2));
+        } else {
+            id = freeIds.pop();
+            tgds.set(id, tgd);
+        }
+        ids.put(tgd, id);
+        return id;
+    }
+
+    private void releaseId(Q tgd, int id) {
+        ids.remove(tgd);
+        tgds.set(id, null);
+        freeIds.push(id);
+    }
+
+    /**
+     * Read-only view of the TGDs whose ids are in a bitmap, the released ids
+     * are skipped
+     */
+    private class CandidateSet extends AbstractSet<Q> {
+
+        private final RoaringBitmap bitmap;
+        private int size = -1;
+
+        CandidateSet(RoaringBitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = ids.get(o);
+            return id != null && bitmap.contains(id);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                size = 0;
+                for (Iterator<Q> iterator = iterator(); iterator.hasNext(); iterator.next())
+                    size++;
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<Q> iterator() {
+            PrimitiveIterator.OfInt idIterator = bitmap.iterator();
+            return new Iterator<Q>() {
+                private Q next = null;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && idIterator.hasNext())
+                        next = tgds.get(idIterator.nextInt());
+                    return next != null;
+                }
+
+                @Override
+                public Q next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    Q result = next;
+                    next = null;
+                    return result;
+                }
+            };
+        }
+    }
+
+    static class Node {
 
         // integer lookup operator
-        private final List<Node<P>> ilp;
+        private final List<Node> ilp;
         // predicate symbols lookup operator
-        private final Map<Object, Node<P>> slp;
+        private final Map<Object, Node> slp;
 
-        // tgds selected by the path of the node
-        private final Set<P> tgds;
+        // ids of the tgds selected by the path of the node
+        private final RoaringBitmap tgds;
 
-        public static <T extends GTGD> Node<T> createLeaf() {
-            return new Node<T>(null, null);
+        public static Node createLeaf() {
+            return new Node(null, null);
         }
 
-        public static <T extends GTGD> Node<T> createRoot() {
-            return new Node<T>(null, new HashMap<>());
+        public static Node createRoot() {
+            return new Node(null, new HashMap<>());
         }
 
-        private Node(List<Node<P>> ilp, Map<Object, Node<P>> pslp) {
+        private Node(List<Node> ilp, Map<Object, Node> pslp) {
             this.ilp = ilp;
             this.slp = pslp;
 
-            this.tgds = new HashSet<>();
+            this.tgds = new RoaringBitmap();
         }
 
         Node(int arity) {
-            this(new ArrayList<Node<P>>(arity), null);
+            this(new ArrayList<Node>(arity), null);
 
             for (int i = 0; i < arity; i++)
-                this.ilp.add(new Node<>(null, new HashMap<>()));
+                this.ilp.add(new Node(null, new HashMap<>()));
         }
 
-        void put_s(Object p, Node<P> n) {
+        void put_s(Object p, Node n) {
             this.slp.put(p, n);
         }
 
-        Node<P> lookup_s(Object p) {
+        Node lookup_s(Object p) {
             return this.slp.get(p);
         }
 
-        public Node<P> lookup_i(int i) {
+        public Node lookup_i(int i) {
             return this.ilp.get(i);
         }
 
-        public Set<P> getTGDs() {
+        public RoaringBitmap getTGDs() {
             return this.tgds;
         }
 
-        void add(P tgd) {
-            this.tgds.add(tgd);
+        boolean add(int id) {
+            return this.tgds.add(id);
         }
 
-        void remove(P tgd) {
-            this.tgds.remove(tgd);
+        boolean remove(int id) {
+            return this.tgds.remove(id);
         }
 
-        public void remove(Object s, Node<P> pNode) {
+        public void remove(Object s, Node pNode) {
             this.slp.remove(s, pNode);
         }
 
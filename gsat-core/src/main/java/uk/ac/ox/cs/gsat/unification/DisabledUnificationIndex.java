@@ -2,6 +2,7 @@ package uk.ac.ox.cs.gsat.unification;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -19,6 +20,11 @@ public class DisabledUnificationIndex<Q extends GTGD> implements UnificationInde
         return tgds;
     }
 
+    @Override
+    public void forEachCandidate(Atom atom, Consumer<? super Q> consumer) {
+        tgds.forEach(consumer);
+    }
+
     @Override
     public void put(Atom atom, Q tgd) {
         this.tgds.add(tgd);
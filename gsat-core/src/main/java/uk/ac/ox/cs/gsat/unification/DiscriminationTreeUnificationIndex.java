@@ -0,0 +1,299 @@
+package uk.ac.ox.cs.gsat.unification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.ox.cs.gsat.fol.GTGD;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Constant;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Term;
+
+/**
+ * Implementation of a discrimination tree unification index, in which the
+ * atoms are stored as the sequence of their symbols in preorder, where every
+ * variable is replaced by a wildcard.
+ *
+ * The retrieval walks the tree along the query atom, so the candidates are
+ * collected from the nodes reached by the query, without intersecting
+ * candidate sets. Each node stores the tgds of its subtree, such that the walk
+ * stops as soon as the remaining query symbols are all variables. Since the
+ * variables are not distinguished, the retrieved candidates are the ones
+ * unifiable with the query, when the repeated variables are ignored.
+ */
+public class DiscriminationTreeUnificationIndex<Q extends GTGD> implements UnificationIndex<Q> {
+
+    private final Node<Q> root;
+
+    public DiscriminationTreeUnificationIndex() {
+        this.root = new Node<>(0);
+    }
+
+    @Override
+    public Set<Q> get(Atom atom) {
+        Candidates<Q> candidates = new Candidates<>();
+        Query query = new Query(atom);
+        get(root, query, 0, candidates);
+        return candidates.getResult();
+    }
+
+    @Override
+    public void forEachCandidate(Atom atom, Consumer<? super Q> consumer) {
+        Candidates<Q> candidates = new Candidates<>(consumer);
+        get(root, new Query(atom), 0, candidates);
+    }
+
+    // collects the candidates of the nodes reached from the node by the
+    // query symbols starting at the position
+    private void get(Node<Q> node, Query query, int position, Candidates<Q> candidates) {
+        // the remaining query symbols match the whole subtree
+        if (query.isVariableSuffix(position)) {
+            candidates.add(node.getTGDs());
+            return;
+        }
+
+        Object symbol = query.getSymbol(position);
+        if (symbol == Node.WILDCARD) {
+            // a query variable matches any indexed subterm
+            getSkipping(node, 1, query, query.getEnd(position), candidates);
+        } else {
+            // an indexed variable matches any query subterm
+            Node<Q> wildcardChild = node.getChild(Node.WILDCARD);
+            if (wildcardChild != null)
+                get(wildcardChild, query, query.getEnd(position), candidates);
+
+            Node<Q> child = node.getChild(symbol);
+            if (child != null)
+                get(child, query, position + 1, candidates);
+        }
+    }
+
+    // skips the given number of indexed subterms from the node, before
+    // resuming the retrieval of the query symbols starting at the position
+    private void getSkipping(Node<Q> node, int subtermCount, Query query, int position, Candidates<Q> candidates) {
+        if (subtermCount == 0) {
+            get(node, query, position, candidates);
+            return;
+        }
+
+        for (Node<Q> child : node.getChildren())
+            getSkipping(child, subtermCount - 1 + child.arity, query, position, candidates);
+    }
+
+    @Override
+    public void put(Atom atom, Q tgd) {
+        Node<Q> node = root.getOrCreateChild(atom.getPredicate(), atom.getPredicate().getArity());
+        node.add(tgd);
+        put(node, atom.getTerms(), tgd);
+    }
+
+    // adds the tgd to the nodes reached from the node by the symbols of the
+    // terms, creating the missing ones, and returns the last one
+    private Node<Q> put(Node<Q> node, Term[] terms, Q tgd) {
+        for (Term t : terms) {
+            if (t instanceof FunctionTerm) {
+                FunctionTerm ft = (FunctionTerm) t;
+                node = node.getOrCreateChild(ft.getFunction(), ft.getFunction().getArity());
+                node.add(tgd);
+                node = put(node, ft.getTerms(), tgd);
+            } else {
+                node = node.getOrCreateChild((t instanceof Constant) ? t : Node.WILDCARD, 0);
+                node.add(tgd);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public void remove(Atom atom, Q tgd) {
+        List<Object> symbols = new ArrayList<>();
+        symbols.add(atom.getPredicate());
+        addSymbols(atom.getTerms(), symbols);
+        remove(root, symbols, 0, tgd);
+    }
+
+    // removes the tgd from the nodes reached by the symbols and returns true if
+    // the node became empty
+    private boolean remove(Node<Q> node, List<Object> symbols, int position, Q tgd) {
+        if (node != root)
+            node.remove(tgd);
+
+        if (position < symbols.size()) {
+            Object symbol = symbols.get(position);
+            Node<Q> child = node.getChild(symbol);
+            if (child != null && remove(child, symbols, position + 1, tgd))
+                node.removeChild(symbol);
+        }
+        return node.isEmpty();
+    }
+
+    private static void addSymbols(Term[] terms, List<Object> symbols) {
+        for (Term t : terms) {
+            if (t instanceof FunctionTerm) {
+                symbols.add(((FunctionTerm) t).getFunction());
+                addSymbols(((FunctionTerm) t).getTerms(), symbols);
+            } else if (t instanceof Constant) {
+                symbols.add(t);
+            } else {
+                symbols.add(Node.WILDCARD);
+            }
+        }
+    }
+
+    /**
+     * The query atom flattened in preorder, with the end position of the
+     * subterm starting at each position
+     */
+    private static class Query {
+        private final List<Object> symbols = new ArrayList<>();
+        private final int[] ends;
+        // position from which all the symbols are variables
+        private final int variableSuffixStart;
+
+        Query(Atom atom) {
+            symbols.add(atom.getPredicate());
+            addSymbols(atom.getTerms(), symbols);
+
+            ends = new int[symbols.size()];
+            ends[0] = symbols.size();
+            computeEnds(atom.getTerms(), 1);
+
+            int start = symbols.size();
+            while (start > 0 && symbols.get(start - 1) == Node.WILDCARD)
+                start--;
+            variableSuffixStart = start;
+        }
+
+        // fills the ends of the subterms starting at the position and returns
+        // the position following them
+        private int computeEnds(Term[] terms, int position) {
+            for (Term t : terms) {
+                int start = position;
+                if (t instanceof FunctionTerm)
+                    position = computeEnds(((FunctionTerm) t).getTerms(), position + 1);
+                else
+                    position++;
+                ends[start] = position;
+            }
+            return position;
+        }
+
+        boolean isVariableSuffix(int position) {
+            return position >= variableSuffixStart && position > 0;
+        }
+
+        Object getSymbol(int position) {
+            return symbols.get(position);
+        }
+
+        int getEnd(int position) {
+            return ends[position];
+        }
+    }
+
+    /**
+     * Union of the candidate sets, which avoids copying a single set, or
+     * consumer of the candidates
+     */
+    private static class Candidates<P extends GTGD> {
+        private final Consumer<? super P> consumer;
+        private Set<P> first = null;
+        private Set<P> union = null;
+
+        Candidates() {
+            this(null);
+        }
+
+        Candidates(Consumer<? super P> consumer) {
+            this.consumer = consumer;
+        }
+
+        void add(Set<P> tgds) {
+            if (consumer != null) {
+                tgds.forEach(consumer);
+                return;
+            }
+
+            if (tgds.isEmpty())
+                return;
+
+            if (first == null) {
+                first = tgds;
+            } else {
+                if (union == null)
+                    union = new HashSet<>(first);
+                union.addAll(tgds);
+            }
+        }
+
+        Set<P> getResult() {
+            if (union != null)
+                return union;
+            return (first != null) ? first : new HashSet<>();
+        }
+    }
+
+    static class Node<P extends GTGD> {
+
+        // symbol standing for any variable
+        static final Object WILDCARD = new Object();
+
+        // arity of the symbol labelling the edge to this node
+        final int arity;
+        private Map<Object, Node<P>> children = null;
+        // tgds selected by the atoms going through this node, with their number
+        // of atoms, since the atoms of a tgd may share a node
+        private Map<P, Integer> tgds = null;
+
+        Node(int arity) {
+            this.arity = arity;
+        }
+
+        Node<P> getChild(Object symbol) {
+            return (children != null) ? children.get(symbol) : null;
+        }
+
+        Iterable<Node<P>> getChildren() {
+            return (children != null) ? children.values() : List.of();
+        }
+
+        Node<P> getOrCreateChild(Object symbol, int arity) {
+            if (children == null)
+                children = new HashMap<>();
+            return children.computeIfAbsent(symbol, s -> new Node<>(arity));
+        }
+
+        void removeChild(Object symbol) {
+            children.remove(symbol);
+            if (children.isEmpty())
+                children = null;
+        }
+
+        Set<P> getTGDs() {
+            return (tgds != null) ? tgds.keySet() : Set.of();
+        }
+
+        void add(P tgd) {
+            if (tgds == null)
+                tgds = new HashMap<>();
+            tgds.merge(tgd, 1, Integer::sum);
+        }
+
+        void remove(P tgd) {
+            if (tgds != null) {
+                tgds.computeIfPresent(tgd, (t, count) -> (count > 1) ? count - 1 : null);
+                if (tgds.isEmpty())
+                    tgds = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return children == null && tgds == null;
+        }
+    }
+}
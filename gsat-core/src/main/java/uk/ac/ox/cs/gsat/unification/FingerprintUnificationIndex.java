@@ -0,0 +1,159 @@
+package uk.ac.ox.cs.gsat.unification;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.ox.cs.gsat.fol.AtomFingerprint;
+import uk.ac.ox.cs.gsat.fol.GTGD;
+import uk.ac.ox.cs.gsat.fol.SymbolTable;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+
+/**
+ * Unification index storing, for each predicate, the fingerprints of the
+ * indexed atoms in a flat array (see {@link AtomFingerprint}). The retrieval
+ * scans the fingerprints of the predicate of the query and returns the TGDs
+ * whose atom has a fingerprint compatible with the one of the query.
+ */
+public class FingerprintUnificationIndex<Q extends GTGD> implements UnificationIndex<Q> {
+
+    private final Map<Predicate, Bucket<Q>> buckets = new HashMap<>();
+    // the fingerprints are computed with the symbol table of the context of the run
+    private final SymbolTable symbols = TGDContext.current().getSymbolTable();
+
+    @Override
+    public Set<Q> get(Atom atom) {
+        Set<Q> candidates = new HashSet<>();
+        forEachCandidate(atom, candidates::add);
+        return candidates;
+    }
+
+    @Override
+    public void forEachCandidate(Atom atom, Consumer<? super Q> consumer) {
+        Bucket<Q> bucket = buckets.get(atom.getPredicate());
+        if (bucket == null)
+            return;
+
+        int[] fingerprint = computeFingerprint(atom);
+        int[] fingerprints = bucket.fingerprints;
+        for (int i = 0; i < bucket.size; i++)
+            if (AtomFingerprint.isCompatible(fingerprints, i * AtomFingerprint.SIZE, fingerprint, 0))
+                consumer.accept(bucket.get(i));
+    }
+
+    @Override
+    public void put(Atom atom, Q tgd) {
+        Bucket<Q> bucket = buckets.computeIfAbsent(atom.getPredicate(), p -> new Bucket<>());
+        bucket.add(computeFingerprint(atom), tgd);
+    }
+
+    @Override
+    public void remove(Atom atom, Q tgd) {
+        Bucket<Q> bucket = buckets.get(atom.getPredicate());
+        if (bucket == null)
+            return;
+
+        bucket.remove(computeFingerprint(atom), tgd);
+        if (bucket.size == 0)
+            buckets.remove(atom.getPredicate());
+    }
+
+    private int[] computeFingerprint(Atom atom) {
+        int[] fingerprint = new int[AtomFingerprint.SIZE];
+        AtomFingerprint.compute(atom, fingerprint, 0, symbols);
+        return fingerprint;
+    }
+
+    /**
+     * Entries of a predicate, made of the fingerprint of an atom and of its TGD.
+     * The atoms of a TGD having the same fingerprint share an entry, which
+     * counts them.
+     */
+    private static class Bucket<P extends GTGD> {
+        private int[] fingerprints = new int[4 * AtomFingerprint.SIZE];
+        private Object[] tgds = new Object[4];
+        private int[] counts = new int[4];
+        private int size = 0;
+        // position of each entry
+        private final Map<Key, Integer> positions = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        P get(int index) {
+            return (P) tgds[index];
+        }
+
+        void add(int[] fingerprint, P tgd) {
+            Key key = new Key(tgd, fingerprint);
+            Integer index = positions.get(key);
+            if (index != null) {
+                counts[index]++;
+                return;
+            }
+
+            if (size == tgds.length) {
+                tgds = Arrays.copyOf(tgds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+                fingerprints = Arrays.copyOf(fingerprints, size * 2 * AtomFingerprint.SIZE);
+            }
+            System.arraycopy(fingerprint, 0, fingerprints, size * AtomFingerprint.SIZE, AtomFingerprint.SIZE);
+            tgds[size] = tgd;
+            counts[size] = 1;
+            positions.put(key, size);
+            size++;
+        }
+
+        // removes an atom from the entry of the tgd having the fingerprint of
+        // the atom, the last entry is moved to the place of a removed entry
+        void remove(int[] fingerprint, P tgd) {
+            Key key = new Key(tgd, fingerprint);
+            Integer index = positions.get(key);
+            if (index == null || --counts[index] > 0)
+                return;
+
+            positions.remove(key);
+            size--;
+            if (index < size) {
+                tgds[index] = tgds[size];
+                counts[index] = counts[size];
+                System.arraycopy(fingerprints, size * AtomFingerprint.SIZE, fingerprints,
+                        index * AtomFingerprint.SIZE, AtomFingerprint.SIZE);
+                positions.put(new Key(tgds[index], Arrays.copyOfRange(fingerprints, index * AtomFingerprint.SIZE,
+                        (index + 1) * AtomFingerprint.SIZE)), index);
+            }
+            tgds[size] = null;
+        }
+    }
+
+    /**
+     * A TGD with the fingerprint of one of its atoms
+     */
+    private static class Key {
+        private final Object tgd;
+        private final int[] fingerprint;
+        private final int hash;
+
+        Key(Object tgd, int[] fingerprint) {
+            this.tgd = tgd;
+            this.fingerprint = fingerprint;
+            this.hash = 31 * tgd.hashCode() + Arrays.hashCode(fingerprint);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return hash == other.hash && tgd.equals(other.tgd) && Arrays.equals(fingerprint, other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
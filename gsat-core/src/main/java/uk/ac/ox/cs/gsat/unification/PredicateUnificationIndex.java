@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.pdq.fol.Atom;
@@ -29,6 +30,13 @@ public class PredicateUnificationIndex<Q extends GTGD> implements UnificationInd
             return new HashSet<>();
 	}
 
+	@Override
+	public void forEachCandidate(Atom atom, Consumer<? super Q> consumer) {
+		Set<Q> set = this.map.get(atom.getPredicate());
+		if (set != null)
+			set.forEach(consumer);
+	}
+
 	@Override
 	public void put(Atom atom, Q tgd) {
         if (this.comparator != null) {
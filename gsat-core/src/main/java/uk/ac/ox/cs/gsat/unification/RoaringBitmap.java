@@ -0,0 +1,443 @@
+package uk.ac.ox.cs.gsat.unification;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compressed bitmap of non negative integers following the design of the
+ * Roaring bitmaps: the integers are partitioned by their 16 high bits and
+ * the low bits of each partition are stored in a container, which is either a
+ * sorted array, when the partition is sparse, or a bitmap of 2^16 bits.
+ */
+class RoaringBitmap {
+
+    // a sparse container holds at most this number of values
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    // high bits of the partitions sorted increasingly, and their containers
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size = 0;
+
+    /**
+     * Adds the value and returns true if it was absent
+     */
+    boolean add(int value) {
+        char key = high(value);
+        // the values added increasingly fall in the last partition
+        int index = (size > 0 && keys[size - 1] == key) ? size - 1 : Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int cardinality = container.getCardinality();
+        containers[index] = container.add(low(value));
+        return containers[index].getCardinality() > cardinality;
+    }
+
+    /**
+     * Removes the value and returns true if it was present
+     */
+    boolean remove(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, high(value));
+        if (index < 0)
+            return false;
+
+        Container container = containers[index];
+        int cardinality = container.getCardinality();
+        containers[index] = container.remove(low(value));
+        boolean removed = containers[index].getCardinality() < cardinality;
+        if (containers[index].getCardinality() == 0)
+            removeContainer(index);
+        return removed;
+    }
+
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++)
+            cardinality += containers[i].getCardinality();
+        return cardinality;
+    }
+
+    /**
+     * Returns a new bitmap containing the values of both bitmaps
+     */
+    static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.getCardinality() > 0)
+                    result.insertContainer(result.size, a.keys[i], container);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the values of the other bitmap to this one
+     */
+    void or(RoaringBitmap other) {
+        int i = 0;
+        for (int j = 0; j < other.size; j++) {
+            while (i < size && keys[i] < other.keys[j])
+                i++;
+
+            if (i < size && keys[i] == other.keys[j])
+                containers[i] = containers[i].or(other.containers[j]);
+            else
+                insertContainer(i, other.keys[j], other.containers[j].copy());
+            i++;
+        }
+    }
+
+    /**
+     * Returns a copy of this bitmap, which can be modified independently
+     */
+    RoaringBitmap copy() {
+        RoaringBitmap result = new RoaringBitmap();
+        result.keys = Arrays.copyOf(keys, size);
+        result.containers = new Container[size];
+        for (int i = 0; i < size; i++)
+            result.containers[i] = containers[i].copy();
+        result.size = size;
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the values in increasing order
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = 0;
+            private PrimitiveIterator.OfInt lows = (size > 0) ? containers[0].iterator() : null;
+
+            @Override
+            public boolean hasNext() {
+                while (lows != null && !lows.hasNext()) {
+                    index++;
+                    lows = (index < size) ? containers[index].iterator() : null;
+                }
+                return lows != null;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return (keys[index] << 16) | lows.nextInt();
+            }
+        };
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    /**
+     * Set of 16 bits values, the modifying operations return the container
+     * holding the result, which may be a container of the other kind
+     */
+    private static abstract class Container {
+
+        abstract int getCardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        abstract PrimitiveIterator.OfInt iterator();
+    }
+
+    private static class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int getCardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            // the values added increasingly are appended without a search
+            int index = (cardinality == 0 || values[cardinality - 1] < value) ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0)
+                return this;
+
+            if (cardinality == ARRAY_MAX_SIZE)
+                return toBitmapContainer().add(value);
+
+            index = -index - 1;
+            if (cardinality == values.length)
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, Math.max(4, cardinality * 2)));
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.getCardinality())];
+            int resultCardinality = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[resultCardinality++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++)
+                    if (other.contains(values[i]))
+                        result[resultCardinality++] = values[i];
+            }
+            return new ArrayContainer(result, resultCardinality);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer)
+                return other.copy().or(this);
+
+            Container result = this;
+            ArrayContainer array = (ArrayContainer) other;
+            for (int i = 0; i < array.cardinality; i++)
+                result = result.add(array.values[i]);
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        private BitmapContainer toBitmapContainer() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++)
+                bitmap.add(values[i]);
+            return bitmap;
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < cardinality;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return values[index++];
+                }
+            };
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int getCardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long newWord = word | (1L << value);
+            if (newWord != word) {
+                words[value >>> 6] = newWord;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long newWord = word & ~(1L << value);
+            if (newWord != word) {
+                words[value >>> 6] = newWord;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX_SIZE)
+                    return toArrayContainer();
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer)
+                return other.and(this);
+
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[words.length];
+            int resultCardinality = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] & otherWords[i];
+                resultCardinality += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, resultCardinality);
+            return (resultCardinality <= ARRAY_MAX_SIZE) ? bitmap.toArrayContainer() : bitmap;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++)
+                    add(array.values[i]);
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                cardinality = 0;
+                for (int i = 0; i < words.length; i++) {
+                    words[i] |= otherWords[i];
+                    cardinality += Long.bitCount(words[i]);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int index = 0;
+            PrimitiveIterator.OfInt iterator = iterator();
+            while (iterator.hasNext())
+                values[index++] = (char) iterator.nextInt();
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator() {
+            return new PrimitiveIterator.OfInt() {
+                private int wordIndex = 0;
+                private long word = words[0];
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0 && wordIndex < words.length - 1)
+                        word = words[++wordIndex];
+                    return word != 0;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    int value = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -1,16 +1,51 @@
 package uk.ac.ox.cs.gsat.unification;
 
+import java.util.Collection;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import uk.ac.ox.cs.gsat.fol.GTGD;
+import uk.ac.ox.cs.gsat.fol.TGD;
 import uk.ac.ox.cs.pdq.fol.Atom;
 
 public interface UnificationIndex<Q extends GTGD> {
 
     public Set<Q> get(Atom atom);
 
+    /**
+     * Passes the candidates for the unification with the atom to the consumer,
+     * without collecting them in a set. A candidate may be passed several times.
+     */
+    public void forEachCandidate(Atom atom, Consumer<? super Q> consumer);
+
+    /**
+     * Passes once each candidate for the unification with one of the atoms to
+     * the consumer. The candidates already passed are recognized by marking
+     * them with a new visit epoch, instead of collecting them in a set.
+     */
+    public default void forEachCandidate(Iterable<Atom> atoms, Consumer<? super Q> consumer) {
+        int epoch = TGD.newVisitEpoch();
+        Consumer<Q> deduplicatingConsumer = tgd -> {
+            if (tgd.markVisited(epoch))
+                consumer.accept(tgd);
+        };
+
+        for (Atom atom : atoms)
+            forEachCandidate(atom, deduplicatingConsumer);
+    }
+
     public void put(Atom atom, Q tgd);
 
+    /**
+     * Puts each TGD with each of its atoms given by the function
+     */
+    public default void putAll(Collection<Q> tgds, Function<? super Q, Atom[]> atoms) {
+        for (Q tgd : tgds)
+            for (Atom atom : atoms.apply(tgd))
+                put(atom, tgd);
+    }
+
     public void remove(Atom atom, Q tgd);
 
 }
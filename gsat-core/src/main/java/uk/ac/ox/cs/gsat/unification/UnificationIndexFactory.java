@@ -25,6 +25,10 @@ public class UnificationIndexFactory {
             return new PredicateUnificationIndex<Q>(comparator);
         case ATOM_PATH_INDEX:
             return new AtomPathUnificationIndex<Q>();
+        case DISCRIMINATION_TREE_INDEX:
+            return new DiscriminationTreeUnificationIndex<Q>();
+        case FINGERPRINT_INDEX:
+            return new FingerprintUnificationIndex<Q>();
         case DISABLED_INDEX:
             return new DisabledUnificationIndex<Q>();
         default:
@@ -3,5 +3,7 @@ package uk.ac.ox.cs.gsat.unification;
 public enum UnificationIndexType {
     DISABLED_INDEX,
     PREDICATE_INDEX,
-    ATOM_PATH_INDEX
+    ATOM_PATH_INDEX,
+    DISCRIMINATION_TREE_INDEX,
+    FINGERPRINT_INDEX
 }
@@ -0,0 +1,156 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.fol.TGDContext;
+import uk.ac.ox.cs.gsat.subsumers.SimpleSubsumer;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Constant;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Tests shared by the formula filters, which are created by the subclasses.
+ * The candidates of the filters are compared to the formulas subsumed by, or
+ * subsuming, the query, computed by brute force with the syntactic subsumption
+ * of {@link SimpleSubsumer}.
+ */
+public abstract class AbstractFormulaFilterTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Constant c = UntypedConstant.create("c");
+    private static final Function f = new Function("f", 1);
+
+    private static final Predicate A = Predicate.create("A", 1);
+    private static final Predicate B = Predicate.create("B", 1);
+    private static final Predicate R = Predicate.create("R", 2);
+
+    protected static final List<Atom> ATOMS = List.of(Atom.create(A, x), Atom.create(A, y), Atom.create(A, c),
+            Atom.create(B, x), Atom.create(R, x, y), Atom.create(R, y, x), Atom.create(R, x, c),
+            Atom.create(R, x, FunctionTerm.create(f, x)));
+
+    // the TGDs of each test are created in a context of their own, since the
+    // tree filters store the hashes of their indexes in the TGDs
+    protected final TGDContext context = new TGDContext();
+
+    protected abstract FormulaFilter<TGD> createFilter();
+
+    /**
+     * Returns random TGDs over the ATOMS, whose bodies and heads have at most
+     * the given number of atoms
+     */
+    protected List<TGD> createRandomTGDs(Random random, int number, int maxAtoms) {
+        List<TGD> tgds = new ArrayList<>();
+        for (int i = 0; i < number; i++)
+            tgds.add(TGD.create(context, randomAtoms(random, maxAtoms), randomAtoms(random, maxAtoms)));
+        return tgds;
+    }
+
+    private static Set<Atom> randomAtoms(Random random, int maxAtoms) {
+        Set<Atom> atoms = new HashSet<>();
+        int size = 1 + random.nextInt(maxAtoms);
+        while (atoms.size() < size)
+            atoms.add(ATOMS.get(random.nextInt(ATOMS.size())));
+        return atoms;
+    }
+
+    protected static Set<TGD> getSubsumed(Collection<TGD> formulas, TGD query) {
+        Set<TGD> subsumed = new HashSet<>();
+        for (TGD formula : formulas)
+            if (SimpleSubsumer.isSubsumedBy(formula, query))
+                subsumed.add(formula);
+        return subsumed;
+    }
+
+    protected static Set<TGD> getSubsuming(Collection<TGD> formulas, TGD query) {
+        Set<TGD> subsuming = new HashSet<>();
+        for (TGD formula : formulas)
+            if (SimpleSubsumer.isSubsumedBy(query, formula))
+                subsuming.add(formula);
+        return subsuming;
+    }
+
+    protected static Set<TGD> toSet(Iterable<TGD> formulas) {
+        Set<TGD> set = new HashSet<>();
+        formulas.forEach(set::add);
+        return set;
+    }
+
+    /**
+     * Adds and removes random TGDs, and checks after each operation that the
+     * candidates contain the subsumed and subsuming formulas, and only
+     * formulas of the filter
+     */
+    @Test
+    public void candidatesTest() {
+        Random random = new Random(0);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        FormulaFilter<TGD> filter = createFilter();
+        filter.init(tgds);
+        Set<TGD> added = new HashSet<>();
+
+        for (int step = 0; step < 600; step++) {
+            TGD tgd = tgds.get(random.nextInt(tgds.size()));
+            if (random.nextInt(3) == 0) {
+                filter.remove(tgd);
+                added.remove(tgd);
+            } else {
+                filter.add(tgd);
+                added.add(tgd);
+            }
+
+            assertEquals(added, new HashSet<>(filter.getAll()));
+            TGD query = tgds.get(random.nextInt(tgds.size()));
+            Set<TGD> subsumedCandidates = toSet(filter.getSubsumedCandidates(query));
+            Set<TGD> subsumingCandidates = toSet(filter.getSubsumingCandidates(query));
+            assertTrue(subsumedCandidates.containsAll(getSubsumed(added, query)), query.toString());
+            assertTrue(subsumingCandidates.containsAll(getSubsuming(added, query)), query.toString());
+            assertTrue(added.containsAll(subsumedCandidates));
+            assertTrue(added.containsAll(subsumingCandidates));
+        }
+
+        // the filter is empty once every formula is removed
+        filter.removeAll(new ArrayList<>(added));
+        assertTrue(filter.getAll().isEmpty());
+        for (TGD query : tgds) {
+            assertTrue(toSet(filter.getSubsumedCandidates(query)).isEmpty());
+            assertTrue(toSet(filter.getSubsumingCandidates(query)).isEmpty());
+        }
+    }
+
+    @Test
+    public void addAllTest() {
+        Random random = new Random(1);
+        List<TGD> tgds = createRandomTGDs(random, 100, 3);
+        FormulaFilter<TGD> filter = createFilter();
+        FormulaFilter<TGD> bulkFilter = createFilter();
+        filter.init(tgds);
+        bulkFilter.init(tgds);
+
+        for (TGD tgd : tgds)
+            filter.add(tgd);
+        bulkFilter.addAll(tgds);
+
+        assertEquals(new HashSet<>(filter.getAll()), new HashSet<>(bulkFilter.getAll()));
+        for (TGD query : tgds) {
+            assertEquals(toSet(filter.getSubsumedCandidates(query)), toSet(bulkFilter.getSubsumedCandidates(query)));
+            assertEquals(toSet(filter.getSubsumingCandidates(query)),
+                    toSet(bulkFilter.getSubsumingCandidates(query)));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.TGD;
+
+public class FeatureVectorFilterTest extends AbstractFormulaFilterTest {
+
+    @Override
+    protected FeatureVectorFilter<TGD> createFilter() {
+        return new FeatureVectorFilter<>();
+    }
+
+    /**
+     * Returns true iff the body features of tgd are greater and its head
+     * features are lower than the ones of other
+     */
+    private static boolean isDominatedBy(TGD tgd, TGD other) {
+        int[] features = FeatureVectorFilter.computeFeatures(tgd);
+        int[] otherFeatures = FeatureVectorFilter.computeFeatures(other);
+        for (int i = 0; i < features.length; i++)
+            if ((i < FeatureVectorFilter.ATOMS_FEATURE_NB) ? features[i] < otherFeatures[i]
+                    : features[i] > otherFeatures[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * The candidates are exactly the formulas whose features are dominated
+     * by, or dominate, the ones of the query, among which are the subsumed, or
+     * subsuming, formulas
+     */
+    @Test
+    public void collectTest() {
+        Random random = new Random(6);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        FeatureVectorFilter<TGD> filter = createFilter();
+        Set<TGD> added = new HashSet<>();
+        boolean pruned = false;
+
+        for (int step = 0; step < 600; step++) {
+            TGD tgd = tgds.get(random.nextInt(tgds.size()));
+            if (random.nextInt(3) == 0) {
+                filter.remove(tgd);
+                added.remove(tgd);
+            } else {
+                filter.add(tgd);
+                added.add(tgd);
+            }
+
+            TGD query = tgds.get(random.nextInt(tgds.size()));
+            Set<TGD> subsumedCandidates = toSet(filter.getSubsumedCandidates(query));
+            Set<TGD> subsumingCandidates = toSet(filter.getSubsumingCandidates(query));
+            Set<TGD> dominated = new HashSet<>();
+            Set<TGD> dominating = new HashSet<>();
+            for (TGD formula : added) {
+                if (isDominatedBy(formula, query))
+                    dominated.add(formula);
+                if (isDominatedBy(query, formula))
+                    dominating.add(formula);
+            }
+
+            assertEquals(dominated, subsumedCandidates);
+            assertEquals(dominating, subsumingCandidates);
+            assertTrue(subsumedCandidates.containsAll(getSubsumed(added, query)), query.toString());
+            assertTrue(subsumingCandidates.containsAll(getSubsuming(added, query)), query.toString());
+            pruned |= subsumedCandidates.size() < added.size() && subsumingCandidates.size() < added.size();
+        }
+        assertTrue(pruned);
+    }
+
+    /**
+     * The trie only keeps the nodes on the paths of the feature vectors of
+     * its formulas
+     */
+    @Test
+    public void removeTest() {
+        Random random = new Random(7);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        FeatureVectorFilter<TGD> filter = createFilter();
+        Set<TGD> added = new HashSet<>();
+
+        for (int step = 0; step < 600; step++) {
+            TGD tgd = tgds.get(random.nextInt(tgds.size()));
+            if (random.nextBoolean()) {
+                filter.remove(tgd);
+                added.remove(tgd);
+            } else {
+                filter.add(tgd);
+                added.add(tgd);
+            }
+            assertEquals(countPrefixes(added), filter.getNodeCount());
+        }
+
+        filter.removeAll(tgds);
+        assertTrue(filter.getAll().isEmpty());
+        assertEquals(1, filter.getNodeCount());
+    }
+
+    // returns the number of distinct prefixes of the feature vectors of the
+    // formulas, including the empty one
+    private static int countPrefixes(Collection<TGD> formulas) {
+        Set<List<Integer>> prefixes = new HashSet<>();
+        for (TGD formula : formulas) {
+            Integer[] features = Arrays.stream(FeatureVectorFilter.computeFeatures(formula)).boxed()
+                    .toArray(Integer[]::new);
+            for (int length = 1; length <= features.length; length++)
+                prefixes.add(Arrays.asList(Arrays.copyOf(features, length)));
+        }
+        return 1 + prefixes.size();
+    }
+}
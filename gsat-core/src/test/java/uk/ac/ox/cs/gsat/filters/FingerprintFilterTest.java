@@ -0,0 +1,58 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+public class FingerprintFilterTest extends AbstractFormulaFilterTest {
+
+    @Override
+    protected FormulaFilter<TGD> createFilter() {
+        return new FingerprintFilter<>();
+    }
+
+    /**
+     * The exact fingerprints of the ATOMS are distinct, so the candidates
+     * are exactly the subsumed and subsuming formulas
+     */
+    @Test
+    public void pruningTest() {
+        Random random = new Random(2);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        FormulaFilter<TGD> filter = createFilter();
+        filter.addAll(tgds);
+
+        for (TGD query : tgds) {
+            assertEquals(getSubsumed(tgds, query), toSet(filter.getSubsumedCandidates(query)));
+            assertEquals(getSubsuming(tgds, query), toSet(filter.getSubsumingCandidates(query)));
+        }
+    }
+
+    @Test
+    public void unsampledArgumentTest() {
+        Predicate P = Predicate.create("P", 6);
+        Variable x = Variable.create("x");
+        Atom a = Atom.create(P, x, x, x, x, UntypedConstant.create("a"), x);
+        Atom b = Atom.create(P, x, x, x, x, UntypedConstant.create("b"), x);
+        Atom h = Atom.create(Predicate.create("H", 1), x);
+        TGD tgdA = TGD.create(context, Set.of(a), Set.of(h));
+        TGD tgdB = TGD.create(context, Set.of(b), Set.of(h));
+
+        FormulaFilter<TGD> filter = createFilter();
+        filter.add(tgdA);
+
+        // the fifth argument is not sampled, so the atoms are not told apart
+        assertEquals(Set.of(tgdA), toSet(filter.getSubsumedCandidates(tgdB)));
+        assertEquals(Set.of(tgdA), toSet(filter.getSubsumingCandidates(tgdB)));
+    }
+}
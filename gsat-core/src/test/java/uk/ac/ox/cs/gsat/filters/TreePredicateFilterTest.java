@@ -0,0 +1,124 @@
+package uk.ac.ox.cs.gsat.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.satalg.SaturationAlgorithmConfiguration;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+public class TreePredicateFilterTest extends AbstractFormulaFilterTest {
+
+    @Override
+    protected TreePredicateFilter<TGD> createFilter() {
+        return new TreePredicateFilter<>(new SaturationAlgorithmConfiguration());
+    }
+
+    @Test
+    public void pruningTest() {
+        Random random = new Random(3);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        TreePredicateFilter<TGD> filter = createFilter();
+        filter.init(tgds);
+        filter.addAll(tgds);
+        int nodeCount = filter.getNodeCount();
+
+        // the nodes left without formula nor transition are removed
+        for (TGD tgd : tgds)
+            filter.remove(tgd);
+        assertEquals(1, filter.getNodeCount());
+        assertTrue(filter.getAll().isEmpty());
+
+        // and the removed paths are built again
+        for (TGD tgd : tgds)
+            filter.add(tgd);
+        assertEquals(nodeCount, filter.getNodeCount());
+        assertEquals(new HashSet<>(tgds), new HashSet<>(filter.getAll()));
+    }
+
+    @Test
+    public void manyFormulasPerNodeTest() {
+        // the formulas share their predicates, so they end up at the same node,
+        // whose formulas are then indexed by their positions
+        Variable x = Variable.create("x");
+        Atom body = Atom.create(Predicate.create("A", 1), x);
+        Predicate R = Predicate.create("R", 2);
+        List<TGD> tgds = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            tgds.add(TGD.create(context, Set.of(body), Set.of(Atom.create(R, x, UntypedConstant.create("c" + i)))));
+
+        TreePredicateFilter<TGD> filter = createFilter();
+        filter.init(tgds);
+        Set<TGD> added = new HashSet<>();
+        for (TGD tgd : tgds) {
+            filter.add(tgd);
+            added.add(tgd);
+        }
+        // the same formula is not added twice
+        filter.add(tgds.get(0));
+        assertEquals(added, new HashSet<>(filter.getAll()));
+        assertEquals(3, filter.getNodeCount());
+
+        // the removals move the last formula of the node, whose position is updated
+        Random random = new Random(4);
+        for (int step = 0; step < 200; step++) {
+            TGD tgd = tgds.get(random.nextInt(tgds.size()));
+            if (random.nextBoolean()) {
+                filter.remove(tgd);
+                added.remove(tgd);
+            } else {
+                filter.add(tgd);
+                added.add(tgd);
+            }
+
+            assertEquals(added, new HashSet<>(filter.getAll()));
+            TGD query = tgds.get(random.nextInt(tgds.size()));
+            assertEquals(added, toSet(filter.getSubsumedCandidates(query)));
+            assertEquals(added, toSet(filter.getSubsumingCandidates(query)));
+        }
+
+        filter.removeAll(tgds);
+        assertEquals(1, filter.getNodeCount());
+    }
+
+    @Test
+    public void addAllTrieTest() {
+        Random random = new Random(5);
+        List<TGD> tgds = createRandomTGDs(random, 200, 3);
+        TreePredicateFilter<TGD> filter = createFilter();
+        TreePredicateFilter<TGD> bulkFilter = createFilter();
+        filter.init(tgds);
+        bulkFilter.init(tgds);
+
+        for (TGD tgd : tgds)
+            filter.add(tgd);
+        bulkFilter.addAll(tgds);
+
+        // the bulk addition builds the same trie as the additions one by one
+        assertEquals(filter.getNodeCount(), bulkFilter.getNodeCount());
+        assertEquals(new HashSet<>(filter.getAll()), new HashSet<>(bulkFilter.getAll()));
+
+        // whose nodes are pruned in the same way
+        for (int i = 0; i < tgds.size(); i += 2) {
+            filter.remove(tgds.get(i));
+            bulkFilter.remove(tgds.get(i));
+        }
+        assertEquals(filter.getNodeCount(), bulkFilter.getNodeCount());
+        for (TGD query : tgds) {
+            assertEquals(toSet(filter.getSubsumedCandidates(query)), toSet(bulkFilter.getSubsumedCandidates(query)));
+            assertEquals(toSet(filter.getSubsumingCandidates(query)),
+                    toSet(bulkFilter.getSubsumingCandidates(query)));
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package uk.ac.ox.cs.gsat.satalg;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
@@ -16,9 +19,16 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import uk.ac.ox.cs.gsat.Log;
+import uk.ac.ox.cs.gsat.api.SaturationStatColumns;
 import uk.ac.ox.cs.gsat.fol.GTGD;
 import uk.ac.ox.cs.gsat.fol.TGD;
 import uk.ac.ox.cs.gsat.fol.TGDFactory;
+import uk.ac.ox.cs.gsat.statistics.DefaultStatisticsCollector;
+import uk.ac.ox.cs.gsat.statistics.StatisticsCollector;
+import uk.ac.ox.cs.gsat.subsumers.Subsumer;
+import uk.ac.ox.cs.gsat.unification.UnificationIndex;
+import uk.ac.ox.cs.gsat.unification.UnificationIndexFactory;
+import uk.ac.ox.cs.gsat.unification.UnificationIndexType;
 import uk.ac.ox.cs.pdq.fol.Atom;
 import uk.ac.ox.cs.pdq.fol.Constant;
 import uk.ac.ox.cs.pdq.fol.Dependency;
@@ -34,6 +44,7 @@ import uk.ac.ox.cs.pdq.fol.Variable;
 public class GSatTest {
 
     private static final GSat gsat = new GSat(new SaturationAlgorithmConfiguration());
+	private static final String PROCESS_NAME = "test";
 	// Variables
 	private static final Variable x1 = Variable.create("x1");
 	private static final Variable x2 = Variable.create("x2");
@@ -143,6 +154,262 @@ public class GSatTest {
 		checkRunGSatTest(initial, 3, result);
 	}
 
+	@Test
+	public void parallelEvolveTest() {
+		// ∀ x1 R(x1) → ∃ y1 R(x1,y1)
+		// ∀ x1,x2 R(x1,x2) → P_i(x1) for i in 1..40
+		// such that the non full TGD has enough partners to be evolved in parallel
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { R_x1 }, new Atom[] { Atom.create(Predicate.create("R", 2), x1, y1) }));
+		for (int i = 1; i <= 40; i++)
+			initial.add(TGD.create(new Atom[] { R_x1x2 }, new Atom[] { Atom.create(Predicate.create("P" + i, 1), x1) }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setParallelEvolve(true);
+		config.setParallelism(4);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// ∀ u1,u2 R(u1,u2) → P_i(u1) and ∀ u1 R(u1) → P_i(u1) for i in 1..40
+		checkRunGSatTest(initial, 80, result);
+		assertEquals(expected, result);
+		// the non full TGD is evolved with each of its 40 partners by the pool,
+		// while the derived TGDs have no partner
+		assertEquals(40, getStatistic(stats, SaturationStatColumns.EVOL_COUNT));
+	}
+
+	@Test
+	public void generationTest() {
+		// ∀ x1 R(x1) → ∃ y1 R(x1,y1)
+		// ∀ x1,x2 R(x1,x2) → ∃ y1 S(x2,y1)
+		// ∀ x1,x2 S(x1,x2) → P(x1)
+		// ∀ x1,x2 R(x1,x2) ∧ P(x2) → Q(x1)
+		Atom R_x1y1 = Atom.create(Predicate.create("R", 2), x1, y1);
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { R_x1 }, new Atom[] { R_x1y1 }));
+		initial.add(TGD.create(new Atom[] { R_x1x2 }, new Atom[] { Atom.create(Predicate.create("S", 2), x2, y1) }));
+		initial.add(TGD.create(new Atom[] { Atom.create(Predicate.create("S", 2), x1, x2) }, new Atom[] { P_x1 }));
+		initial.add(TGD.create(new Atom[] { R_x1x2, Atom.create(Predicate.create("P", 1), x2) },
+				new Atom[] { Atom.create(Predicate.create("Q", 1), x1) }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setNewTGDStructure(NewTGDStructure.GENERATION);
+		config.setParallelism(4);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// ∀ u1,u2 S(u1,u2) → P(u1)
+		// ∀ u1,u2 R(u1,u2) ∧ P(u2) → Q(u1)
+		// ∀ u1,u2 R(u1,u2) → P(u2)
+		// ∀ u1 R(u1) → Q(u1)
+		checkRunGSatTest(initial, 4, result);
+		assertEquals(expected, result);
+		// the generations are the initial TGDs, R(x1,x2) → P(x2),
+		// R(x1) → ∃ y1 R(x1,y1) ∧ P(y1) and R(x1) → Q(x1)
+		assertEquals(4, getStatistic(stats, SaturationStatColumns.GENERATION_NB));
+	}
+
+	@Test
+	public void pipelinedEvolveTest() {
+		// ∀ x1 A_i(x1) → ∃ y1 R(x1,y1) for i in 1..10
+		// ∀ x1,x2 R(x1,x2) → P(x1)
+		Collection<Dependency> initial = new HashSet<>();
+		for (int i = 1; i <= 10; i++)
+			initial.add(TGD.create(new Atom[] { Atom.create(Predicate.create("A" + i, 1), x1) },
+					new Atom[] { Atom.create(Predicate.create("R", 2), x1, y1) }));
+		initial.add(TGD.create(new Atom[] { R_x1x2 }, new Atom[] { P_x1 }));
+
+		// the queues are small enough for the stages to wait for each other
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setPipelinedEvolve(true);
+		config.setPipelineQueueSize(2);
+		config.setParallelism(3);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// ∀ u1,u2 R(u1,u2) → P(u1)
+		// ∀ u1 A_i(u1) → P(u1) for i in 1..10
+		checkRunGSatTest(initial, 11, result);
+		assertEquals(expected, result);
+		// each non full TGD is passed to the evolve stage with its partner, and
+		// its evolved TGD merged, while the derived TGDs have no partner
+		assertEquals(10, getStatistic(stats, SaturationStatColumns.PIPELINE_DISPATCHED));
+		assertEquals(10, getStatistic(stats, SaturationStatColumns.PIPELINE_MERGED));
+	}
+
+	@Test
+	public void pipelinedEvolveConflictTest() {
+		// the pipelined evolve would ignore the parallel evolve and be ignored
+		// by the GENERATION structure
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setPipelinedEvolve(true);
+		assertThrows(IllegalArgumentException.class, () -> config.setParallelEvolve(true));
+		assertThrows(IllegalArgumentException.class, () -> config.setNewTGDStructure(NewTGDStructure.GENERATION));
+
+		SaturationAlgorithmConfiguration generationConfig = new SaturationAlgorithmConfiguration();
+		generationConfig.setNewTGDStructure(NewTGDStructure.GENERATION);
+		assertThrows(IllegalArgumentException.class, () -> generationConfig.setPipelinedEvolve(true));
+		assertFalse(generationConfig.isPipelinedEvolveEnabled());
+	}
+
+	@Test
+	public void deferredBackwardSubsumptionTest() {
+		// ∀ x1 A(x1) → ∃ y1 R(x1,y1)
+		// ∀ x1,x2 R(x1,x2) → P(x1)
+		// ∀ x1 A(x1) ∧ B(x1) → P(x1)
+		Atom A_x1 = Atom.create(Predicate.create("A", 1), x1);
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { A_x1 }, new Atom[] { Atom.create(Predicate.create("R", 2), x1, y1) }));
+		initial.add(TGD.create(new Atom[] { R_x1x2 }, new Atom[] { P_x1 }));
+		initial.add(TGD.create(new Atom[] { A_x1, Atom.create(Predicate.create("B", 1), x1) }, new Atom[] { P_x1 }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setBackwardSubsumptionBatchSize(2);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// ∀ u1,u2 R(u1,u2) → P(u1)
+		// ∀ u1 A(u1) → P(u1)
+		checkRunGSatTest(initial, 2, result);
+		assertEquals(expected, result);
+		// the batches are the two initial full TGDs, the initial non full TGD
+		// and the derived A(x1) → P(x1), which subsumes A(x1) ∧ B(x1) → P(x1)
+		assertEquals(3, getStatistic(stats, SaturationStatColumns.BACKWARD_BATCH_NB));
+		assertEquals(1, getStatistic(stats, SaturationStatColumns.BACKWARD_BATCH_SUBSUMING));
+	}
+
+	@Test
+	public void discardVariantTest() {
+		// ∀ x1,x2,x3 A(x1,x2,x3) ∧ A(x1,x3,x3) → H(x1)
+		// ∀ z1,z2,z3 A(z1,z3,z3) ∧ A(z1,z2,z3) → H(z1)
+		// whose body atoms share their predicate, so they are in the opposite
+		// order in both TGDs, which the sorted VNF renames differently
+		Predicate A = Predicate.create("A", 3);
+		Atom H_x1 = Atom.create(Predicate.create("H", 1), x1);
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { Atom.create(A, x1, x2, x3), Atom.create(A, x1, x3, x3) },
+				new Atom[] { H_x1 }));
+		initial.add(TGD.create(new Atom[] { Atom.create(A, z1, z3, z3), Atom.create(A, z1, z2, z3) },
+				new Atom[] { Atom.create(Predicate.create("H", 1), z1) }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setVariantDiscarded(true);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// one of the variants, while the default run keeps both of them
+		checkRunGSatTest(initial, 1, result);
+		assertEquals(2, expected.size());
+		assertTrue(expected.containsAll(result));
+		// the second TGD is discarded before its subsumption check
+		assertEquals(1, getStatistic(stats, SaturationStatColumns.DISCARDED_VARIANT));
+	}
+
+	@Test
+	public void discardVariantOfKeptTGDTest() {
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setVariantDiscarded(true);
+		GSat sat = new GSat(config);
+		Atom H_x1 = Atom.create(Predicate.create("H", 1), x1);
+		// ∀ x1,x2 A(x1,x2) ∧ B(x2) → H(x1)
+		GTGD tgd = sat.getFactory().create(Set.of(Atom.create(Predicate.create("A", 2), x1, x2),
+				Atom.create(Predicate.create("B", 1), x2)), Set.of(H_x1));
+		// ∀ z1,z2 A(z1,z2) ∧ B(z2) → H(z1)
+		GTGD variant = sat.getFactory().create(Set.of(Atom.create(Predicate.create("A", 2), z1, z2),
+				Atom.create(Predicate.create("B", 1), z2)), Set.of(Atom.create(Predicate.create("H", 1), z1)));
+		// ∀ x1,x2 A(x1,x2) → H(x1)
+		GTGD subsuming = sat.getFactory().create(Set.of(Atom.create(Predicate.create("A", 2), x1, x2)),
+				Set.of(H_x1));
+
+		Subsumer<GTGD> subsumer = SaturationUtils.createSubsumer(Set.of(tgd, variant, subsuming), config);
+		UnificationIndex<GTGD> index = UnificationIndexFactory.getInstance().create(UnificationIndexType.PREDICATE_INDEX);
+		Collection<GTGD> newTGDs = new LinkedHashSet<>();
+		sat.addNewTGD(tgd, false, newTGDs, subsumer, index, new HashSet<>(), "test");
+		sat.addNewTGD(variant, false, newTGDs, subsumer, index, new HashSet<>(), "test");
+		assertEquals(Set.of(tgd), new HashSet<>(newTGDs));
+
+		// the form of the TGD removed by the backward subsumption is removed as
+		// well, so its variant is only checked by the forward subsumption
+		sat.addNewTGD(subsuming, false, newTGDs, subsumer, index, new HashSet<>(), "test");
+		assertEquals(Set.of(subsuming), new HashSet<>(newTGDs));
+		sat.addNewTGD(variant, false, newTGDs, subsumer, index, new HashSet<>(), "test");
+		assertEquals(Set.of(subsuming, variant), new HashSet<>(newTGDs));
+	}
+
+	@Test
+	public void parallelTransformationTest() {
+		// ∀ x1 R(x1) → ∃ y1 R(x1,y1)
+		// ∀ x1,x2 R(x1,x2) → P_i(x1) ∧ Q_i(x2) for i in 1..300
+		// such that the input TGDs are enough to be transformed in parallel
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { R_x1 }, new Atom[] { Atom.create(Predicate.create("R", 2), x1, y1) }));
+		for (int i = 1; i <= 300; i++)
+			initial.add(TGD.create(new Atom[] { R_x1x2 }, new Atom[] { Atom.create(Predicate.create("P" + i, 1), x1),
+					Atom.create(Predicate.create("Q" + i, 1), x2) }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setParallelTransformation(true);
+		config.setParallelism(4);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		Collection<GTGD> result = new HashSet<>(new GSat(config).run(initial));
+
+		// ∀ u1,u2 R(u1,u2) → P_i(u1) ∧ Q_i(u2) and ∀ u1 R(u1) → P_i(u1) for i in 1..300
+		assertEquals(600, result.size());
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void bulkInitializationTest() {
+		// ∀ z1,z2,z3 T(z1,z2,z3) ∧ U(z3) ∧ R(z1) → P(z1)
+		// ∀ z1,z2,z3 T(z1,z2,z3) ∧ U(z3) → P(z1)
+		// ∀ x1,x2,x3,x4 S(x1,x2,x3,x4) → U(x4)
+		Collection<Dependency> initial = new HashSet<>();
+		initial.add(TGD.create(new Atom[] { T_z1z2z3, U_z3, Atom.create(Predicate.create("R", 1), z1) },
+				new Atom[] { P_z1 }));
+		initial.add(TGD.create(new Atom[] { T_z1z2z3, U_z3 }, new Atom[] { P_z1 }));
+		initial.add(TGD.create(new Atom[] { S_x1x2x3x4 }, new Atom[] { U_x4 }));
+
+		SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+		config.setBulkInitialization(true);
+
+		Collection<GTGD> expected = new HashSet<>(new GSat(new SaturationAlgorithmConfiguration()).run(initial));
+		StatisticsCollector<SaturationStatColumns> stats = new DefaultStatisticsCollector<>();
+		Collection<GTGD> result = run(config, initial, stats);
+
+		// ∀ u1,u2,u3 T(u1,u2,u3) ∧ U(u3) → P(u1)
+		// ∀ u1,u2,u3,u4 S(u1,u2,u3,u4) → U(u4)
+		checkRunGSatTest(initial, 2, result);
+		assertEquals(expected, result);
+		// the TGDs are added at once to the subsumer, then the subsumed one is removed
+		assertEquals(1L, ((Number) stats.get(PROCESS_NAME, SaturationStatColumns.SUBSUMED)).longValue());
+	}
+
+	/**
+	 * Runs GSat with the configuration, whose statistics are collected by stats
+	 */
+	private static Collection<GTGD> run(SaturationAlgorithmConfiguration config, Collection<Dependency> initial,
+			StatisticsCollector<SaturationStatColumns> stats) {
+		GSat sat = new GSat(config);
+		sat.setStatsCollector(stats);
+		return new HashSet<>(sat.run(PROCESS_NAME, initial));
+	}
+
+	private static int getStatistic(StatisticsCollector<SaturationStatColumns> stats, SaturationStatColumns column) {
+		Object value = stats.get(PROCESS_NAME, column);
+		return (value == null) ? 0 : (Integer) value;
+	}
+
 	private void checkRunGSatTest(Collection<Dependency> initial, int expected, Collection<GTGD> result) {
 		System.out.println("Initial TGDs:  " + initial);
 		System.out.println("Created rules: " + result);
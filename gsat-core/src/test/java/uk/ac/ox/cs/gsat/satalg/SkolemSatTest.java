@@ -1,9 +1,49 @@
 package uk.ac.ox.cs.gsat.satalg;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
 import uk.ac.ox.cs.gsat.fol.SkGTGD;
+import uk.ac.ox.cs.gsat.satalg.AbstractSkolemSat.SkolemizationType;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Variable;
 
 public class SkolemSatTest extends AbstractSkolemSatTest<SkGTGD> {
     public SkolemSatTest() {
         super(new SkolemSat(new SaturationAlgorithmConfiguration()));
     }
+
+    @Test
+    public void parallelTransformationTest() {
+        // ∀ x1,x2 A_i(x1,x2) → ∃ y1 R_i(x1,y1) ∧ U_i(y1) for i in 1..300, whose
+        // transformation creates a Skolem function and a predicate
+        Variable x1 = Variable.create("x1"), x2 = Variable.create("x2"), y1 = Variable.create("y1");
+        SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+        config.skolemizationType = SkolemizationType.PROJ_ON_FRONTIER;
+        SkolemSat sequential = new SkolemSat(config);
+
+        List<SkGTGD> inputs = new ArrayList<>();
+        for (int i = 1; i <= 300; i++)
+            inputs.add(sequential.getFactory().create(Set.of(Atom.create(Predicate.create("A" + i, 2), x1, x2)),
+                    Set.of(Atom.create(Predicate.create("R" + i, 2), x1, y1),
+                            Atom.create(Predicate.create("U" + i, 1), y1))));
+
+        SaturationAlgorithmConfiguration parallelConfig = new SaturationAlgorithmConfiguration();
+        parallelConfig.skolemizationType = SkolemizationType.PROJ_ON_FRONTIER;
+        parallelConfig.setParallelTransformation(true);
+        parallelConfig.setParallelism(4);
+
+        // the fresh symbols are numbered after the position of their input TGD,
+        // so the transformed TGDs do not depend on the threads
+        List<SkGTGD> expected = new ArrayList<>(sequential.transformInputTGDs(inputs));
+        assertEquals(900, expected.size());
+        for (int run = 0; run < 3; run++)
+            assertEquals(expected, new ArrayList<>(new SkolemSat(parallelConfig).transformInputTGDs(inputs)));
+    }
 }
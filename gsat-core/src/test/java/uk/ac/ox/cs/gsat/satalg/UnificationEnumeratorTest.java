@@ -0,0 +1,91 @@
+package uk.ac.ox.cs.gsat.satalg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.Logic;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+/**
+ * Unit tests for the UnificationEnumerator class
+ */
+public class UnificationEnumeratorTest {
+
+    private static final Predicate R = Predicate.create("R", 2);
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Variable z = Variable.create("z");
+    private static final UntypedConstant c = UntypedConstant.create("c");
+    private static final UntypedConstant d = UntypedConstant.create("d");
+
+    @Test
+    public void sameAsProductTest() {
+        // R(x, y), R(y, z), R(z, x) with candidates mixing constants
+        List<Atom> atoms = List.of(Atom.create(R, x, y), Atom.create(R, y, z), Atom.create(R, z, x));
+        List<Atom> candidates = List.of(Atom.create(R, c, d), Atom.create(R, d, c), Atom.create(R, c, c),
+                Atom.create(R, x, c));
+        List<List<Atom>> candidatesPerAtom = List.of(candidates, candidates, candidates);
+
+        List<List<Atom>> expectedChoices = new ArrayList<>();
+        List<Map<Term, Term>> expectedMGUs = new ArrayList<>();
+        for (List<Atom> choice : SaturationUtils.getProduct(candidatesPerAtom)) {
+            Map<Term, Term> mgu = Logic.getVariableSubstitution(choice, atoms);
+            if (mgu != null) {
+                expectedChoices.add(choice);
+                expectedMGUs.add(mgu);
+            }
+        }
+
+        List<List<Atom>> choices = new ArrayList<>();
+        List<Map<Term, Term>> mgus = new ArrayList<>();
+        UnificationEnumerator enumerator = new UnificationEnumerator(atoms, candidatesPerAtom, true);
+        while (enumerator.next()) {
+            choices.add(enumerator.getChosenCandidates());
+            mgus.add(enumerator.getMGU());
+        }
+
+        assertFalse(expectedChoices.isEmpty());
+        assertEquals(expectedChoices, choices);
+        assertEquals(expectedMGUs, mgus);
+        // the unification of the prefixes fail before the full product is enumerated
+        assertTrue(enumerator.getFailureCount() < 64 - expectedChoices.size());
+    }
+
+    @Test
+    public void pruneDepthTest() {
+        List<Atom> atoms = List.of(Atom.create(R, x, x), Atom.create(R, x, z));
+        // R(c, d) fails on the first position, R(d, c) fails on the second one
+        List<List<Atom>> candidatesPerAtom = List.of(List.of(Atom.create(R, c, c), Atom.create(R, c, d)),
+                List.of(Atom.create(R, d, c), Atom.create(R, c, d)));
+
+        UnificationEnumerator enumerator = new UnificationEnumerator(atoms, candidatesPerAtom, true);
+        assertTrue(enumerator.next());
+        assertEquals(List.of(Atom.create(R, c, c), Atom.create(R, c, d)), enumerator.getChosenCandidates());
+        assertFalse(enumerator.next());
+
+        assertEquals(2, enumerator.getFailureCount());
+        assertEquals(1 + 2, enumerator.getPruneDepth());
+    }
+
+    @Test
+    public void emptyTest() {
+        UnificationEnumerator enumerator = new UnificationEnumerator(List.of(), List.of(), false);
+        assertTrue(enumerator.next());
+        assertTrue(enumerator.getMGU().isEmpty());
+        assertFalse(enumerator.next());
+
+        enumerator = new UnificationEnumerator(List.of(Atom.create(R, x, y)), List.of(List.of()), false);
+        assertFalse(enumerator.next());
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ox.cs.gsat.subsumers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.filters.FormulaFilter;
+import uk.ac.ox.cs.gsat.filters.TreePredicateFilter;
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.satalg.SaturationAlgorithmConfiguration;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+public class ConcurrentSubsumerTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Atom Ax = Atom.create(Predicate.create("A", 1), x);
+    private static final Atom Bx = Atom.create(Predicate.create("B", 1), x);
+
+    private static Atom headAtom(int i) {
+        return Atom.create(Predicate.create("H" + i, 1), x);
+    }
+
+    private static ConcurrentSubsumer<TGD> createSubsumer(Collection<TGD> initialTGDs, int stripeNumber) {
+        SaturationAlgorithmConfiguration config = new SaturationAlgorithmConfiguration();
+        List<FormulaFilter<TGD>> stripes = new ArrayList<>();
+        for (int i = 0; i < stripeNumber; i++) {
+            FormulaFilter<TGD> filter = new TreePredicateFilter<>(config);
+            filter.init(initialTGDs);
+            stripes.add(filter);
+        }
+        return new ConcurrentSubsumer<>(stripes);
+    }
+
+    @Test
+    public void concurrentAddTest() {
+        // A(x) -> H_i(x) and A(x), B(x) -> H_i(x) for i in 0..199
+        List<TGD> tgds = new ArrayList<>();
+        List<TGD> subsumedTGDs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tgds.add(TGD.create(Set.of(Ax), Set.of(headAtom(i))));
+            subsumedTGDs.add(TGD.create(Set.of(Ax, Bx), Set.of(headAtom(i))));
+        }
+        Collection<TGD> initialTGDs = new ArrayList<>(tgds);
+        initialTGDs.addAll(subsumedTGDs);
+
+        ConcurrentSubsumer<TGD> subsumer = createSubsumer(initialTGDs, 4);
+
+        IntStream.range(0, tgds.size()).parallel().forEach(i -> subsumer.add(tgds.get(i)));
+
+        assertEquals(new HashSet<>(tgds), subsumer.getAll());
+        subsumedTGDs.parallelStream().forEach(tgd -> assertTrue(subsumer.subsumed(tgd)));
+        assertEquals(subsumedTGDs.size(), subsumer.getNumberSubsumed());
+    }
+
+    @Test
+    public void addAllTest() {
+        // A(x) -> H_i(x), A(x), B(x) -> H_i(x) and B(x) -> H_i(x), A(x) for i in 0..99,
+        // added at once, the shared paths of the trie being reused
+        List<TGD> tgds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tgds.add(TGD.create(Set.of(Ax), Set.of(headAtom(i))));
+            tgds.add(TGD.create(Set.of(Ax, Bx), Set.of(headAtom(i))));
+            tgds.add(TGD.create(Set.of(Bx), Set.of(headAtom(i), Ax)));
+        }
+
+        ConcurrentSubsumer<TGD> bulkSubsumer = createSubsumer(tgds, 3);
+        bulkSubsumer.addAll(tgds);
+        ConcurrentSubsumer<TGD> subsumer = createSubsumer(tgds, 3);
+        tgds.forEach(subsumer::add);
+
+        assertEquals(new HashSet<>(tgds), bulkSubsumer.getAll());
+        for (TGD tgd : tgds) {
+            assertEquals(new HashSet<>(subsumer.subsumesAny(tgd)), new HashSet<>(bulkSubsumer.subsumesAny(tgd)));
+            assertEquals(subsumer.subsumed(tgd), bulkSubsumer.subsumed(tgd));
+        }
+        assertEquals(subsumer.getAll(), bulkSubsumer.getAll());
+    }
+
+    @Test
+    public void subsumesAnyTest() {
+        // A(x), B(x) -> H_0(x) is subsumed by A(x) -> H_0(x)
+        TGD subsumed = TGD.create(Set.of(Ax, Bx), Set.of(headAtom(0)));
+        TGD subsuming = TGD.create(Set.of(Ax), Set.of(headAtom(0)));
+        ConcurrentSubsumer<TGD> subsumer = createSubsumer(List.of(subsumed, subsuming), 3);
+
+        subsumer.add(subsumed);
+        assertFalse(subsumer.subsumed(subsuming));
+        assertEquals(Set.of(subsumed), new HashSet<>(subsumer.subsumesAny(subsuming)));
+        subsumer.add(subsuming);
+        assertEquals(Set.of(subsuming), subsumer.getAll());
+    }
+}
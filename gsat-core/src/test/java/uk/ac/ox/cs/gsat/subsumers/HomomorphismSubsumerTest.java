@@ -0,0 +1,98 @@
+package uk.ac.ox.cs.gsat.subsumers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.filters.FormulaFilter;
+import uk.ac.ox.cs.gsat.filters.TreePredicateFilter;
+import uk.ac.ox.cs.gsat.fol.TGD;
+import uk.ac.ox.cs.gsat.satalg.SaturationAlgorithmConfiguration;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Constant;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+public class HomomorphismSubsumerTest {
+
+    private static final Variable x = Variable.create("x");
+    private static final Variable y = Variable.create("y");
+    private static final Variable z = Variable.create("z");
+    private static final Variable w = Variable.create("w");
+    private static final Constant c = UntypedConstant.create("c");
+    private static final Predicate A = Predicate.create("A", 1);
+    private static final Predicate B = Predicate.create("B", 1);
+    private static final Predicate R = Predicate.create("R", 2);
+    private static final Predicate H = Predicate.create("H", 1);
+    private static final Function f = new Function("f", 1);
+
+    private static HomomorphismSubsumer<TGD> createSubsumer(Collection<TGD> initialTGDs) {
+        FormulaFilter<TGD> filter = new TreePredicateFilter<>(new SaturationAlgorithmConfiguration());
+        filter.init(initialTGDs);
+        return new HomomorphismSubsumer<>(filter);
+    }
+
+    @Test
+    public void variantTest() {
+        // A(x), R(x, y) -> H(y) and A(z), R(z, w) -> H(w) are variants
+        TGD tgd = TGD.create(Set.of(Atom.create(A, x), Atom.create(R, x, y)), Set.of(Atom.create(H, y)));
+        TGD variant = TGD.create(Set.of(Atom.create(A, z), Atom.create(R, z, w)), Set.of(Atom.create(H, w)));
+        HomomorphismSubsumer<TGD> subsumer = createSubsumer(List.of(tgd, variant));
+
+        subsumer.add(tgd);
+        assertTrue(subsumer.subsumed(variant));
+        assertEquals(1, subsumer.getNumberSubsumed());
+    }
+
+    @Test
+    public void instanceTest() {
+        // R(x, y) -> H(x) subsumes A(z), R(z, z) -> H(z) and R(c, f(z)) -> H(c)
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, y)), Set.of(Atom.create(H, x)));
+        TGD instance = TGD.create(Set.of(Atom.create(A, z), Atom.create(R, z, z)), Set.of(Atom.create(H, z)));
+        TGD groundInstance = TGD.create(Set.of(Atom.create(R, c, FunctionTerm.create(f, z))),
+                Set.of(Atom.create(H, c)));
+        HomomorphismSubsumer<TGD> subsumer = createSubsumer(List.of(tgd, instance, groundInstance));
+
+        subsumer.add(instance);
+        subsumer.add(groundInstance);
+        assertFalse(subsumer.subsumed(tgd));
+        assertEquals(Set.of(instance, groundInstance), new HashSet<>(subsumer.subsumesAny(tgd)));
+        subsumer.add(tgd);
+        assertEquals(Set.of(tgd), new HashSet<>(subsumer.getAll()));
+    }
+
+    @Test
+    public void notSubsumedTest() {
+        // R(x, y) -> H(x) does not subsume R(x, y) -> H(y)
+        TGD tgd = TGD.create(Set.of(Atom.create(R, x, y)), Set.of(Atom.create(H, x)));
+        TGD other = TGD.create(Set.of(Atom.create(R, x, y)), Set.of(Atom.create(H, y)));
+        assertFalse(HomomorphismSubsumer.isHomomorphicallySubsumedBy(other, tgd));
+
+        // R(x, x) -> H(x) does not subsume R(x, y) -> H(x)
+        TGD diagonal = TGD.create(Set.of(Atom.create(R, x, x)), Set.of(Atom.create(H, x)));
+        assertFalse(HomomorphismSubsumer.isHomomorphicallySubsumedBy(tgd, diagonal));
+        assertTrue(HomomorphismSubsumer.isHomomorphicallySubsumedBy(diagonal, tgd));
+    }
+
+    @Test
+    public void existentialTest() {
+        // A(x) -> exists y R(x, y) subsumes B(z), A(z) -> exists y R(z, y)
+        TGD tgd = TGD.create(Set.of(Atom.create(A, x)), Set.of(Atom.create(R, x, y)));
+        TGD instance = TGD.create(Set.of(Atom.create(B, z), Atom.create(A, z)), Set.of(Atom.create(R, z, y)));
+        assertTrue(HomomorphismSubsumer.isHomomorphicallySubsumedBy(instance, tgd));
+
+        // but not A(y) -> R(y, y), whose body contains the existential variable y
+        TGD full = TGD.create(Set.of(Atom.create(A, y)), Set.of(Atom.create(R, y, y)));
+        assertFalse(HomomorphismSubsumer.isHomomorphicallySubsumedBy(full, tgd));
+    }
+}
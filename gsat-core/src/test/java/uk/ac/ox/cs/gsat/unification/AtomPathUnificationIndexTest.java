@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -187,4 +190,96 @@ public class AtomPathUnificationIndexTest {
 
     }
 
+    @Test
+    public void testRemoveSamePredicateAtoms() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_b, T_x1f_bg_b));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(R_x1));
+        SkGTGD t3 = factory.create(Set.of(R_x1), Set.of(T_z1z2z3));
+
+        UnificationIndex<SkGTGD> index = new AtomPathUnificationIndex<>();
+        index.put(T_z1z2z3, t3);
+        index.put(T_x1f_ag_b, t1);
+        index.put(T_x1f_bg_b, t1);
+
+        // the paths shared with the other atom of t1 are kept
+        index.remove(T_x1f_ag_b, t1);
+        assertEquals(Set.of(t1, t3), index.get(T_x1f_bg_b));
+        assertEquals(Set.of(t1, t3), index.get(T_z1z2z3));
+        assertEquals(Set.of(t3), index.get(T_x1f_ag_b));
+
+        // the id of t1 is only released once both atoms are removed, so that
+        // it is not left in the constant and function nodes
+        index.remove(T_x1f_bg_b, t1);
+        index.put(R_x1, t2);
+        assertEquals(Set.of(t3), index.get(T_x1f_bg_b));
+        assertEquals(Set.of(t3), index.get(T_x1f_ag_b));
+        assertEquals(Set.of(t2), index.get(R_x1));
+    }
+
+    @Test
+    public void testSharedFunctionNode() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_x1));
+
+        UnificationIndex<SkGTGD> index = new AtomPathUnificationIndex<>();
+        index.put(T_x1f_x1g_x1, t1);
+        // the f node already exists, but the path through its argument is new
+        index.put(T_x1f_ag_x1, t2);
+
+        assertEquals(Set.of(t1, t2), index.get(T_x1f_ag_b));
+        assertEquals(Set.of(t1), index.get(T_x1f_bg_b));
+    }
+
+    @Test
+    public void testPutAll() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1, R_f_x1));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+        SkGTGD t3 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_x1));
+        SkGTGD t4 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_a));
+        List<Atom> queries = List.of(T_z1z2z3, R_f_z1, R_g_z1, T_x1f_ag_b, T_x1f_bg_b, T_x1f_x1g_a);
+
+        // the TGDs put at once are retrieved as the TGDs put one by one
+        UnificationIndex<SkGTGD> index = new AtomPathUnificationIndex<>();
+        UnificationIndex<SkGTGD> bulkIndex = new AtomPathUnificationIndex<>();
+        for (SkGTGD t : List.of(t1, t2))
+            for (Atom atom : t.getHeadAtoms())
+                index.put(atom, t);
+        bulkIndex.putAll(List.of(t1, t2), SkGTGD::getHeadAtoms);
+        for (Atom query : queries)
+            assertEquals(index.get(query), bulkIndex.get(query));
+
+        // the id released by t2 is reused, so the ids are not put increasingly
+        index.remove(T_x1x2x3, t2);
+        bulkIndex.remove(T_x1x2x3, t2);
+        for (SkGTGD t : List.of(t3, t4))
+            for (Atom atom : t.getHeadAtoms())
+                index.put(atom, t);
+        bulkIndex.putAll(List.of(t3, t4), SkGTGD::getHeadAtoms);
+        for (Atom query : queries)
+            assertEquals(index.get(query), bulkIndex.get(query));
+        assertEquals(Set.of(t1, t3, t4), bulkIndex.get(T_z1z2z3));
+    }
+
+    @Test
+    public void testForEachCandidate() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1, R_f_x1));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+
+        UnificationIndex<SkGTGD> index = new AtomPathUnificationIndex<>();
+        index.put(T_x1f_x1g_x1, t1);
+        index.put(R_f_x1, t1);
+        index.put(T_x1x2x3, t2);
+
+        // t1 is a candidate for both atoms, but it is passed once
+        List<SkGTGD> candidates = new ArrayList<>();
+        index.forEachCandidate(List.of(T_z1z2z3, R_z1), candidates::add);
+        assertEquals(2, candidates.size());
+        assertEquals(Set.of(t1, t2), new HashSet<>(candidates));
+
+        // a new traversal passes the candidates again
+        candidates.clear();
+        index.forEachCandidate(List.of(R_f_z1), candidates::add);
+        assertEquals(List.of(t1), candidates);
+    }
+
 }
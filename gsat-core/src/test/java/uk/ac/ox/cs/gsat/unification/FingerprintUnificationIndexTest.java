@@ -0,0 +1,364 @@
+package uk.ac.ox.cs.gsat.unification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ox.cs.gsat.fol.Logic;
+import uk.ac.ox.cs.gsat.fol.SkGTGD;
+import uk.ac.ox.cs.gsat.fol.TGDFactory;
+import uk.ac.ox.cs.pdq.fol.Atom;
+import uk.ac.ox.cs.pdq.fol.Constant;
+import uk.ac.ox.cs.pdq.fol.Function;
+import uk.ac.ox.cs.pdq.fol.FunctionTerm;
+import uk.ac.ox.cs.pdq.fol.Predicate;
+import uk.ac.ox.cs.pdq.fol.Term;
+import uk.ac.ox.cs.pdq.fol.UntypedConstant;
+import uk.ac.ox.cs.pdq.fol.Variable;
+
+public class FingerprintUnificationIndexTest {
+
+    private TGDFactory<SkGTGD> factory;
+
+    public FingerprintUnificationIndexTest() {
+        this.factory = TGDFactory.getSkGTGDInstance(true);
+    }
+
+    // Variables
+    private static final Variable x1 = Variable.create("x1");
+    private static final Variable x2 = Variable.create("x2");
+    private static final Variable x3 = Variable.create("x3");
+    private static final Variable z1 = Variable.create("z1");
+    private static final Variable z2 = Variable.create("z2");
+    private static final Variable z3 = Variable.create("z3");
+
+    // Functions
+    private static final Function f = new Function("f", 1);
+    private static final Function g = new Function("g", 1);
+
+    // Constants
+    private static final Constant a = UntypedConstant.create("a");
+    private static final Constant b = UntypedConstant.create("b");
+
+    
+    // Terms
+    private static final Term f_x1 = FunctionTerm.create(f, new Variable[] { x1 });
+    private static final Term f_a = FunctionTerm.create(f, new Constant[] { a });
+    private static final Term f_b = FunctionTerm.create(f, new Constant[] { b });
+    private static final Term f_z1 = FunctionTerm.create(f, new Variable[] { z1 });
+    private static final Term g_x1 = FunctionTerm.create(g, new Variable[] { x1 });
+    private static final Term g_z1 = FunctionTerm.create(g, new Variable[] { z1 });
+    private static final Term g_a = FunctionTerm.create(g, new Constant[] { a });
+    private static final Term g_b = FunctionTerm.create(g, new Constant[] { b });
+
+
+    private static final Atom R_x1 = Atom.create(Predicate.create("R", 1), x1);
+    private static final Atom R_a = Atom.create(Predicate.create("R", 1), a);
+    private static final Atom R_b = Atom.create(Predicate.create("R", 1), b);
+    private static final Atom R_z1 = Atom.create(Predicate.create("R", 1), z1);
+    private static final Atom R_f_x1 = Atom.create(Predicate.create("R", 1), f_x1);
+    private static final Atom R_f_z1 = Atom.create(Predicate.create("R", 1), f_z1);
+    private static final Atom R_g_z1 = Atom.create(Predicate.create("R", 1), g_z1);
+    private static final Atom T_x1x2x3 = Atom.create(Predicate.create("T", 3), x1, x2, x3);
+    private static final Atom T_x1f_x1g_x1 = Atom.create(Predicate.create("T", 3), x1, f_x1, g_x1);
+    private static final Atom T_x1f_ag_x1 = Atom.create(Predicate.create("T", 3), x1, f_a, g_x1);
+    private static final Atom T_x1f_ag_b = Atom.create(Predicate.create("T", 3), x1, f_a, g_b);
+    private static final Atom T_x1f_bg_b = Atom.create(Predicate.create("T", 3), x1, f_b, g_b);
+    private static final Atom T_x1f_x1g_a = Atom.create(Predicate.create("T", 3), x1, f_x1, g_a);
+    private static final Atom T_z1f_z1g_z1 = Atom.create(Predicate.create("T", 3), z1, f_z1, g_z1);
+    private static final Atom T_z1g_z1f_z1 = Atom.create(Predicate.create("T", 3), z1, g_z1, f_z1);
+    private static final Atom T_z1z2g_z1 = Atom.create(Predicate.create("T", 3), z1, z2, g_z1);
+    private static final Atom T_z1f_z1z3 = Atom.create(Predicate.create("T", 3), z1, f_z1, z3);
+    private static final Atom T_z1z2f_z1 = Atom.create(Predicate.create("T", 3), z1, z2, f_z1);
+    private static final Atom T_z1g_z1z3 = Atom.create(Predicate.create("T", 3), z1, g_z1, z3);
+    private static final Atom T_z1z2z3 = Atom.create(Predicate.create("T", 3), z1, z2, z3);
+    private static final Predicate P = Predicate.create("P", 6);
+    private static final Term f_f_a = FunctionTerm.create(f, f_a);
+    private static final Term f_f_b = FunctionTerm.create(f, f_b);
+
+
+    @Test
+    public void testWithoutSkolemFunction() {
+        SkGTGD t = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_x1x2x3, t);
+
+        assertFalse(index.get(T_z1z2z3).isEmpty());
+
+        assertTrue(index.get(R_x1).isEmpty());
+    }
+
+    @Test
+    public void testWithOneSkolemFunction() {
+        SkGTGD t = factory.create(Set.of(T_x1x2x3), Set.of(R_f_x1));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(R_f_x1, t);
+
+        assertTrue(index.get(T_z1z2z3).isEmpty());
+
+        assertFalse(index.get(R_z1).isEmpty());
+
+        assertFalse(index.get(R_f_z1).isEmpty());
+
+        assertTrue(index.get(R_g_z1).isEmpty());
+    }
+
+    @Test
+    public void testWithTwoSkolemFunctions() {
+        SkGTGD t = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_x1f_x1g_x1, t);
+
+        assertFalse(index.get(T_z1z2z3).isEmpty());
+        assertFalse(index.get(T_z1f_z1g_z1).isEmpty());
+        assertFalse(index.get(T_z1z2g_z1).isEmpty());
+        assertFalse(index.get(T_z1f_z1z3).isEmpty());
+        
+        assertTrue(index.get(R_z1).isEmpty());
+        assertTrue(index.get(T_z1g_z1f_z1).isEmpty());
+        assertTrue(index.get(T_z1z2f_z1).isEmpty());
+        assertTrue(index.get(T_z1g_z1z3).isEmpty());
+
+    }
+
+    @Test
+    public void testWithConstant() {
+        SkGTGD t = factory.create(Set.of(R_x1), Set.of(R_a));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(R_a, t);
+
+        assertFalse(index.get(R_a).isEmpty());
+        assertFalse(index.get(R_z1).isEmpty());
+
+        assertTrue(index.get(R_b).isEmpty());
+    }
+
+    @Test
+    public void testWithConstantNestedInSkolemFunction() {
+        SkGTGD t = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_x1));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_x1f_ag_x1, t);
+
+        assertFalse(index.get(T_x1f_ag_b).isEmpty());
+        assertFalse(index.get(T_x1f_ag_b).isEmpty());
+        assertFalse(index.get(T_x1f_x1g_x1).isEmpty());
+
+        assertTrue(index.get(T_x1f_bg_b).isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_x1));
+        SkGTGD t3 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_a));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_x1f_ag_x1, t1);
+        index.put(T_x1x2x3, t2);
+
+        assertEquals(2, index.get(T_x1f_ag_b).size());
+        assertEquals(2, index.get(T_x1f_ag_b).size());
+        assertEquals(2, index.get(T_x1f_x1g_x1).size());
+        assertEquals(1, index.get(T_x1f_bg_b).size());
+
+        index.remove(T_x1x2x3, t2);
+        assertEquals(1, index.get(T_x1f_ag_b).size());
+        assertEquals(1, index.get(T_x1f_ag_b).size());
+        assertEquals(1, index.get(T_x1f_x1g_x1).size());
+        assertEquals(0, index.get(T_x1f_bg_b).size());
+
+        index.remove(T_x1f_ag_x1, t1);
+        assertEquals(0, index.get(T_x1f_ag_b).size());
+        assertEquals(0, index.get(T_x1f_ag_b).size());
+        assertEquals(0, index.get(T_x1f_x1g_x1).size());
+        assertEquals(0, index.get(T_x1f_bg_b).size());
+
+        index.put(T_x1f_x1g_a, t3);
+        assertEquals(0, index.get(T_x1f_ag_b).size());
+        assertEquals(0, index.get(T_x1f_ag_b).size());
+        assertEquals(1, index.get(T_x1f_x1g_x1).size());
+        assertEquals(1, index.get(T_x1f_x1g_a).size());
+        assertEquals(0, index.get(T_x1f_bg_b).size());
+
+    }
+
+    @Test
+    public void testAllUnifiableCandidates() {
+        List<Atom> atoms = List.of(R_x1, R_a, R_b, R_z1, R_f_x1, R_f_z1, R_g_z1, T_x1x2x3, T_x1f_x1g_x1, T_x1f_ag_x1,
+                T_x1f_ag_b, T_x1f_bg_b, T_x1f_x1g_a, T_z1f_z1g_z1, T_z1g_z1f_z1, T_z1z2g_z1, T_z1f_z1z3, T_z1z2f_z1,
+                T_z1g_z1z3, T_z1z2z3);
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        Map<Atom, SkGTGD> tgds = new HashMap<>();
+        for (Atom atom : atoms) {
+            SkGTGD t = factory.create(Set.of(R_x1), Set.of(atom));
+            tgds.put(atom, t);
+            index.put(atom, t);
+        }
+
+        // the query variables are renamed apart from the indexed ones
+        Map<Term, Term> renaming = new HashMap<>();
+        for (Variable v : List.of(x1, x2, x3, z1, z2, z3))
+            renaming.put(v, Variable.create("y" + v.getSymbol()));
+
+        for (Atom atom : atoms) {
+            Atom query = (Atom) Logic.applySubstitution(atom, renaming);
+            Set<SkGTGD> candidates = index.get(query);
+            for (Atom indexed : atoms)
+                if (Logic.getMGU(query, indexed) != null)
+                    assertTrue(candidates.contains(tgds.get(indexed)), query + " " + indexed);
+        }
+    }
+
+    @Test
+    public void testForEachCandidate() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1, R_f_x1));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_x1f_x1g_x1, t1);
+        index.put(R_f_x1, t1);
+        index.put(T_x1x2x3, t2);
+
+        // t1 is a candidate for both atoms, but it is passed once
+        List<SkGTGD> candidates = new ArrayList<>();
+        index.forEachCandidate(List.of(T_z1z2z3, R_z1), candidates::add);
+        assertEquals(2, candidates.size());
+        assertEquals(Set.of(t1, t2), new HashSet<>(candidates));
+
+        // a new traversal passes the candidates again
+        candidates.clear();
+        index.forEachCandidate(List.of(R_f_z1), candidates::add);
+        assertEquals(List.of(t1), candidates);
+    }
+
+    @Test
+    public void testRemoveSamePredicateAtoms() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_b, T_x1f_bg_b));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(R_x1));
+        SkGTGD t3 = factory.create(Set.of(R_x1), Set.of(T_z1z2z3));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_z1z2z3, t3);
+        index.put(T_x1f_ag_b, t1);
+        index.put(T_x1f_bg_b, t1);
+
+        // the other atom of t1 is still indexed
+        index.remove(T_x1f_ag_b, t1);
+        assertEquals(Set.of(t1, t3), index.get(T_x1f_bg_b));
+        assertEquals(Set.of(t1, t3), index.get(T_z1z2z3));
+        assertEquals(Set.of(t3), index.get(T_x1f_ag_b));
+
+        // once both atoms are removed, t1 is not retrieved anymore, even by the
+        // atoms of a TGD put afterwards
+        index.remove(T_x1f_bg_b, t1);
+        index.put(R_x1, t2);
+        assertEquals(Set.of(t3), index.get(T_x1f_bg_b));
+        assertEquals(Set.of(t3), index.get(T_x1f_ag_b));
+        assertEquals(Set.of(t2), index.get(R_x1));
+    }
+
+    @Test
+    public void testPutAll() {
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_x1, R_f_x1));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_x1x2x3));
+        SkGTGD t3 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_x1));
+        SkGTGD t4 = factory.create(Set.of(R_x1), Set.of(T_x1f_x1g_a));
+        List<Atom> queries = List.of(T_z1z2z3, R_f_z1, R_g_z1, T_x1f_ag_b, T_x1f_bg_b, T_x1f_x1g_a);
+
+        // the TGDs put at once are retrieved as the TGDs put one by one
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        UnificationIndex<SkGTGD> bulkIndex = new FingerprintUnificationIndex<>();
+        for (SkGTGD t : List.of(t1, t2))
+            for (Atom atom : t.getHeadAtoms())
+                index.put(atom, t);
+        bulkIndex.putAll(List.of(t1, t2), SkGTGD::getHeadAtoms);
+        for (Atom query : queries)
+            assertEquals(index.get(query), bulkIndex.get(query));
+
+        // and so are the TGDs put after a removal
+        index.remove(T_x1x2x3, t2);
+        bulkIndex.remove(T_x1x2x3, t2);
+        for (SkGTGD t : List.of(t3, t4))
+            for (Atom atom : t.getHeadAtoms())
+                index.put(atom, t);
+        bulkIndex.putAll(List.of(t3, t4), SkGTGD::getHeadAtoms);
+        for (Atom query : queries)
+            assertEquals(index.get(query), bulkIndex.get(query));
+        assertEquals(Set.of(t1, t3, t4), bulkIndex.get(T_z1z2z3));
+    }
+
+    @Test
+    public void testArityAboveSampledArguments() {
+        SkGTGD t = factory.create(Set.of(R_x1), Set.of(Atom.create(P, x1, x2, x3, a, a, x1)));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(t.getHeadAtoms()[0], t);
+
+        assertEquals(Set.of(t), index.get(Atom.create(P, z1, z2, z3, a, a, z1)));
+        // the fourth argument is sampled
+        assertEquals(Set.of(), index.get(Atom.create(P, z1, z2, z3, b, a, z1)));
+        // the fifth argument is not sampled, so the atoms are not told apart
+        assertEquals(Set.of(t), index.get(Atom.create(P, z1, z2, z3, a, b, z1)));
+        assertEquals(Set.of(t), index.get(Atom.create(P, z1, z2, z3, a, f_z1, z1)));
+    }
+
+    @Test
+    public void testNestedSampling() {
+        SkGTGD tfa = factory.create(Set.of(R_x1), Set.of(Atom.create(R_a.getPredicate(), f_a)));
+        SkGTGD tfx = factory.create(Set.of(R_x1), Set.of(R_f_x1));
+        SkGTGD tffa = factory.create(Set.of(R_x1), Set.of(Atom.create(R_a.getPredicate(), f_f_a)));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        for (SkGTGD t : List.of(tfa, tfx, tffa))
+            index.put(t.getHeadAtoms()[0], t);
+
+        // the first argument of a function term is sampled
+        assertEquals(Set.of(tfx), index.get(Atom.create(R_a.getPredicate(), f_b)));
+        assertEquals(Set.of(tfa, tfx), index.get(Atom.create(R_a.getPredicate(), f_a)));
+        assertEquals(Set.of(tfa, tfx, tffa), index.get(R_f_z1));
+        // the function symbols are sampled
+        assertEquals(Set.of(), index.get(R_g_z1));
+        assertEquals(Set.of(), index.get(Atom.create(R_a.getPredicate(), g_a)));
+        // the arguments below the first level are not sampled
+        assertEquals(Set.of(tfx, tffa), index.get(Atom.create(R_a.getPredicate(), f_f_b)));
+    }
+
+    @Test
+    public void testRemoveSameFingerprintAtoms() {
+        // the atoms only differ by their variables, so their fingerprints are equal
+        SkGTGD t1 = factory.create(Set.of(R_x1), Set.of(T_x1f_ag_b, Atom.create(T_x1f_ag_b.getPredicate(), x2, f_a, g_b)));
+        SkGTGD t2 = factory.create(Set.of(R_x1), Set.of(T_z1z2z3));
+
+        UnificationIndex<SkGTGD> index = new FingerprintUnificationIndex<>();
+        index.put(T_z1z2z3, t2);
+        for (Atom atom : t1.getHeadAtoms())
+            index.put(atom, t1);
+
+        // the atoms share an entry, so t1 is passed once
+        List<SkGTGD> candidates = new ArrayList<>();
+        index.forEachCandidate(T_z1z2z3, candidates::add);
+        assertEquals(2, candidates.size());
+
+        // the entry is kept until both atoms are removed
+        index.remove(T_x1f_ag_b, t1);
+        assertEquals(Set.of(t1, t2), index.get(T_x1f_ag_b));
+        index.remove(Atom.create(T_x1f_ag_b.getPredicate(), x2, f_a, g_b), t1);
+        assertEquals(Set.of(t2), index.get(T_x1f_ag_b));
+    }
+
+}
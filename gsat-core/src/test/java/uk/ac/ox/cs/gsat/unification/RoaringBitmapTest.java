@@ -0,0 +1,87 @@
+package uk.ac.ox.cs.gsat.unification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class RoaringBitmapTest {
+
+    private static TreeSet<Integer> toSet(RoaringBitmap bitmap) {
+        TreeSet<Integer> result = new TreeSet<>();
+        PrimitiveIterator.OfInt iterator = bitmap.iterator();
+        int previous = -1;
+        while (iterator.hasNext()) {
+            int value = iterator.nextInt();
+            // the values are iterated in increasing order
+            assertTrue(previous < value);
+            previous = value;
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static void fill(Random random, int count, int bound, RoaringBitmap bitmap, TreeSet<Integer> set) {
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(bound);
+            assertEquals(set.add(value), bitmap.add(value));
+        }
+    }
+
+    @Test
+    public void addRemoveTest() {
+        Random random = new Random(42);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // enough values in the first partition to switch to a dense container
+        fill(random, 20000, 1 << 17, bitmap, expected);
+        assertEquals(expected, toSet(bitmap));
+        assertEquals(expected.size(), bitmap.getCardinality());
+
+        for (int i = 0; i < 15000; i++) {
+            int value = random.nextInt(1 << 17);
+            assertEquals(expected.remove(value), bitmap.remove(value));
+        }
+        assertEquals(expected, toSet(bitmap));
+        assertEquals(expected.size(), bitmap.getCardinality());
+        for (int value : expected)
+            assertTrue(bitmap.contains(value));
+
+        for (int value : new TreeSet<>(expected))
+            bitmap.remove(value);
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(0));
+    }
+
+    @Test
+    public void andOrTest() {
+        Random random = new Random(7);
+        for (int count : new int[] { 10, 3000, 30000 }) {
+            RoaringBitmap a = new RoaringBitmap();
+            RoaringBitmap b = new RoaringBitmap();
+            TreeSet<Integer> aSet = new TreeSet<>();
+            TreeSet<Integer> bSet = new TreeSet<>();
+            fill(random, count, 1 << 18, a, aSet);
+            fill(random, count, 1 << 18, b, bSet);
+
+            TreeSet<Integer> intersection = new TreeSet<>(aSet);
+            intersection.retainAll(bSet);
+            assertEquals(intersection, toSet(RoaringBitmap.and(a, b)));
+
+            RoaringBitmap union = a.copy();
+            union.or(b);
+            TreeSet<Integer> expectedUnion = new TreeSet<>(aSet);
+            expectedUnion.addAll(bSet);
+            assertEquals(expectedUnion, toSet(union));
+            // the operands are unchanged
+            assertEquals(aSet, toSet(a));
+            assertEquals(bSet, toSet(b));
+        }
+    }
+}
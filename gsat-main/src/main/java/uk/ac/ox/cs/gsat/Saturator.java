@@ -12,8 +12,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.beust.jcommander.JCommander;
@@ -70,11 +79,19 @@ public class Saturator {
     @Parameter(names = { "--kaon2" }, required = false, description = "Perform the saturation using KAON2 (support only OWL inputs)")
     protected boolean kaon2Saturation;
 
+    @Parameter(names = { "-p", "--parallelism" }, required = false, description = "Number of files of a directory saturated in parallel.")
+    protected int parallelism = 1;
+
+    @Parameter(names = { "--file-timeout" }, required = false, description = "Timeout in seconds of the saturation of each file of a directory.")
+    protected Long fileTimeout;
+
     // collector of the satistics of saturation algorithm
     protected StatisticsCollector<SaturationStatColumns> statisticsCollector;
 
     protected SaturationProcess saturationProcess;
 
+    protected SaturationProcessConfiguration saturationConfig;
+
     protected File inputFile;
 
     protected File outputFile;
@@ -153,25 +170,30 @@ public class Saturator {
 
     protected void setConfiguration(String currentDirectoryPath) throws Exception {
         String saturationConfigPath = getConfigurationPath(currentDirectoryPath);
-        SaturationProcessConfiguration saturationConfig;
         if (saturationConfigPath != null)
             saturationConfig = new SaturationProcessConfiguration(saturationConfigPath);
         else
             saturationConfig = new SaturationProcessConfiguration();
 
+        saturationProcess = createSaturationProcess();
+        saturationProcess.setStatisticCollector(statisticsCollector);
+        if (watcher != null)
+            watcher.changeConfiguration(saturationConfigPath);
+    }
+
+    /**
+     * create a saturation process following the current configuration
+     */
+    protected SaturationProcess createSaturationProcess() throws Exception {
         if (kaon2Saturation) {
-            saturationProcess = new KAON2SaturationProcess(saturationConfig);
+            return new KAON2SaturationProcess(saturationConfig);
         } else {
             if (saturationConfig.doApplyStructuralTransformation()) {
-                saturationProcess = new CoreSaturationProcess(saturationConfig, new KAON2StructuralTransformation());
+                return new CoreSaturationProcess(saturationConfig, new KAON2StructuralTransformation());
             } else {
-                saturationProcess = new CoreSaturationProcess(saturationConfig, getTransformations());
+                return new CoreSaturationProcess(saturationConfig, getTransformations());
             }
         }
-
-        saturationProcess.setStatisticCollector(statisticsCollector);
-        if (watcher != null)
-            watcher.changeConfiguration(saturationConfigPath);
     }
     
     protected String getConfigurationPath(String currentDirectoryPath) throws IOException  {
@@ -240,6 +262,11 @@ public class Saturator {
     
         // sort the input paths
         Collections.sort(singleInputPaths);
+
+        if (parallelism > 1 || fileTimeout != null) {
+            runFilesInParallel(singleInputPaths, inputDirectoryPath, outputDirectoryPath, statsLogger);
+            return;
+        }
     
         for (String singleInput : singleInputPaths) {
             String rowName = getRowName(singleInput);
@@ -255,6 +282,112 @@ public class Saturator {
     
     }
     
+    /**
+     * run the saturation of the files using parallelism workers, each file
+     * being saturated by its own saturation process with its own statistics
+     * collector. The statistics rows are printed and the watcher is notified
+     * following the order of the input paths.
+     */
+    protected void runFilesInParallel(List<String> singleInputPaths, String inputDirectoryPath,
+            String outputDirectoryPath, StatisticsLogger statsLogger) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            List<Future<SingleFileResult>> results = new ArrayList<>();
+            for (String singleInput : singleInputPaths) {
+                String singleOutputPath = getSingleOutputPath(singleInput, inputDirectoryPath, outputDirectoryPath);
+                results.add(executor.submit(() -> saturateSingleFile(singleInput, singleOutputPath, timer)));
+            }
+
+            for (int i = 0; i < singleInputPaths.size(); i++) {
+                String singleInput = singleInputPaths.get(i);
+                String rowName = getRowName(singleInput);
+                try {
+                    SingleFileResult result = results.get(i).get();
+
+                    for (Map.Entry<? extends StatisticsColumn, Object> cell : result.statistics.entrySet())
+                        statisticsCollector.put(rowName, (SaturationStatColumns) cell.getKey(), cell.getValue());
+
+                    if (this.watcher != null)
+                        this.watcher.singleSaturationDone(rowName, singleInput,
+                                getSingleOutputPath(singleInput, inputDirectoryPath, outputDirectoryPath),
+                                result.saturationFullTGDs);
+                } catch (ExecutionException e) {
+                    statisticsCollector.put(rowName, SaturationStatColumns.TIME, "ERROR");
+                    e.getCause().printStackTrace();
+                }
+                statsLogger.printRow(rowName);
+            }
+        } finally {
+            executor.shutdownNow();
+            timer.shutdownNow();
+        }
+    }
+
+    private SingleFileResult saturateSingleFile(String input, String output, ScheduledExecutorService timer)
+            throws Exception {
+        Log.GLOBAL.info("Saturation of " + input);
+
+        String rowName = getRowName(input);
+        StatisticsCollector<SaturationStatColumns> fileStatisticsCollector = new DefaultStatisticsCollector<>();
+        SaturationProcess fileSaturationProcess = createSaturationProcess();
+        fileSaturationProcess.setStatisticCollector(fileStatisticsCollector);
+
+        FileTimeout timeout = (fileTimeout != null) ? new FileTimeout(timer, fileTimeout) : null;
+        Collection<? extends TGD> saturationFullTGDs;
+        try {
+            saturationFullTGDs = fileSaturationProcess.saturate(rowName, input);
+        } finally {
+            if (timeout != null)
+                timeout.cancel();
+        }
+        writeTGDsToFile(output, saturationFullTGDs);
+
+        return new SingleFileResult(new HashMap<>(fileStatisticsCollector.getRow(rowName)), saturationFullTGDs);
+    }
+
+    private static class SingleFileResult {
+        private final Map<? extends StatisticsColumn, Object> statistics;
+        private final Collection<? extends TGD> saturationFullTGDs;
+
+        private SingleFileResult(Map<? extends StatisticsColumn, Object> statistics,
+                Collection<? extends TGD> saturationFullTGDs) {
+            this.statistics = statistics;
+            this.saturationFullTGDs = saturationFullTGDs;
+        }
+    }
+
+    /**
+     * Interrupts the thread saturating a file, when the timeout is reached. The
+     * saturation algorithms stop with a timeout, when their thread is interrupted.
+     */
+    private static class FileTimeout {
+        private final Thread thread = Thread.currentThread();
+        private final ScheduledFuture<?> interruption;
+        private boolean done = false;
+
+        private FileTimeout(ScheduledExecutorService timer, long timeout) {
+            this.interruption = timer.schedule(this::interrupt, timeout, TimeUnit.SECONDS);
+        }
+
+        private synchronized void interrupt() {
+            if (!done)
+                thread.interrupt();
+        }
+
+        /**
+         * Must be called by the thread saturating the file
+         */
+        private synchronized void cancel() {
+            done = true;
+            interruption.cancel(false);
+            // clear a possible interruption
+            Thread.interrupted();
+        }
+    }
+
     public static <T extends StatisticsColumn> StatisticsLogger getStatisticsLogger(
             StatisticsCollector<T> statsCollector, String outputDirectory, String statsFileName)
             throws FileNotFoundException {